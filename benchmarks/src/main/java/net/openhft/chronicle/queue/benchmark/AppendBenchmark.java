@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.benchmark;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appending a message of a given size with {@code writingDocument()} and {@code writeBytes}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AppendBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int messageSize;
+
+    private SingleChronicleQueue queue;
+    private ExcerptAppender appender;
+    private Bytes<?> message;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = SingleChronicleQueueBuilder.binary(BenchmarkQueues.newDir(AppendBenchmark.class))
+                .rollCycle(RollCycles.LARGE_DAILY)
+                .build();
+        appender = queue.acquireAppender();
+        message = Bytes.allocateDirect(messageSize);
+        message.writeSkip(messageSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        message.release();
+        BenchmarkQueues.delete(queue);
+    }
+
+    @Benchmark
+    public void writingDocument() {
+        try (DocumentContext dc = appender.writingDocument()) {
+            dc.wire().bytes().write(message, 0L, (long) messageSize);
+        }
+    }
+
+    @Benchmark
+    public void writeBytes() {
+        appender.writeBytes(message);
+    }
+}
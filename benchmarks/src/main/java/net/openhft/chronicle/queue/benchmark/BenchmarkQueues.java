@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.benchmark;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.io.IOTools;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+
+/**
+ * Where the benchmarks keep their queues, which is {@code java.io.tmpdir} unless the system
+ * property {@code benchmark.dir} is set, so the disk being measured can be chosen. It is public for
+ * the benchmarks of package private code, which are in the queue's packages.
+ */
+public final class BenchmarkQueues {
+    private static final String BASE_DIR = System.getProperty("benchmark.dir", System.getProperty("java.io.tmpdir"));
+
+    private BenchmarkQueues() {
+    }
+
+    @NotNull
+    public static File newDir(@NotNull Class<?> benchmark) {
+        return new File(BASE_DIR, benchmark.getSimpleName() + "-" + System.nanoTime());
+    }
+
+    public static void delete(@NotNull SingleChronicleQueue queue) {
+        File dir = queue.file();
+        queue.close();
+        IOTools.deleteDirWithFiles(dir, 2);
+    }
+
+    /**
+     * Append messages of a size, each holding its number in the first 8 bytes.
+     */
+    public static void fill(@NotNull SingleChronicleQueue queue, int messages, int messageSize) {
+        ExcerptAppender appender = queue.acquireAppender();
+        Bytes<?> message = Bytes.allocateDirect(Math.max(8, messageSize));
+        try {
+            for (int i = 0; i < messages; i++) {
+                message.clear();
+                message.writeLong(i);
+                message.writeSkip(messageSize - 8);
+                appender.writeBytes(message);
+            }
+        } finally {
+            message.release();
+        }
+    }
+}
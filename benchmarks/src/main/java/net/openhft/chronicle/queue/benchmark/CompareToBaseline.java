@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH CSV result file with a baseline, and exits with status 1 if any benchmark has
+ * regressed by more than the threshold, 10% by default.
+ * <p>
+ * Usage: {@code CompareToBaseline <baseline.csv> <results.csv> [threshold-percent]}
+ * <p>
+ * Secondary results, such as those of the GC profiler, are not compared. For throughput, higher
+ * is better; for every other mode, lower is better.
+ */
+public final class CompareToBaseline {
+    private CompareToBaseline() {
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: CompareToBaseline <baseline.csv> <results.csv> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.10;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> results = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : results.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-80s %12s -> %12.3f %s (new)%n", entry.getKey(), "", entry.getValue().score, entry.getValue().unit);
+                continue;
+            }
+            Result after = entry.getValue();
+            double change = (after.score - before.score) / before.score;
+            boolean worse = "thrpt".equals(after.mode) ? change < -threshold : change > threshold;
+            if (worse)
+                regressions++;
+            System.out.printf("%-80s %12.3f -> %12.3f %s %+.1f%%%s%n",
+                    entry.getKey(), before.score, after.score, after.unit, change * 100, worse ? " REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s) beyond " + threshold * 100 + "%");
+            System.exit(1);
+        }
+    }
+
+    static Map<String, Result> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        if (lines.isEmpty())
+            return results;
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int unit = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> columns = split(line);
+            if (columns.size() != header.size())
+                continue;
+            String name = columns.get(benchmark);
+            // secondary results from profilers have a ':' in the benchmark name
+            if (name.contains(":"))
+                continue;
+            StringBuilder key = new StringBuilder(name).append(' ').append(columns.get(mode));
+            for (int i = unit + 1; i < header.size(); i++)
+                if (!columns.get(i).isEmpty())
+                    key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(columns.get(i));
+            results.put(key.toString(), new Result(columns.get(mode),
+                    Double.parseDouble(columns.get(score)), columns.get(unit)));
+        }
+        return results;
+    }
+
+    static List<String> split(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == '"')
+                quoted = !quoted;
+            else if (ch == ',' && !quoted) {
+                columns.add(column.toString());
+                column.setLength(0);
+            } else
+                column.append(ch);
+        }
+        columns.add(column.toString());
+        return columns;
+    }
+
+    static final class Result {
+        final String mode;
+        final double score;
+        final String unit;
+
+        Result(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+}
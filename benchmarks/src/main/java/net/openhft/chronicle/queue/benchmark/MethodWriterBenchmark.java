@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.benchmark;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.AbstractMarshallable;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing the same event through a method writer and as raw bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MethodWriterBenchmark {
+
+    private SingleChronicleQueue queue;
+    private ExcerptAppender appender;
+    private PriceListener writer;
+    private final Price price = new Price();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = SingleChronicleQueueBuilder.binary(BenchmarkQueues.newDir(MethodWriterBenchmark.class))
+                .rollCycle(RollCycles.LARGE_DAILY)
+                .build();
+        appender = queue.acquireAppender();
+        writer = appender.methodWriter(PriceListener.class);
+        price.instrument = 12345;
+        price.bid = 99.5;
+        price.ask = 100.5;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkQueues.delete(queue);
+    }
+
+    @Benchmark
+    public void methodWriter() {
+        writer.onPrice(price);
+    }
+
+    @Benchmark
+    public void rawBytes() {
+        try (DocumentContext dc = appender.writingDocument()) {
+            Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeLong(price.instrument);
+            bytes.writeDouble(price.bid);
+            bytes.writeDouble(price.ask);
+        }
+    }
+
+    public interface PriceListener {
+        void onPrice(Price price);
+    }
+
+    public static class Price extends AbstractMarshallable {
+        long instrument;
+        double bid;
+        double ask;
+    }
+}
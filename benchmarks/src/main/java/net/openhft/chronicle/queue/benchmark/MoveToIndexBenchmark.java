@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.benchmark;
+
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving a tailer to an index, either at random or to each index in turn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MoveToIndexBenchmark {
+    private static final int MESSAGES = 1 << 20;
+
+    @Param({"random", "sequential"})
+    public String order;
+
+    private SingleChronicleQueue queue;
+    private ExcerptTailer tailer;
+    private long[] indices;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = SingleChronicleQueueBuilder.binary(BenchmarkQueues.newDir(MoveToIndexBenchmark.class))
+                .rollCycle(RollCycles.LARGE_DAILY)
+                .build();
+        BenchmarkQueues.fill(queue, MESSAGES, 64);
+        tailer = queue.createTailer();
+        long first = tailer.toStart().index();
+
+        indices = new long[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++)
+            indices[i] = first + i;
+        if ("random".equals(order)) {
+            Random random = new Random(1);
+            for (int i = MESSAGES - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                long swap = indices[i];
+                indices[i] = indices[j];
+                indices[j] = swap;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkQueues.delete(queue);
+    }
+
+    @Benchmark
+    public boolean moveToIndex() {
+        boolean found = tailer.moveToIndex(indices[next]);
+        next = (next + 1) & (MESSAGES - 1);
+        return found;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.benchmark;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a queue from start to end with {@code readingDocument()} or {@code readBatch}, going
+ * back to the start once the end is reached.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TailerBenchmark {
+    private static final int MESSAGES = 1_000_000;
+    private static final int BATCH = 64;
+
+    @Param({"16", "256"})
+    public int messageSize;
+
+    private SingleChronicleQueue queue;
+    private ExcerptTailer tailer;
+    private long sum;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queue = SingleChronicleQueueBuilder.binary(BenchmarkQueues.newDir(TailerBenchmark.class))
+                .rollCycle(RollCycles.LARGE_DAILY)
+                .build();
+        BenchmarkQueues.fill(queue, MESSAGES, messageSize);
+        tailer = queue.createTailer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkQueues.delete(queue);
+    }
+
+    @Benchmark
+    public long readingDocument() {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (dc.isPresent())
+                return dc.wire().bytes().readLong();
+        }
+        tailer.toStart();
+        return -1;
+    }
+
+    /**
+     * Per excerpt, as each call reads up to {@value #BATCH} excerpts.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long readBatch() {
+        if (tailer.readBatch(this::consume, BATCH) == 0)
+            tailer.toStart();
+        return sum;
+    }
+
+    private void consume(long index, Bytes<?> bytes) {
+        sum += bytes.readLong();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.benchmark;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueue;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the end of a queue, and counting the excerpts between its first and last index, over a
+ * number of cycles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ToEndBenchmark {
+    private static final int MESSAGES_PER_CYCLE = 10_000;
+
+    @Param({"1", "10"})
+    public int cycles;
+
+    private SingleChronicleQueue queue;
+    private ExcerptTailer tailer;
+    private long firstIndex;
+    private long lastIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SetTimeProvider timeProvider = new SetTimeProvider();
+        queue = SingleChronicleQueueBuilder.binary(BenchmarkQueues.newDir(ToEndBenchmark.class))
+                .rollCycle(RollCycles.MINUTELY)
+                .timeProvider(timeProvider)
+                .build();
+        for (int i = 0; i < cycles; i++) {
+            timeProvider.currentTimeMillis(i * 60_000L);
+            BenchmarkQueues.fill(queue, MESSAGES_PER_CYCLE, 64);
+        }
+        tailer = queue.createTailer();
+        firstIndex = queue.firstIndex();
+        lastIndex = queue.acquireAppender().lastIndexAppended();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkQueues.delete(queue);
+    }
+
+    @Benchmark
+    public long toEnd() {
+        return tailer.toEnd().index();
+    }
+
+    @Benchmark
+    public long countExcerpts() {
+        return queue.countExcerpts(firstIndex, lastIndex);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.util.Histogram;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.benchmark.BenchmarkQueues;
+import net.openhft.chronicle.wire.DocumentContext;
+
+/**
+ * Measures the latency of the writes made just after each roll, with and without the next cycle
+ * being created ahead of time by the {@link Pretoucher}. It is in the queue's package, as the
+ * Pretoucher's early acquire is set with a package private constructor.
+ * <p>
+ * java -cp target/benchmarks.jar net.openhft.chronicle.queue.impl.single.RollBoundaryLatencyMain
+ */
+public class RollBoundaryLatencyMain {
+    static final int ROLLS = Integer.getInteger("rolls", 20);
+    // how long after the roll a write is counted as being at the roll boundary.
+    static final long BOUNDARY_MS = 10;
+
+    public static void main(String[] args) {
+        assert false : "test runs slower with assertions on";
+        for (boolean earlyAcquire : new boolean[]{false, true, false, true})
+            run(earlyAcquire);
+    }
+
+    static void run(boolean earlyAcquire) {
+        Histogram boundary = new Histogram();
+        Histogram other = new Histogram();
+        SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(BenchmarkQueues.newDir(RollBoundaryLatencyMain.class))
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .build();
+        try {
+            Pretoucher pretoucher = new Pretoucher(queue, null, c -> {
+            }, earlyAcquire, 500);
+            Thread pretoucherThread = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    pretoucher.execute();
+                    Jvm.pause(50);
+                }
+            }, "pretoucher");
+            pretoucherThread.setDaemon(true);
+            pretoucherThread.start();
+
+            ExcerptAppender appender = queue.acquireAppender();
+            long length = queue.rollCycle().length();
+            int cycle = queue.cycle();
+            int rolls = 0;
+            while (rolls < ROLLS) {
+                long start = System.nanoTime();
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("time").int64(start);
+                }
+                long time = System.nanoTime() - start;
+
+                long sinceRoll = (System.currentTimeMillis() - queue.epoch()) % length;
+                if (sinceRoll < BOUNDARY_MS)
+                    boundary.sample(time);
+                else
+                    other.sample(time);
+                if (queue.cycle() != cycle) {
+                    cycle = queue.cycle();
+                    rolls++;
+                }
+                Jvm.busyWaitMicros(10);
+            }
+            pretoucherThread.interrupt();
+        } finally {
+            BenchmarkQueues.delete(queue);
+        }
+        System.out.println("earlyAcquireNextCycle=" + earlyAcquire);
+        System.out.println("at the roll:    " + boundary.toMicrosFormat());
+        System.out.println("between rolls:  " + other.toMicrosFormat());
+    }
+}
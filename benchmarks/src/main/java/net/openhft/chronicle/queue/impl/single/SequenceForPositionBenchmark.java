@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.ref.BinaryLongArrayReference;
+import net.openhft.chronicle.core.values.LongArrayValues;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.benchmark.BenchmarkQueues;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StreamCorruptedException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the linear and binary search of an index array, and measures looking up the sequence
+ * number of a position in a large cycle. It is in the queue's package, as both are package
+ * private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SequenceForPositionBenchmark {
+
+    private static final int MESSAGES = 1 << 20;
+
+    @Param({"4096", "16384"})
+    public int used;
+
+    private Bytes<?> arrayBytes;
+    private BinaryLongArrayReference values;
+
+    private SingleChronicleQueue queue;
+    private SingleChronicleQueueExcerpts.StoreTailer tailer;
+    private long[] positions;
+
+    // the search sequenceForPosition used before.
+    private static int linearFloorIndex(LongArrayValues values, int used, long position) {
+        for (int index1 = used - 1; index1 >= 0; index1--) {
+            long pos = values.getVolatileValueAt(index1);
+            if (pos == 0 || pos > position)
+                continue;
+            return index1;
+        }
+        return -1;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        arrayBytes = Bytes.allocateElasticDirect();
+        BinaryLongArrayReference.write(arrayBytes, used);
+        values = new BinaryLongArrayReference();
+        values.bytesStore(arrayBytes, 0, arrayBytes.writePosition());
+        for (int i = 0; i < used; i++)
+            values.setValueAt(i, 1024L * (i + 1));
+        values.setMaxUsed(used);
+
+        queue = SingleChronicleQueueBuilder.binary(BenchmarkQueues.newDir(SequenceForPositionBenchmark.class))
+                .rollCycle(RollCycles.DAILY)
+                .build();
+        ExcerptAppender appender = queue.acquireAppender();
+        for (int i = 0; i < MESSAGES; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().bytes().writeLong(i);
+            }
+        }
+        tailer = (SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer();
+        positions = new long[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                positions[i] = dc.wire().bytes().readPosition() - 4;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        arrayBytes.release();
+        BenchmarkQueues.delete(queue);
+    }
+
+    @Benchmark
+    public int linearSearch() {
+        return linearFloorIndex(values, used, randomPosition());
+    }
+
+    @Benchmark
+    public int binarySearch() {
+        return SCQIndexing.floorIndex(values, used, randomPosition());
+    }
+
+    @Benchmark
+    public long sequenceForPosition() throws StreamCorruptedException {
+        long position = positions[ThreadLocalRandom.current().nextInt(MESSAGES)];
+        return tailer.store.sequenceForPosition(tailer, position, true);
+    }
+
+    private long randomPosition() {
+        return 1024L * ThreadLocalRandom.current().nextInt(used) + 1024L;
+    }
+}
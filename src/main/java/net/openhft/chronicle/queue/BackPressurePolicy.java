@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+/**
+ * What an appender does when it is as far ahead of the slowest named tailer as the queue allows,
+ * see {@link ChronicleQueueBuilder#maxTailerLagMessages(long)}.
+ */
+public enum BackPressurePolicy {
+    /**
+     * Wait, with the queue's {@link ChronicleQueueBuilder#backPressureWaitStrategy(WaitStrategy)},
+     * for the tailer to catch up, throwing an {@code UnrecoverableTimeoutException} if it hasn't
+     * after the queue's timeout.
+     */
+    BLOCK,
+    /**
+     * Throw an IllegalStateException from {@code writingDocument()}.
+     */
+    FAIL,
+    /**
+     * Return a document which is thrown away when it is closed, rather than written.
+     */
+    DROP
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Consumes the excerpts read by {@link ExcerptTailer#readBatch(BatchConsumer, int)}.
+ */
+@FunctionalInterface
+public interface BatchConsumer {
+    /**
+     * @param index of the excerpt
+     * @param bytes from the read position to the read limit is the excerpt. It is a view of the
+     *              queue, only valid until this method returns, and the same {@code Bytes} is
+     *              passed for every excerpt.
+     */
+    void accept(long index, @NotNull Bytes<?> bytes);
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A run of documents written with one header reservation, see {@link
+ * ExcerptAppender#writingDocuments(int)}.
+ * <p>
+ * Each call to {@link #nextDocument()} finishes the previous document and starts a new one
+ * directly after it. None of the documents are visible to tailers until the batch is closed, when
+ * they are all published together.
+ * <pre>
+ * try (BatchDocumentContext batch = appender.writingDocuments(100)) {
+ *     for (Tick tick : ticks)
+ *         batch.nextDocument().write("tick").marshallable(tick);
+ * }
+ * </pre>
+ */
+public interface BatchDocumentContext extends DocumentContext {
+
+    /**
+     * Finish the current document, if any, and start the next one.
+     *
+     * @return the wire to write the next document to.
+     * @throws IllegalStateException if the batch already has as many documents as were asked for
+     */
+    @NotNull
+    Wire nextDocument() throws IllegalStateException;
+
+    /**
+     * @return the number of documents started in this batch so far.
+     */
+    int documents();
+
+    /**
+     * @return the maximum number of documents this batch can hold.
+     */
+    int capacity();
+
+    /**
+     * Discard all the documents of this batch when it is closed, rather than publishing them.
+     */
+    void rollbackOnClose();
+}
@@ -15,6 +15,7 @@
  */
 package net.openhft.chronicle.queue;
 
+import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.core.io.Closeable;
 import net.openhft.chronicle.core.util.ObjectUtils;
 import net.openhft.chronicle.wire.BinaryMethodWriterInvocationHandler;
@@ -28,6 +29,8 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.reflect.Proxy;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * <em>Chronicle</em> (in a generic sense) is a Java project focused on building a persisted low
@@ -71,6 +74,39 @@ public interface ChronicleQueue extends Closeable {
     @NotNull
     ExcerptTailer createTailer();
 
+    /**
+     * A tailer which saves its index in the queue, so a tailer created with the same name after a
+     * restart carries on from where the last one got to, without scanning the queue. A new name
+     * starts at the start of the queue. Names are not case sensitive, and only one tailer of a
+     * name should be in use at a time.
+     * <p>
+     * A name stays registered after its tailers are closed, so an appender held back by the
+     * slowest named tailer, and the retention of cycles a named tailer has yet to read, wait for
+     * it for good. A name which won't be used again should be removed with {@link
+     * #removeNamedTailer(String)}.
+     *
+     * @param name of the tailer
+     * @return a new ExcerptTailer to read sequentially from where the last tailer of the name got
+     * to.
+     */
+    @NotNull
+    default ExcerptTailer createTailer(@NotNull String name) {
+        throw new UnsupportedOperationException("Named tailers are not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Stop a named tailer holding back appenders and the retention of cycles. The tailers of the
+     * name in this process stop saving their index, while one in another process saves it again
+     * when it next reads, so should be stopped first. A tailer created with the name afterwards
+     * starts at the start of the queue.
+     *
+     * @param name of the tailer
+     * @return true if the name had been used
+     */
+    default boolean removeNamedTailer(@NotNull String name) {
+        throw new UnsupportedOperationException("Named tailers are not supported by " + getClass().getSimpleName());
+    }
+
     /**
      * An Appender can be used to writeBytes new excerpts sequentially to the upper.
      *
@@ -133,6 +169,34 @@ public interface ChronicleQueue extends Closeable {
 
     int sourceId();
 
+    /**
+     * A stream of the excerpts from one index up to, but not including, another, which can be
+     * run in parallel, each part of the range being read with a tailer of its own. Only the
+     * excerpts written when the stream is created are included.
+     * <p>
+     * The stream should be closed, e.g. with try-with-resources, as a tailer which hasn't read
+     * all of its part, e.g. after {@code findFirst}, {@code limit} or {@code anyMatch}, or an
+     * exception from the reader, keeps its cycle file mapped until then.
+     *
+     * @param fromIndex the first index to include, or before the first excerpt of the queue
+     * @param toIndex   the index to stop before, or after the last excerpt of the queue
+     * @param reader    maps each excerpt to the element of the stream, its {@code Bytes} are a
+     *                  view of the queue which is only valid for the call
+     * @return the stream of elements, in the order of the queue.
+     */
+    @NotNull
+    default <T> Stream<T> stream(long fromIndex, long toIndex, @NotNull Function<Bytes<?>, T> reader) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return a stream of copies of the excerpts, see {@link #stream(long, long, Function)}.
+     */
+    @NotNull
+    default Stream<Bytes<byte[]>> stream(long fromIndex, long toIndex) {
+        return stream(fromIndex, toIndex, bytes -> Bytes.wrapForRead(bytes.toByteArray()));
+    }
+
 
     default <T> T methodWriter(@NotNull Class<T> tClass, Class... additional) {
         Class[] interfaces = ObjectUtils.addAll(tClass, additional);
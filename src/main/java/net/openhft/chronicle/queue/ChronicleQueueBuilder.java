@@ -144,7 +144,9 @@ public interface ChronicleQueueBuilder<B extends ChronicleQueueBuilder> extends
     long bufferCapacity();
 
     /**
-     * @param writeBufferMode to use for writes. Only None is available in OSS
+     * @param writeBufferMode to use for writes. Copy encodes each excerpt into a buffer before
+     *                        copying it into the queue, Asynchronous also hands the copy to a
+     *                        background thread via a ring buffer of bufferCapacity bytes.
      * @return this
      */
     B writeBufferMode(BufferMode writeBufferMode);
@@ -161,7 +163,8 @@ public interface ChronicleQueueBuilder<B extends ChronicleQueueBuilder> extends
     BufferMode readBufferMode();
 
     /**
-     * @param eventLoop to use when asynchronous buffering is used.
+     * @param eventLoop to use when asynchronous buffering is used, if not set the queue creates a
+     *                  thread of its own.
      * @return this
      */
     @NotNull
@@ -202,5 +205,154 @@ public interface ChronicleQueueBuilder<B extends ChronicleQueueBuilder> extends
      */
     B progressOnContention(boolean progressOnContention);
 
+    boolean exclusiveWriter();
+
+    /**
+     * Setting this true lets a queue with a single writing process skip the contended header
+     * protocol. The first appender takes a lease recorded in the queue's metadata and then
+     * takes headers at its own write position, publishing them and the write position with
+     * ordered writes. Other appenders, in this
+     * or any other process, fail while the lease is held, and appenders of queues built with
+     * this set wait up to the timeout for the lease.
+     *
+     * @param exclusiveWriter leave false (default) for existing behaviour
+     * @return this
+     */
+    B exclusiveWriter(boolean exclusiveWriter);
+
+    boolean backgroundIndexing();
+
+    /**
+     * Setting this true moves the work of indexing the queue off the append path. Appenders don't
+     * write index entries, instead an indexer on the queue's event loop, or a thread of its own,
+     * follows the end of the queue and indexes what has been written. Looking up an index which
+     * hasn't been reached yet scans forward from the last entry which has been indexed.
+     *
+     * @param backgroundIndexing leave false (default) for existing behaviour
+     * @return this
+     */
+    B backgroundIndexing(boolean backgroundIndexing);
+
+    boolean timeIndex();
+
+    /**
+     * Setting this true has appenders record the wall clock time of each excerpt they index, in
+     * a file kept next to each cycle's file, so a tailer can move to a time without reading the
+     * queue.
+     *
+     * @param timeIndex leave false (default) for existing behaviour
+     * @return this
+     */
+    B timeIndex(boolean timeIndex);
+
+    long maxCycleBytes();
+
+    /**
+     * Roll to a new file once the current cycle's file has this many bytes written, without
+     * waiting for the end of the roll cycle's period. The files of a period after the first
+     * have the part appended to their name, e.g. {@code 20170101_001.cq4}, and there can be up to
+     * 256 of them, the last takes everything else written in the period. All the appenders to a
+     * queue should use the same limits.
+     *
+     * @param maxCycleBytes leave at Long.MAX_VALUE (default) for existing behaviour
+     * @return this
+     */
+    B maxCycleBytes(long maxCycleBytes);
+
+    long maxCycleMessages();
+
+    /**
+     * Roll to a new file once the current cycle's file has this many excerpts, without waiting
+     * for the end of the roll cycle's period, see {@link #maxCycleBytes(long)}.
+     *
+     * @param maxCycleMessages leave at Long.MAX_VALUE (default) for existing behaviour
+     * @return this
+     */
+    B maxCycleMessages(long maxCycleMessages);
+
+    int recordSize();
+
+    /**
+     * Make every excerpt in the cycles created this length, so the position of an index in its
+     * cycle is a multiple of it rather than something to look up, and appenders claim where to
+     * write with one atomic add. Excerpts written shorter are padded with zeros. The record size is
+     * saved in the header of each cycle, so readers use it without being told. Meta data can't be
+     * written to a queue of fixed size records.
+     *
+     * @param recordSize leave at 0 (default) for excerpts of any length
+     * @return this
+     */
+    B recordSize(int recordSize);
+
+    int namedTailerUpdateInterval();
+
+    /**
+     * How often a named tailer, see {@link ChronicleQueue#createTailer(String)}, saves its index
+     * in the queue's meta data as it reads. Moving the tailer, or closing the queue, saves it
+     * whatever the interval.
+     *
+     * @param namedTailerUpdateInterval leave at 1 (default) to save it after every excerpt read,
+     *                                  or more to save it after that many
+     * @return this
+     */
+    B namedTailerUpdateInterval(int namedTailerUpdateInterval);
+
+    long maxTailerLagMessages();
+
+    /**
+     * Hold the appenders back once they are this many excerpts ahead of the slowest named tailer,
+     * see {@link ChronicleQueue#createTailer(String)}, applying the {@link
+     * #backPressurePolicy(BackPressurePolicy)}. Every named tailer the queue has had counts, so one
+     * no longer used holds the appenders back too.
+     *
+     * @param maxTailerLagMessages leave at Long.MAX_VALUE (default) for existing behaviour
+     * @return this
+     */
+    B maxTailerLagMessages(long maxTailerLagMessages);
+
+    long maxTailerLagBytes();
+
+    /**
+     * Hold the appenders back once they have written this many bytes the slowest named tailer
+     * hasn't read, see {@link #maxTailerLagMessages(long)}. The bytes are measured every {@link
+     * #backPressureCheckInterval(int)} excerpts, so can go over by that many excerpts.
+     *
+     * @param maxTailerLagBytes leave at Long.MAX_VALUE (default) for existing behaviour
+     * @return this
+     */
+    B maxTailerLagBytes(long maxTailerLagBytes);
+
+    @NotNull
+    BackPressurePolicy backPressurePolicy();
+
+    /**
+     * @param backPressurePolicy what an appender does when it is too far ahead of the slowest named
+     *                           tailer, BLOCK (default), FAIL or DROP
+     * @return this
+     */
+    B backPressurePolicy(@NotNull BackPressurePolicy backPressurePolicy);
+
+    @NotNull
+    WaitStrategy backPressureWaitStrategy();
+
+    /**
+     * @param backPressureWaitStrategy how a blocked appender waits for the tailers, SPIN_THEN_PARK
+     *                                 by default
+     * @return this
+     */
+    B backPressureWaitStrategy(@NotNull WaitStrategy backPressureWaitStrategy);
+
+    int backPressureCheckInterval();
+
+    /**
+     * How often an appender measures how far ahead of the named tailers it is. The excerpts
+     * appended in between are counted, and it measures again once the count reaches the limit.
+     *
+     * @param backPressureCheckInterval the number of excerpts appended between measurements, 1024
+     *                                  by default
+     * @return this
+     */
+    B backPressureCheckInterval(int backPressureCheckInterval);
+
     CycleCalculator cycleCalculator();
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+/**
+ * Told of each excerpt an appender of the queue, in this process, commits. See
+ * {@code SingleChronicleQueue.addCommitListener}.
+ */
+@FunctionalInterface
+public interface CommitListener {
+
+    /**
+     * Called once the excerpt can be read. A batch of excerpts written together is committed
+     * once, for the last of them.
+     *
+     * @param index    the index of the excerpt, or Long.MIN_VALUE if the appender has not worked
+     *                 it out, as with lazy indexing
+     * @param position the position of its header in the cycle file
+     */
+    void onCommit(long index, long position);
+}
@@ -67,6 +67,51 @@ public interface ExcerptAppender extends ExcerptCommon<ExcerptAppender>, Marshal
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Reserve the end of the queue for a burst of up to {@code count} documents. The documents
+     * are written one after another with a single header reservation and are published together,
+     * with one update of the write position and one pass over the index, when the batch is
+     * closed.
+     *
+     * @param count the maximum number of documents to write in this batch.
+     * @return BatchDocumentContext to write the documents to.
+     */
+    @NotNull
+    default BatchDocumentContext writingDocuments(int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Reserve space at the end of the queue to encode an excerpt in place, for codecs which
+     * write to memory directly. The space is only valid until {@link #commit(int)} or {@link
+     * #abort()} is called by the same thread.
+     *
+     * @param maxLength the most bytes the excerpt can take.
+     * @return the address of the first byte of the excerpt in the current cycle file.
+     * @throws IllegalArgumentException if maxLength is more than can be mapped in one piece.
+     */
+    default long claim(int maxLength) throws UnrecoverableTimeoutException {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Publish the excerpt encoded in the space from the last {@link #claim(int)}.
+     *
+     * @param actualLength the bytes actually used, at least one and no more than were claimed.
+     * @throws IllegalArgumentException if actualLength is 0, use {@link #abort()} to publish
+     *                                  nothing.
+     */
+    default void commit(int actualLength) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Give up the space from the last {@link #claim(int)} without publishing an excerpt.
+     */
+    default void abort() {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * @return the index last written, this index includes the cycle and the sequence number
      * @throws IllegalStateException if no index is available
@@ -22,6 +22,8 @@ import net.openhft.chronicle.wire.ReadMarshallable;
 import net.openhft.chronicle.wire.SourceContext;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * The component that facilitates sequentially reading data from a {@link ChronicleQueue}.
  *
@@ -46,6 +48,52 @@ public interface ExcerptTailer extends ExcerptCommon<ExcerptTailer>, Marshallabl
     @NotNull
     DocumentContext readingDocument(boolean includeMetaData);
 
+    /**
+     * Read up to {@code maxMessages} excerpts, not including meta data, passing each to the
+     * consumer in turn. Reading many excerpts in one call avoids the cost of opening and closing
+     * a {@link DocumentContext} for each, and the tailer's index is left after the last excerpt
+     * read.
+     *
+     * @param consumer    of each excerpt
+     * @param maxMessages the most excerpts to read
+     * @return the number of excerpts read, 0 if there are none to read yet.
+     */
+    default int readBatch(@NotNull BatchConsumer consumer, int maxMessages) {
+        if (maxMessages < 1)
+            throw new IllegalArgumentException("maxMessages: " + maxMessages);
+        int count = 0;
+        while (count < maxMessages) {
+            try (DocumentContext dc = readingDocument()) {
+                if (!dc.isPresent())
+                    break;
+                consumer.accept(dc.index(), dc.wire().bytes());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Wait for the next excerpt, rather than polling {@link #readingDocument()}.
+     *
+     * @param waitStrategy how to wait while there isn't an excerpt to read
+     * @param timeout      the longest to wait
+     * @param unit         of the timeout
+     * @return the document context, which is not present if the wait timed out or the thread was
+     * interrupted.
+     */
+    @NotNull
+    default DocumentContext awaitNext(@NotNull WaitStrategy waitStrategy, long timeout, @NotNull TimeUnit unit) {
+        final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+        for (int iteration = 0; ; iteration++) {
+            final DocumentContext dc = readingDocument();
+            if (dc.isPresent() || System.nanoTime() - deadlineNanos >= 0 || Thread.currentThread().isInterrupted())
+                return dc;
+            dc.close();
+            waitStrategy.idle(iteration, deadlineNanos);
+        }
+    }
+
     /**
      * @return the index just read, this include the cycle and the sequence number from with this
      * cycle
@@ -68,6 +116,20 @@ public interface ExcerptTailer extends ExcerptCommon<ExcerptTailer>, Marshallabl
      */
     boolean moveToIndex(long index);
 
+    /**
+     * Move to the first excerpt written at or after a wall clock time, for queues built with
+     * {@code timeIndex(true)}. As only the time of each indexed excerpt is kept, the tailer can be
+     * left up to the index spacing before it, but never after. Without a time index, it is left
+     * at the start of the cycle for the time.
+     *
+     * @param epochMillis the wall clock time, in milli-seconds since the epoch
+     * @return this Excerpt
+     */
+    @NotNull
+    default ExcerptTailer moveToTime(long epochMillis) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Replay from the first entry in the first cycle.
      *
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import org.jetbrains.annotations.NotNull;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Codecs which compress each excerpt as it is written and uncompress it as it is read. The
+ * name of the codec is saved in the header of each cycle, so tailers uncompress without being
+ * told. Each encoder and decoder keeps the buffers it works in, so it is only for one appender or
+ * tailer, i.e. one thread, and doesn't allocate once they are big enough.
+ */
+public enum MessageCompression {
+    /**
+     * Snappy, with the optional snappy-java dependency.
+     */
+    SNAPPY {
+        @NotNull
+        @Override
+        public BiConsumer<BytesStore, Bytes> encoder() {
+            return new SnappyEncoder();
+        }
+
+        @NotNull
+        @Override
+        public BiConsumer<BytesStore, Bytes> decoder() {
+            return new SnappyDecoder();
+        }
+    },
+    /**
+     * Deflate, from the JDK, which compresses more than Snappy, for more CPU.
+     */
+    DEFLATE {
+        @NotNull
+        @Override
+        public BiConsumer<BytesStore, Bytes> encoder() {
+            return new DeflateEncoder();
+        }
+
+        @NotNull
+        @Override
+        public BiConsumer<BytesStore, Bytes> decoder() {
+            return new DeflateDecoder();
+        }
+    };
+
+    /**
+     * @return a new encoder, which writes the readable bytes of the first argument compressed to
+     * the second.
+     */
+    @NotNull
+    public abstract BiConsumer<BytesStore, Bytes> encoder();
+
+    /**
+     * @return a new decoder, which writes the readable bytes of the first argument uncompressed
+     * to the second.
+     */
+    @NotNull
+    public abstract BiConsumer<BytesStore, Bytes> decoder();
+
+    /**
+     * @return the address of the readable bytes, copying them to the buffer if they aren't in
+     * native memory.
+     */
+    static long addressForRead(@NotNull BytesStore from, @NotNull Bytes<ByteBuffer> buffer) {
+        if (from.isDirectMemory())
+            return from.addressForRead(from.readPosition());
+        buffer.clear();
+        buffer.write(from, from.readPosition(), from.readRemaining());
+        return buffer.addressForRead(0);
+    }
+
+    static final class SnappyEncoder implements BiConsumer<BytesStore, Bytes> {
+        private final Bytes<ByteBuffer> in = Bytes.elasticByteBuffer();
+        private final Bytes<ByteBuffer> out = Bytes.elasticByteBuffer();
+
+        @Override
+        public void accept(@NotNull BytesStore from, @NotNull Bytes to) {
+            int length = Maths.toUInt31(from.readRemaining());
+            out.clear();
+            out.ensureCapacity(Snappy.maxCompressedLength(length));
+            try {
+                long compressed = Snappy.rawCompress(addressForRead(from, in), length, out.addressForWrite(0));
+                out.writePosition(compressed);
+                to.write(out);
+            } catch (IOException e) {
+                throw new IORuntimeException(e);
+            }
+        }
+    }
+
+    static final class SnappyDecoder implements BiConsumer<BytesStore, Bytes> {
+        private final Bytes<ByteBuffer> in = Bytes.elasticByteBuffer();
+        private final Bytes<ByteBuffer> out = Bytes.elasticByteBuffer();
+
+        @Override
+        public void accept(@NotNull BytesStore from, @NotNull Bytes to) {
+            long address = addressForRead(from, in);
+            long length = from.readRemaining();
+            try {
+                long uncompressed = Snappy.uncompressedLength(address, length);
+                out.clear();
+                out.ensureCapacity(uncompressed);
+                Snappy.rawUncompress(address, length, out.addressForWrite(0));
+                out.writePosition(uncompressed);
+                to.write(out);
+            } catch (IOException e) {
+                throw new IORuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the uncompressed length, then the deflated bytes.
+     */
+    static final class DeflateEncoder implements BiConsumer<BytesStore, Bytes> {
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        private byte[] in = new byte[256];
+        private byte[] out = new byte[256];
+
+        @Override
+        public void accept(@NotNull BytesStore from, @NotNull Bytes to) {
+            int length = Maths.toUInt31(from.readRemaining());
+            if (in.length < length)
+                in = new byte[Maths.nextPower2(length, 256)];
+            from.read(from.readPosition(), in, 0, length);
+
+            deflater.reset();
+            deflater.setInput(in, 0, length);
+            deflater.finish();
+            int compressed = 0;
+            while (!deflater.finished()) {
+                if (compressed == out.length)
+                    out = Arrays.copyOf(out, out.length * 2);
+                compressed += deflater.deflate(out, compressed, out.length - compressed);
+            }
+            to.writeInt(length);
+            to.write(out, 0, compressed);
+        }
+    }
+
+    static final class DeflateDecoder implements BiConsumer<BytesStore, Bytes> {
+        private final Inflater inflater = new Inflater(true);
+        private byte[] in = new byte[256];
+        private byte[] out = new byte[256];
+
+        @Override
+        public void accept(@NotNull BytesStore from, @NotNull Bytes to) {
+            long position = from.readPosition();
+            int uncompressed = from.readInt(position);
+            int length = Maths.toUInt31(from.readRemaining() - 4);
+            if (in.length < length)
+                in = new byte[Maths.nextPower2(length, 256)];
+            from.read(position + 4, in, 0, length);
+            if (out.length < uncompressed)
+                out = new byte[Maths.nextPower2(uncompressed, 256)];
+
+            inflater.reset();
+            inflater.setInput(in, 0, length);
+            try {
+                int read = 0;
+                while (read < uncompressed) {
+                    int n = inflater.inflate(out, read, uncompressed - read);
+                    if (n == 0 && (inflater.finished() || inflater.needsInput()))
+                        throw new IORuntimeException("Truncated excerpt, " + read + " of " + uncompressed + " bytes");
+                    read += n;
+                }
+            } catch (DataFormatException e) {
+                throw new IORuntimeException(e);
+            }
+            to.write(out, 0, uncompressed);
+        }
+    }
+}
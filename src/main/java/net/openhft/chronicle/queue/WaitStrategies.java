@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The wait strategies for {@link ExcerptTailer#awaitNext(WaitStrategy, long,
+ * java.util.concurrent.TimeUnit)}, from the lowest latency and most CPU to the least.
+ */
+public enum WaitStrategies implements WaitStrategy {
+    /**
+     * Looks again straight away, using a core while it waits.
+     */
+    BUSY_SPIN {
+        @Override
+        public void idle(int iteration, long deadlineNanos) {
+        }
+    },
+    /**
+     * Busy spins for a while, then yields between each look.
+     */
+    SPIN_THEN_YIELD {
+        @Override
+        public void idle(int iteration, long deadlineNanos) {
+            if (iteration >= SPINS)
+                Thread.yield();
+        }
+    },
+    /**
+     * Busy spins, yields, then parks for longer each time, up to {@link #MAX_PARK_NANOS}.
+     */
+    SPIN_THEN_PARK {
+        @Override
+        public void idle(int iteration, long deadlineNanos) {
+            if (iteration < SPINS)
+                return;
+            if (iteration < SPINS + YIELDS) {
+                Thread.yield();
+                return;
+            }
+            int shift = Math.min(iteration - SPINS - YIELDS, 20);
+            park(Math.min(MIN_PARK_NANOS << shift, MAX_PARK_NANOS), deadlineNanos);
+        }
+    },
+    /**
+     * Parks from the start. An appender of the same queue in this process unparks the tailer
+     * as soon as it has written an excerpt, so it wakes in microseconds. An appender in another
+     * process bumps a count of the excerpts published, kept in the queue's meta data, which the
+     * tailer checks each time its park of {@link #NOTIFIED_PARK_NANOS} times out, without reading
+     * the queue. A read only queue has no meta data, so the tailer reads the queue instead.
+     */
+    PARK_UNTIL_NOTIFIED {
+        @Override
+        public void idle(int iteration, long deadlineNanos) {
+            park(NOTIFIED_PARK_NANOS, deadlineNanos);
+        }
+
+        @Override
+        public boolean isNotified() {
+            return true;
+        }
+    };
+
+    static final int SPINS = 1_000;
+    static final int YIELDS = 100;
+    static final long MIN_PARK_NANOS = 1_000;
+    /**
+     * The longest a strategy parks for, which bounds how long it takes to see an excerpt written
+     * by another process.
+     */
+    public static final long MAX_PARK_NANOS = 1_000_000;
+    /**
+     * How long {@link #PARK_UNTIL_NOTIFIED} parks between checks of the count of excerpts
+     * published by other processes.
+     */
+    public static final long NOTIFIED_PARK_NANOS = 20_000;
+
+    static void park(long nanos, long deadlineNanos) {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0)
+            LockSupport.parkNanos(Math.min(nanos, remaining));
+    }
+}
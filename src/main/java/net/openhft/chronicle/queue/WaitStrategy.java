@@ -0,0 +1,41 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue;
+
+/**
+ * How {@link ExcerptTailer#awaitNext(WaitStrategy, long, java.util.concurrent.TimeUnit)} waits
+ * between looking for the next excerpt. See {@link WaitStrategies} for those provided.
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+    /**
+     * Wait before looking again.
+     *
+     * @param iteration     the number of times this wait has idled before, from 0
+     * @param deadlineNanos the {@link System#nanoTime()} to return by
+     */
+    void idle(int iteration, long deadlineNanos);
+
+    /**
+     * @return true if the wait parks until an appender of the same queue, in this process,
+     * unparks it, and the tailer only looks again between parks once an appender in any process
+     * has published an excerpt, or after {@link WaitStrategies#MAX_PARK_NANOS}.
+     */
+    default boolean isNotified() {
+        return false;
+    }
+}
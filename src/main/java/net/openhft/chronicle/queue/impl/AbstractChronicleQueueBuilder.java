@@ -86,6 +86,20 @@ public abstract class AbstractChronicleQueueBuilder<B extends ChronicleQueueBuil
     private boolean readOnly = false;
     private boolean rollCycleSet = false;
     private boolean progressOnContention = false;
+    private boolean exclusiveWriter = false;
+    private boolean backgroundIndexing = false;
+    private boolean timeIndex = false;
+    private long maxCycleBytes = Long.MAX_VALUE;
+    private long maxCycleMessages = Long.MAX_VALUE;
+    private int recordSize = 0;
+    private int namedTailerUpdateInterval = 1;
+    private long maxTailerLagMessages = Long.MAX_VALUE;
+    private long maxTailerLagBytes = Long.MAX_VALUE;
+    @NotNull
+    private BackPressurePolicy backPressurePolicy = BackPressurePolicy.BLOCK;
+    @NotNull
+    private WaitStrategy backPressureWaitStrategy = WaitStrategies.SPIN_THEN_PARK;
+    private int backPressureCheckInterval = 1024;
 
     public AbstractChronicleQueueBuilder(File path) {
         this.rollCycle = RollCycles.DAILY;
@@ -115,7 +129,9 @@ public abstract class AbstractChronicleQueueBuilder<B extends ChronicleQueueBuil
     }
 
     /**
-     * consumer will be called every second, also as there is data to report
+     * consumer will be called every second, also as there is data to report. With
+     * BufferMode.Asynchronous the stats are a MultiWriterBytesRingBuffer which also reports how
+     * often writers found it full.
      *
      * @param onRingBufferStats a consumer of the BytesRingBufferStats
      * @return this
@@ -248,7 +264,7 @@ public abstract class AbstractChronicleQueueBuilder<B extends ChronicleQueueBuil
     }
 
     /**
-     * @return BufferMode to use for writes. Only None is available is the OSS
+     * @return BufferMode to use for writes.
      */
     @NotNull
     public BufferMode writeBufferMode() {
@@ -396,6 +412,154 @@ public abstract class AbstractChronicleQueueBuilder<B extends ChronicleQueueBuil
         return (B) this;
     }
 
+    @Override
+    public boolean exclusiveWriter() {
+        return exclusiveWriter;
+    }
+
+    @Override
+    public B exclusiveWriter(boolean exclusiveWriter) {
+        this.exclusiveWriter = exclusiveWriter;
+        return (B) this;
+    }
+
+    @Override
+    public boolean backgroundIndexing() {
+        return backgroundIndexing;
+    }
+
+    @Override
+    public B backgroundIndexing(boolean backgroundIndexing) {
+        this.backgroundIndexing = backgroundIndexing;
+        return (B) this;
+    }
+
+    @Override
+    public boolean timeIndex() {
+        return timeIndex;
+    }
+
+    @Override
+    public B timeIndex(boolean timeIndex) {
+        this.timeIndex = timeIndex;
+        return (B) this;
+    }
+
+    @Override
+    public long maxCycleBytes() {
+        return maxCycleBytes;
+    }
+
+    @Override
+    public B maxCycleBytes(long maxCycleBytes) {
+        if (maxCycleBytes <= 0)
+            throw new IllegalArgumentException("maxCycleBytes must be positive, was " + maxCycleBytes);
+        this.maxCycleBytes = maxCycleBytes;
+        return (B) this;
+    }
+
+    @Override
+    public long maxCycleMessages() {
+        return maxCycleMessages;
+    }
+
+    @Override
+    public B maxCycleMessages(long maxCycleMessages) {
+        if (maxCycleMessages <= 0)
+            throw new IllegalArgumentException("maxCycleMessages must be positive, was " + maxCycleMessages);
+        this.maxCycleMessages = maxCycleMessages;
+        return (B) this;
+    }
+
+    @Override
+    public int recordSize() {
+        return recordSize;
+    }
+
+    @Override
+    public B recordSize(int recordSize) {
+        if (recordSize < 0)
+            throw new IllegalArgumentException("recordSize must not be negative, was " + recordSize);
+        this.recordSize = recordSize;
+        return (B) this;
+    }
+
+    @Override
+    public int namedTailerUpdateInterval() {
+        return namedTailerUpdateInterval;
+    }
+
+    @Override
+    public B namedTailerUpdateInterval(int namedTailerUpdateInterval) {
+        if (namedTailerUpdateInterval <= 0)
+            throw new IllegalArgumentException("namedTailerUpdateInterval must be positive, was " + namedTailerUpdateInterval);
+        this.namedTailerUpdateInterval = namedTailerUpdateInterval;
+        return (B) this;
+    }
+
+    @Override
+    public long maxTailerLagMessages() {
+        return maxTailerLagMessages;
+    }
+
+    @Override
+    public B maxTailerLagMessages(long maxTailerLagMessages) {
+        if (maxTailerLagMessages <= 0)
+            throw new IllegalArgumentException("maxTailerLagMessages must be positive, was " + maxTailerLagMessages);
+        this.maxTailerLagMessages = maxTailerLagMessages;
+        return (B) this;
+    }
+
+    @Override
+    public long maxTailerLagBytes() {
+        return maxTailerLagBytes;
+    }
+
+    @Override
+    public B maxTailerLagBytes(long maxTailerLagBytes) {
+        if (maxTailerLagBytes <= 0)
+            throw new IllegalArgumentException("maxTailerLagBytes must be positive, was " + maxTailerLagBytes);
+        this.maxTailerLagBytes = maxTailerLagBytes;
+        return (B) this;
+    }
+
+    @NotNull
+    @Override
+    public BackPressurePolicy backPressurePolicy() {
+        return backPressurePolicy;
+    }
+
+    @Override
+    public B backPressurePolicy(@NotNull BackPressurePolicy backPressurePolicy) {
+        this.backPressurePolicy = backPressurePolicy;
+        return (B) this;
+    }
+
+    @NotNull
+    @Override
+    public WaitStrategy backPressureWaitStrategy() {
+        return backPressureWaitStrategy;
+    }
+
+    @Override
+    public B backPressureWaitStrategy(@NotNull WaitStrategy backPressureWaitStrategy) {
+        this.backPressureWaitStrategy = backPressureWaitStrategy;
+        return (B) this;
+    }
+
+    @Override
+    public int backPressureCheckInterval() {
+        return backPressureCheckInterval;
+    }
+
+    @Override
+    public B backPressureCheckInterval(int backPressureCheckInterval) {
+        if (backPressureCheckInterval <= 0)
+            throw new IllegalArgumentException("backPressureCheckInterval must be positive, was " + backPressureCheckInterval);
+        this.backPressureCheckInterval = backPressureCheckInterval;
+        return (B) this;
+    }
+
 
     @NotNull
     public AbstractChronicleQueueBuilder encryptSupplier(Supplier<Cipher> encryptSupplier) {
@@ -17,6 +17,7 @@ package net.openhft.chronicle.queue.impl;
 
 import net.openhft.chronicle.core.annotation.Nullable;
 import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.MessageCompression;
 import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.queue.TailerDirection;
 import net.openhft.chronicle.queue.impl.single.QueueLock;
@@ -113,5 +114,16 @@ public interface RollingChronicleQueue extends ChronicleQueue {
      */
     int deltaCheckpointInterval();
 
+    /**
+     * @return the length of every excerpt in the cycles created, or 0 if they can be of any length.
+     */
+    int recordSize();
+
+    /**
+     * @return what the excerpts in the cycles created are compressed with, or null if they aren't.
+     */
+    @Nullable
+    MessageCompression compression();
+
     QueueLock queueLock();
 }
@@ -39,6 +39,7 @@ public class RollingResourcesCache {
 
     public static final ParseCount NO_PARSE_COUNT = new ParseCount("", Integer.MIN_VALUE);
     private static final int MAX_TIMESTAMP_CACHE_SIZE = 32;
+    private static final char PART_SEPARATOR = '_';
 
     @NotNull
     private final Function<String, File> fileFactory;
@@ -47,6 +48,7 @@ public class RollingResourcesCache {
     @NotNull
     private final Resource[] values;
     private final int length;
+    private final int partBits;
     @NotNull
     private final Function<File, String> fileToName;
     private final int offsetTotalSeconds;
@@ -59,14 +61,25 @@ public class RollingResourcesCache {
     public RollingResourcesCache(@NotNull final RollCycle cycle, long epoch,
                                  @NotNull Function<String, File> nameToFile,
                                  @NotNull Function<File, String> fileToName) {
-        this(cycle.length(), cycle.format(), epoch, nameToFile, fileToName);
+        this(cycle, 0, epoch, nameToFile, fileToName);
     }
 
-    private RollingResourcesCache(final int length,
+    /**
+     * @param partBits the low bits of a cycle number which are the part of the roll cycle's
+     *                 period, see {@link #resourceFor(long)}, zero if a period has only one file.
+     */
+    public RollingResourcesCache(@NotNull final RollCycle cycle, int partBits, long epoch,
+                                 @NotNull Function<String, File> nameToFile,
+                                 @NotNull Function<File, String> fileToName) {
+        this(cycle.length(), partBits, cycle.format(), epoch, nameToFile, fileToName);
+    }
+
+    private RollingResourcesCache(final int length, int partBits,
                                   @NotNull String format, long epoch,
                                   @NotNull Function<String, File> nameToFile,
                                   @NotNull Function<File, String> fileToName) {
         this.length = length;
+        this.partBits = partBits;
         this.fileToName = fileToName;
         this.values = new Resource[CACHE_SIZE];
         final long millisInDay = epoch % ONE_DAY_IN_MILLIS;
@@ -92,24 +105,48 @@ public class RollingResourcesCache {
     }
 
     /**
-     * Cache some resources for a rollCycle number.
+     * Cache some resources for a rollCycle number. When the queue rolls on size as well as time,
+     * the high bits of the cycle are the period of the roll cycle and the low {@code partBits}
+     * are the part of that period. The first part is named for its period as usual, the later
+     * ones have the part appended, e.g. {@code 20170101_001}.
      *
      * @param cycle the rollCycle number to format
      * @return the Resource
      */
     @NotNull
     public Resource resourceFor(long cycle) {
-        long millisSinceBeginningOfEpoch = ((cycle + dayAdjustmentDueToNegativeOffset) * length);
-        int hash = Maths.hash32(millisSinceBeginningOfEpoch) & (CACHE_SIZE - 1);
+        long millisSinceBeginningOfEpoch = (((cycle >> partBits) + dayAdjustmentDueToNegativeOffset) * length);
+        int part = (int) (cycle & ((1 << partBits) - 1));
+        int hash = Maths.hash32(cycle) & (CACHE_SIZE - 1);
         Resource dv = values[hash];
-        if (dv == null || dv.millis != millisSinceBeginningOfEpoch) {
+        if (dv == null || dv.cycle != cycle) {
             final Instant instant = Instant.ofEpochMilli(millisSinceBeginningOfEpoch);
             @NotNull String text = formatter.format(instant);
-            values[hash] = dv = new Resource(millisSinceBeginningOfEpoch, text, fileFactory.apply(text));
+            if (part > 0)
+                text += String.format("%c%03d", PART_SEPARATOR, part);
+            values[hash] = dv = new Resource(cycle, millisSinceBeginningOfEpoch, text, fileFactory.apply(text));
         }
         return dv;
     }
 
+    /**
+     * @return the part of the period in a file name, or 0 for the first part.
+     */
+    private int partOf(@NotNull String name) {
+        if (partBits == 0)
+            return 0;
+        int separator = name.lastIndexOf(PART_SEPARATOR);
+        return separator < 0 ? 0 : Integer.parseInt(name.substring(separator + 1));
+    }
+
+    @NotNull
+    private String periodOf(@NotNull String name) {
+        if (partBits == 0)
+            return name;
+        int separator = name.lastIndexOf(PART_SEPARATOR);
+        return separator < 0 ? name : name.substring(0, separator);
+    }
+
     public int parseCount(@NotNull String name) {
         ParseCount last = this.lastParseCount;
         if (name.equals(last.name))
@@ -121,16 +158,17 @@ public class RollingResourcesCache {
 
     private int parseCount0(@NotNull String name) {
         try {
-            TemporalAccessor parse = formatter.parse(name);
+            TemporalAccessor parse = formatter.parse(periodOf(name));
 
             long epochDay = parse.getLong(ChronoField.EPOCH_DAY) * 86400;
             if (parse.isSupported(ChronoField.SECOND_OF_DAY))
                 epochDay += parse.getLong(ChronoField.SECOND_OF_DAY);
 
-            return Maths.toInt32(epochDay / (length / 1000)) +
+            int period = Maths.toInt32(epochDay / (length / 1000)) +
                     (offsetTotalSeconds < 0 ? 1 : 0) -
                     dayAdjustmentDueToNegativeOffset;
-        } catch (DateTimeParseException e) {
+            return (period << partBits) | partOf(name);
+        } catch (DateTimeParseException | NumberFormatException e) {
             throw new RuntimeException(String.format(
                     "Unable to parse %s using format %s", name, format), e);
         }
@@ -142,13 +180,15 @@ public class RollingResourcesCache {
             return cachedValue;
         }
 
-        final TemporalAccessor parse = formatter.parse(fileToName.apply(file));
-        final long value;
+        final String name = fileToName.apply(file);
+        final TemporalAccessor parse = formatter.parse(periodOf(name));
+        final long period;
         if (length == ONE_DAY_IN_MILLIS) {
-            value = parse.getLong(ChronoField.EPOCH_DAY);
+            period = parse.getLong(ChronoField.EPOCH_DAY);
         } else {
-            value = Instant.from(parse).toEpochMilli() / length;
+            period = Instant.from(parse).toEpochMilli() / length;
         }
+        final long value = (period << partBits) | partOf(name);
         if (filenameToTimestampCache.size() >= MAX_TIMESTAMP_CACHE_SIZE) {
             filenameToTimestampCache.clear();
         }
@@ -168,12 +208,14 @@ public class RollingResourcesCache {
     }
 
     public static class Resource {
+        final long cycle;
         public final long millis;
         public final String text;
         public final File path;
         public final File parentPath;
 
-        Resource(long millis, String text, File path) {
+        Resource(long cycle, long millis, String text, File path) {
+            this.cycle = cycle;
             this.millis = millis;
             this.text = text;
             this.path = path;
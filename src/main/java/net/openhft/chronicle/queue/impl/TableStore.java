@@ -2,6 +2,7 @@ package net.openhft.chronicle.queue.impl;
 
 import net.openhft.chronicle.core.values.LongValue;
 
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public interface TableStore extends CommonStore {
@@ -32,4 +33,12 @@ public interface TableStore extends CommonStore {
      * @return result of code block execution
      */
     <R> R doWithExclusiveLock(Function<TableStore, ? extends R> code);
+
+    /**
+     * Calls the consumer with the key of each value in the store, in the order they were added.
+     * The key passed is reused, so should be copied to be kept.
+     *
+     * @param consumer of the keys
+     */
+    void forEachKey(Consumer<CharSequence> consumer);
 }
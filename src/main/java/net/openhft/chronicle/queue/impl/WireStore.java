@@ -34,6 +34,18 @@ public interface WireStore extends CommonStore {
     @NotNull
     WireStore writePosition(long position);
 
+    /**
+     * Move the write position forward without contending for it, which is only safe when a single
+     * appender writes to this cycle/store.
+     *
+     * @param position the start of the last written excerpt to this cycle/store
+     * @return this store
+     */
+    @NotNull
+    default WireStore writePositionOrdered(long position) {
+        return writePosition(position);
+    }
+
     /**
      * @return an epoch offset as the number of number of milliseconds since January 1, 1970,
      * 00:00:00 GMT, if you set the epoch to the current time, then the cycle will be ZERO
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
 
 public class WireStorePool {
     private static final Logger LOGGER = LoggerFactory.getLogger(WireStorePool.class);
@@ -122,6 +123,23 @@ public class WireStorePool {
         }
     }
 
+    /**
+     * Run the action unless the store of the cycle is acquired, without it being acquired while
+     * the action runs.
+     *
+     * @return the result of the action, or false if the store is acquired
+     */
+    public synchronized boolean ifNotAcquired(final int cycle, @NotNull BooleanSupplier action) {
+        for (Map.Entry<RollDetails, WeakReference<WireStore>> entry : stores.entrySet()) {
+            if (entry.getKey().cycle() != cycle)
+                continue;
+            WireStore store = entry.getValue().get();
+            if (store != null && store.refCount() > 0)
+                return false;
+        }
+        return action.getAsBoolean();
+    }
+
     /**
      * list cycles between ( inclusive )
      *
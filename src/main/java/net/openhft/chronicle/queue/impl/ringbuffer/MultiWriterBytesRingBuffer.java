@@ -0,0 +1,246 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.queue.impl.ringbuffer;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesOut;
+import net.openhft.chronicle.bytes.BytesRingBuffer;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.NativeBytesStore;
+import net.openhft.chronicle.core.Maths;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Multi writer, single reader, off heap ring buffer of length prefixed messages.
+ * <p>
+ * Writers reserve space with a single CAS on the tail, copy their message in and then publish it
+ * with an ordered write of its length. The reader consumes messages in reservation order, zeroes
+ * the space it has read and then releases it with an ordered write of the head. A message never
+ * wraps; if it doesn't fit before the end of the buffer the remaining space is skipped with a
+ * padding record.
+ * <p>
+ * Layout: {@code capacity} bytes of records, followed by the tail and the head, each on their own
+ * cache line.
+ */
+public class MultiWriterBytesRingBuffer implements BytesRingBuffer {
+    static final int HEADER_LENGTH = 4;
+    static final int PADDING = -1;
+    // distinguishes a published empty message from space which hasn't been written yet.
+    static final int READY = 1 << 30;
+    private static final int ALIGNMENT = 8;
+    private static final int CACHE_LINE = 64;
+
+    @NotNull
+    private final NativeBytesStore<Void> store;
+    @NotNull
+    private final Bytes<Void> readView;
+    private final long capacity;
+    private final long mask;
+    private final long tailOffset;
+    private final long headOffset;
+
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder stallCount = new LongAdder();
+    private volatile long readCount;
+    private volatile long minWriteRemaining;
+    private volatile long maxCopyTimeNs;
+
+    /**
+     * @param capacity of the buffer in bytes, this is rounded up to a power of two.
+     */
+    public MultiWriterBytesRingBuffer(long capacity) {
+        if (capacity > READY)
+            throw new IllegalArgumentException("capacity " + capacity + " must not be more than " + READY);
+        this.capacity = Maths.nextPower2(capacity, CACHE_LINE);
+        this.mask = this.capacity - 1;
+        this.tailOffset = this.capacity;
+        this.headOffset = this.capacity + CACHE_LINE;
+        this.store = NativeBytesStore.nativeStoreWithFixedCapacity(this.capacity + 2 * CACHE_LINE);
+        this.store.zeroOut(0, this.store.capacity());
+        this.readView = store.bytesForRead();
+        this.minWriteRemaining = this.capacity;
+    }
+
+    static long recordLength(long length) {
+        return (length + HEADER_LENGTH + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    /**
+     * @return the largest message which can be offered to this buffer, a larger message might
+     * never fit between the padding at the end of the buffer and the head.
+     */
+    public long maxMessageLength() {
+        return capacity / 2 - HEADER_LENGTH;
+    }
+
+    @Override
+    public boolean offer(@NotNull BytesStore bytes) {
+        long length = bytes.readRemaining();
+        if (length > maxMessageLength())
+            throw new IllegalArgumentException("Message of " + length + " bytes is larger than the ring buffer capacity of " + capacity);
+        long recordLength = recordLength(length);
+
+        long tail, padding, available;
+        do {
+            long head = store.readVolatileLong(headOffset);
+            tail = store.readVolatileLong(tailOffset);
+            available = capacity - (tail - head);
+            long toEnd = capacity - (tail & mask);
+            padding = recordLength > toEnd ? toEnd : 0;
+            if (recordLength + padding > available) {
+                stallCount.increment();
+                return false;
+            }
+        } while (!store.compareAndSwapLong(tailOffset, tail, tail + padding + recordLength));
+
+        long offset = tail & mask;
+        if (padding > 0) {
+            store.writeOrderedInt(offset, PADDING);
+            offset = 0;
+        }
+        store.write(offset + HEADER_LENGTH, bytes, bytes.readPosition(), length);
+        store.writeOrderedInt(offset, READY | (int) length);
+
+        writeCount.increment();
+        long remaining = available - padding - recordLength;
+        if (remaining < minWriteRemaining)
+            minWriteRemaining = remaining;
+        return true;
+    }
+
+    /**
+     * Pass the next message to the handler without copying it, the space is only released once
+     * the handler returns.
+     *
+     * @param handler to be given the message as a Bytes which is only valid during the call.
+     * @return true if a message was read, false if no message was ready.
+     */
+    public boolean poll(@NotNull Consumer<Bytes<?>> handler) {
+        long head = store.readLong(headOffset);
+        long offset = head & mask;
+        int header = store.readVolatileInt(offset);
+        if (header == PADDING) {
+            long toEnd = capacity - offset;
+            store.zeroOut(offset, capacity);
+            head += toEnd;
+            store.writeOrderedLong(headOffset, head);
+            offset = 0;
+            header = store.readVolatileInt(offset);
+        }
+        if (header == 0)
+            return false;
+
+        int length = header & ~READY;
+        long start = System.nanoTime();
+        try {
+            readView.readPositionRemaining(offset + HEADER_LENGTH, length);
+            handler.accept(readView);
+        } finally {
+            long recordLength = recordLength(length);
+            store.zeroOut(offset, offset + recordLength);
+            store.writeOrderedLong(headOffset, head + recordLength);
+            readCount++;
+            long time = System.nanoTime() - start;
+            if (time > maxCopyTimeNs)
+                maxCopyTimeNs = time;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean read(@NotNull BytesOut using) throws BufferOverflowException {
+        return poll(using::write);
+    }
+
+    @Override
+    public long readRemaining() {
+        return store.readVolatileLong(tailOffset) - store.readVolatileLong(headOffset);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return readRemaining() == 0;
+    }
+
+    /**
+     * Only safe to call when there are no writers or readers.
+     */
+    @Override
+    public void clear() {
+        store.zeroOut(0, store.capacity());
+        minWriteRemaining = capacity;
+    }
+
+    @Override
+    public long minNumberOfWriteBytesRemaining() {
+        long min = minWriteRemaining;
+        minWriteRemaining = capacity - readRemaining();
+        return min;
+    }
+
+    @Override
+    public long capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getAndClearReadCount() {
+        long count = readCount;
+        readCount = 0;
+        return count;
+    }
+
+    @Override
+    public long getAndClearWriteCount() {
+        return writeCount.sumThenReset();
+    }
+
+    /**
+     * @return the number of times a writer found the buffer full since the last call.
+     */
+    public long getAndClearStallCount() {
+        return stallCount.sumThenReset();
+    }
+
+    /**
+     * @return the longest time a message took to be handled by the reader since the last call.
+     */
+    @Override
+    public long maxCopyTimeNs() {
+        long max = maxCopyTimeNs;
+        maxCopyTimeNs = 0;
+        return max;
+    }
+
+    public void release() {
+        readView.release();
+        store.release();
+    }
+
+    @NotNull
+    @Override
+    public String toString() {
+        return "MultiWriterBytesRingBuffer{" +
+                "capacity=" + capacity +
+                ", readRemaining=" + readRemaining() +
+                '}';
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.BackPressurePolicy;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.WaitStrategy;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.StreamCorruptedException;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.NavigableSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Holds an appender back once it is {@code maxTailerLagMessages} excerpts, or {@code
+ * maxTailerLagBytes} bytes, ahead of the slowest of the queue's named tailers, which register
+ * themselves by saving their index in the queue's meta data {@link TableStore}.
+ * <p>
+ * Measuring how far behind the tailers are looks through the meta data and the cycles between
+ * them and the end of the queue, so it is done every {@code backPressureCheckInterval} appends,
+ * and the appends in between are counted onto the excerpts last measured. Once the count reaches
+ * the limit it is measured again before the policy is applied, and again on each append until
+ * the tailers have caught up. The bytes are measured from the tailer's excerpt to the start of
+ * the last one written, and aren't counted between measurements, so the appender can go over
+ * {@code maxTailerLagBytes} by up to the interval's worth of excerpts.
+ * <p>
+ * Used by the one thread appending, like the appender.
+ */
+class BackPressure {
+    @NotNull
+    private final SingleChronicleQueue queue;
+    private final long maxLagMessages;
+    private final long maxLagBytes;
+    @NotNull
+    private final BackPressurePolicy policy;
+    @NotNull
+    private final WaitStrategy waitStrategy;
+    private final int checkInterval;
+    @NotNull
+    private final NamedTailerIndices tailerIndices;
+    @Nullable
+    private StoreTailer tailer;
+    private long lagMessages;
+    private long lagBytes;
+    private int appendsSinceCheck;
+
+    BackPressure(@NotNull SingleChronicleQueue queue) {
+        final TableStore metaStore = queue.metaStore();
+        if (metaStore == null)
+            throw new IllegalStateException("Back pressure needs the tailers registered in the queue's meta data, which a read only queue doesn't have");
+        this.queue = queue;
+        this.tailerIndices = new NamedTailerIndices(metaStore);
+        this.maxLagMessages = queue.maxTailerLagMessages();
+        this.maxLagBytes = queue.maxTailerLagBytes();
+        this.policy = queue.backPressurePolicy();
+        this.waitStrategy = queue.backPressureWaitStrategy();
+        this.checkInterval = queue.backPressureCheckInterval();
+        // measured before the first append.
+        this.appendsSinceCheck = checkInterval;
+    }
+
+    /**
+     * Apply the policy if the appender has got as far ahead of the tailers as it is allowed.
+     *
+     * @return true to write the excerpt, or false to drop it.
+     * @throws IllegalStateException         if the policy is to fail
+     * @throws UnrecoverableTimeoutException if the policy is to block and the tailers haven't
+     *                                       caught up in the queue's timeout
+     */
+    boolean beforeAppend() throws IllegalStateException, UnrecoverableTimeoutException {
+        if (++appendsSinceCheck >= checkInterval || isOverLimit())
+            check();
+        if (isOverLimit()) {
+            switch (policy) {
+                case DROP:
+                    return false;
+                case FAIL:
+                    throw new IllegalStateException(lagMessage());
+                default:
+                    awaitTailers();
+            }
+        }
+        lagMessages++;
+        return true;
+    }
+
+    private boolean isOverLimit() {
+        return lagMessages >= maxLagMessages || lagBytes >= maxLagBytes;
+    }
+
+    @NotNull
+    private String lagMessage() {
+        return "Unable to append to " + queue.file() + " as it is " + lagMessages + " excerpts and " +
+                lagBytes + " bytes ahead of the slowest tailer, " + tailerIndices.slowestKey();
+    }
+
+    private void awaitTailers() throws UnrecoverableTimeoutException {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queue.timeoutMS);
+        for (int i = 0; isOverLimit(); i++) {
+            if (queue.isClosed())
+                throw new IllegalStateException("Queue is closed");
+            if (System.nanoTime() - deadlineNanos >= 0)
+                throw new UnrecoverableTimeoutException(new TimeoutException(lagMessage()));
+            waitStrategy.idle(i, deadlineNanos);
+            check();
+        }
+    }
+
+    /**
+     * Measure how far the end of the queue is ahead of the slowest named tailer.
+     */
+    private void check() {
+        appendsSinceCheck = 0;
+        final long slowest = slowestIndex();
+        if (slowest == Long.MAX_VALUE) {
+            lagMessages = lagBytes = 0;
+        } else {
+            measureLag(slowest);
+        }
+    }
+
+    /**
+     * @return the lowest index a named tailer will read next, or Long.MAX_VALUE if there are no
+     * named tailers.
+     */
+    private long slowestIndex() {
+        final long slowest = tailerIndices.slowest();
+        // a tailer which hasn't saved an index, or is in a cycle deleted since, is at the start.
+        return slowest == Long.MAX_VALUE ? slowest : Math.max(slowest, queue.firstIndex());
+    }
+
+    private void measureLag(long slowest) {
+        if (tailer == null)
+            tailer = (StoreTailer) queue.createTailer();
+        final RollCycle rollCycle = queue.rollCycle();
+        final int slowestCycle = rollCycle.toCycle(slowest);
+        long messages = 0;
+        long bytes = 0;
+        try {
+            // not from the slowest cycle, as a tailer which has read to the end of one may be on
+            // the next before it exists.
+            final int firstCycle = queue.firstCycle();
+            final int lastCycle = queue.lastCycleNotAhead();
+            final NavigableSet<Long> cycles = firstCycle > lastCycle
+                    ? Collections.<Long>emptyNavigableSet()
+                    : queue.listCyclesBetween(firstCycle, lastCycle);
+            for (long cycle : cycles.tailSet((long) slowestCycle)) {
+                if (!tailer.moveToIndex(rollCycle.toIndex((int) cycle, 0)))
+                    continue;
+                long cycleMessages = tailer.store.lastSequenceNumber(tailer) + 1;
+                long cycleBytes = tailer.store.writePosition();
+                if (cycle == slowestCycle) {
+                    final long sequenceNumber = rollCycle.toSequenceNumber(slowest);
+                    // the tailer has read to the end of its cycle.
+                    if (sequenceNumber >= cycleMessages)
+                        continue;
+                    if (tailer.moveToIndex(slowest)) {
+                        cycleMessages -= sequenceNumber;
+                        cycleBytes -= tailer.wire().bytes().readPosition();
+                    }
+                }
+                messages += cycleMessages;
+                bytes += Math.max(0, cycleBytes);
+            }
+        } catch (ParseException | StreamCorruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        lagMessages = messages;
+        lagBytes = bytes;
+    }
+
+    void close() {
+        if (tailer != null) {
+            tailer.releaseResources();
+            tailer = null;
+        }
+    }
+}
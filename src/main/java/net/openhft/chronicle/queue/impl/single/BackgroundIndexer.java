@@ -0,0 +1,137 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+import net.openhft.chronicle.threads.Pauser;
+import net.openhft.chronicle.threads.VanillaEventLoop;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Indexes a queue built with {@code backgroundIndexing(true)}, so its appenders don't have to.
+ * <p>
+ * A tailer follows the end of the queue and every {@code indexSpacing}-th excerpt it passes is
+ * added to the index of its cycle. The indexer runs on the queue's {@link EventLoop} if one was
+ * configured, otherwise on an event loop of its own.
+ */
+class BackgroundIndexer implements EventHandler {
+    private static final int MAX_MESSAGES_PER_ACTION = 4096;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final StoreTailer tailer;
+    private final int indexSpacingMask;
+    @Nullable
+    private final EventLoop ownEventLoop;
+    private boolean started = false;
+    private boolean closed = false;
+    private volatile long lastIndexRead = Long.MIN_VALUE;
+
+    BackgroundIndexer(@NotNull SingleChronicleQueue queue) {
+        this.queue = queue;
+        this.tailer = queue.acquireTailer();
+        this.indexSpacingMask = queue.indexSpacing() - 1;
+
+        EventLoop eventLoop = queue.eventLoop();
+        if (eventLoop == null) {
+            eventLoop = new VanillaEventLoop(null, queue.file().getName() + "/indexer",
+                    Pauser.balanced(), 20, true, false);
+            ownEventLoop = eventLoop;
+            eventLoop.addHandler(this);
+            eventLoop.start();
+        } else {
+            ownEventLoop = null;
+            eventLoop.addHandler(this);
+        }
+    }
+
+    /**
+     * @return the index of the last excerpt the indexer has passed, or Long.MIN_VALUE if none.
+     */
+    long lastIndexRead() {
+        return lastIndexRead;
+    }
+
+    @Override
+    public synchronized boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+        if (!started) {
+            started = true;
+            start();
+        }
+
+        boolean busy = false;
+        try {
+            for (int i = 0; i < MAX_MESSAGES_PER_ACTION; i++) {
+                long index, position;
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        break;
+                    index = dc.index();
+                    position = dc.wire().bytes().readPosition() - 4;
+                }
+                busy = true;
+                if ((index & indexSpacingMask) == 0) {
+                    WireStore store = tailer.store;
+                    assert store != null;
+                    store.setPositionForSequenceNumber(tailer, queue.rollCycle().toSequenceNumber(index), position);
+                }
+                lastIndexRead = index;
+            }
+
+        } catch (Exception e) {
+            if (queue.isClosed())
+                throw new InvalidEventHandlerException(e);
+            Jvm.warn().on(getClass(), "Unable to index " + queue.file() + " after " + Long.toHexString(lastIndexRead) +
+                    ", lookups of the excerpt skipped will scan for it", e);
+        }
+        return busy;
+    }
+
+    /**
+     * Start from the beginning of the last cycle, which may not have been indexed if a previous
+     * indexer didn't keep up. Any earlier cycle was indexed when the indexer passed it.
+     */
+    private void start() {
+        int lastCycle = queue.lastCycle();
+        if (lastCycle == Integer.MIN_VALUE)
+            return;
+        RollCycle rollCycle = queue.rollCycle();
+        if (!tailer.moveToIndex(rollCycle.toIndex(lastCycle, 0)))
+            tailer.toEnd();
+    }
+
+    /**
+     * Stop indexing, once any index entry in progress has been written.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        if (ownEventLoop != null)
+            ownEventLoop.close();
+    }
+}
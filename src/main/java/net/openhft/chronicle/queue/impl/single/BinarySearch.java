@@ -8,7 +8,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.text.ParseException;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.NavigableSet;
 
 /**
@@ -17,6 +16,33 @@ import java.util.NavigableSet;
 public enum BinarySearch {
     INSTANCE;
 
+    /**
+     * Returned by {@link #search(SingleChronicleQueue, Wire, Comparator, Rule)} when there is no
+     * excerpt to match. This isn't a valid index as its cycle would be negative.
+     */
+    public static final long NOT_FOUND = Long.MIN_VALUE;
+
+    // the result of a comparison when there isn't an excerpt to compare.
+    private static final int NO_EXCERPT = 2;
+
+    /**
+     * Which excerpt a search finds.
+     */
+    public enum Rule {
+        /**
+         * the first excerpt equal to the key.
+         */
+        EXACT,
+        /**
+         * the last excerpt equal to or before the key.
+         */
+        FLOOR,
+        /**
+         * the first excerpt equal to or after the key.
+         */
+        CEILING
+    }
+
     /**
      * returns the index or -1 if not found or the index if an exact match is found, an approximation in the form of -approximateIndex
      * or -1 if there was no searching to be done.
@@ -25,7 +51,8 @@ public enum BinarySearch {
      * high bit which is used for the sign. At the moment  it will work as its unlikely to reach a point where we store
      * enough messages in the chronicle queue to use the high bit, having said this its possible in the future the 
      * high bit in the index ( used for the sign ) may be used, this implementation is unsafe as it relies on this
-     * bit not being set ( in other words set to zero ).
+     * bit not being set ( in other words set to zero ). {@link #search(SingleChronicleQueue, Wire,
+     * Comparator, Rule)} doesn't rely on this.
      */
     public static long search(@NotNull SingleChronicleQueue q,
                               @NotNull Wire key,
@@ -43,11 +70,11 @@ public enum BinarySearch {
             if (startCycle == endCycle)
                 return findWithinCycle(key, c, startCycle, tailer, q, rollCycle);
 
-            final NavigableSet<Long> cycles = q.listCyclesBetween(startCycle, endCycle);
-            final int cycle = (int) findCycleLinearSearch(cycles, key, c, tailer, q);
-
-            if (cycle == -1)
+            final long[] cycles = toArray(q.listCyclesBetween(startCycle, endCycle));
+            if (cycles.length == 0)
                 return -1;
+            final int found = findCycle(cycles, key, c, tailer, q, true);
+            final int cycle = (int) cycles[found == -1 ? 0 : found];
             return findWithinCycle(key, c, cycle, tailer, q, rollCycle);
         } finally {
             key.bytes().readPosition(readPosition);
@@ -55,36 +82,171 @@ public enum BinarySearch {
 
     }
 
-    private static long findCycleLinearSearch(@NotNull NavigableSet<Long> cycles, Wire key,
-                                              @NotNull Comparator<Wire> c,
-                                              @NotNull ExcerptTailer tailer,
-                                              @NotNull final SingleChronicleQueue queue) {
+    /**
+     * Search a queue whose excerpts are in the order of the comparator.
+     *
+     * @param q    the queue to search
+     * @param key  to compare the excerpts to
+     * @param c    compares an excerpt to the key
+     * @param rule which excerpt to find when there isn't an exact match
+     * @return the index found, which can be any 64 bit value other than {@link #NOT_FOUND}, or
+     * {@link #NOT_FOUND} if there isn't one.
+     */
+    public static long search(@NotNull SingleChronicleQueue q,
+                              @NotNull Wire key,
+                              @NotNull Comparator<Wire> c,
+                              @NotNull Rule rule) throws ParseException {
+        final long readPosition = key.bytes().readPosition();
+        try {
+            final ExcerptTailer tailer = q.createTailer();
+            if (rule == Rule.FLOOR)
+                return lastBefore(q, key, c, tailer, true);
 
-        final Iterator<Long> iterator = cycles.iterator();
-        if (!iterator.hasNext())
-            return -1;
-        final RollCycle rollCycle = queue.rollCycle();
-        long prevIndex = iterator.next();
+            // the ceiling is the excerpt after the last one before the key
+            final long before = lastBefore(q, key, c, tailer, false);
+            if (before == NOT_FOUND) {
+                tailer.toStart();
+            } else {
+                tailer.moveToIndex(before);
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assert dc.isPresent();
+                }
+            }
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent())
+                    return NOT_FOUND;
+                if (rule == Rule.EXACT && compare(dc, key, c, readPosition) != 0)
+                    return NOT_FOUND;
+                return dc.index();
+            }
+        } finally {
+            key.bytes().readPosition(readPosition);
+        }
+    }
 
-        while (iterator.hasNext()) {
+    /**
+     * @return the index of the last excerpt before the key, or also equal to it if inclusive, or
+     * NOT_FOUND if there isn't one.
+     */
+    private static long lastBefore(@NotNull SingleChronicleQueue q,
+                                   @NotNull Wire key,
+                                   @NotNull Comparator<Wire> c,
+                                   @NotNull ExcerptTailer tailer,
+                                   boolean inclusive) throws ParseException {
+        final RollCycle rollCycle = q.rollCycle();
+        final long readPosition = key.bytes().readPosition();
+        final int firstCycle = q.firstCycle();
+        final int lastCycle = q.lastCycleNotAhead();
+        if (firstCycle > lastCycle)
+            return NOT_FOUND;
+        final long[] cycles = toArray(q.listCyclesBetween(firstCycle, lastCycle));
 
-            final Long current = iterator.next();
+        final int found = findCycle(cycles, key, c, tailer, q, inclusive);
+        if (found == -1)
+            return NOT_FOUND;
+        final int cycle = (int) cycles[found];
 
-            final boolean b = tailer.moveToIndex(rollCycle.toIndex((int) (long) current, 0));
-            if (!b)
-                return prevIndex;
+        // the excerpts at the index spacing are found by moveToIndex without a scan
+        final long spacing = q.indexSpacing();
+        long lo = 1;
+        long hi = (q.exceptsPerCycle(cycle) - 1) / spacing;
+        long seq = 0;
+        while (lo <= hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (isBefore(compareAt(tailer, rollCycle.toIndex(cycle, mid * spacing), key, c, readPosition), inclusive)) {
+                seq = mid * spacing;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
 
-            try (final DocumentContext dc = tailer.readingDocument()) {
-                final int compare = c.compare(dc.wire(), key);
-                if (compare == 0)
-                    return current;
-                else if (compare > 0)
-                    return prevIndex;
-                prevIndex = current;
+        // then scan up to the next excerpt at the index spacing
+        long index = rollCycle.toIndex(cycle, seq);
+        final boolean moved = tailer.moveToIndex(index);
+        assert moved;
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assert dc.isPresent();
+        }
+        for (int i = 1; i < spacing; i++) {
+            try (DocumentContext dc = tailer.readingDocument()) {
+                if (!dc.isPresent() || rollCycle.toCycle(dc.index()) != cycle)
+                    break;
+                if (!isBefore(compare(dc, key, c, readPosition), inclusive))
+                    break;
+                index = dc.index();
             }
         }
+        return index;
+    }
+
+    /**
+     * Binary search for the last cycle whose first excerpt is before the key, or equal to it if
+     * inclusive. Only the cycles probed are opened.
+     *
+     * @return the offset in cycles, or -1 if there isn't one.
+     */
+    private static int findCycle(@NotNull long[] cycles,
+                                 @NotNull Wire key,
+                                 @NotNull Comparator<Wire> c,
+                                 @NotNull ExcerptTailer tailer,
+                                 @NotNull final SingleChronicleQueue queue,
+                                 boolean inclusive) {
+        final RollCycle rollCycle = queue.rollCycle();
+        final long readPosition = key.bytes().readPosition();
+        int lo = 0, hi = cycles.length - 1, found = -1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            int probe = mid;
+            int cmp = compareAt(tailer, rollCycle.toIndex((int) cycles[probe], 0), key, c, readPosition);
+            // step down over empty cycles
+            while (cmp == NO_EXCERPT && probe > lo)
+                cmp = compareAt(tailer, rollCycle.toIndex((int) cycles[--probe], 0), key, c, readPosition);
+
+            if (cmp == NO_EXCERPT) {
+                lo = mid + 1;
+            } else if (isBefore(cmp, inclusive)) {
+                found = probe;
+                lo = mid + 1;
+            } else {
+                hi = probe - 1;
+            }
+        }
+        key.bytes().readPosition(readPosition);
+        return found;
+    }
+
+    private static boolean isBefore(int cmp, boolean inclusive) {
+        return cmp < 0 || (inclusive && cmp == 0);
+    }
+
+    /**
+     * @return the sign of the comparison of the excerpt at an index with the key, or NO_EXCERPT
+     * if there isn't one.
+     */
+    private static int compareAt(@NotNull ExcerptTailer tailer, long index,
+                                 @NotNull Wire key, @NotNull Comparator<Wire> c, long keyPosition) {
+        if (!tailer.moveToIndex(index))
+            return NO_EXCERPT;
+        try (DocumentContext dc = tailer.readingDocument()) {
+            if (!dc.isPresent())
+                return NO_EXCERPT;
+            return compare(dc, key, c, keyPosition);
+        }
+    }
+
+    private static int compare(@NotNull DocumentContext dc, @NotNull Wire key, @NotNull Comparator<Wire> c, long keyPosition) {
+        key.bytes().readPosition(keyPosition);
+        return Integer.signum(c.compare(dc.wire(), key));
+    }
 
-        return prevIndex;
+    @NotNull
+    private static long[] toArray(@NotNull NavigableSet<Long> cycles) {
+        final long[] array = new long[cycles.size()];
+        int i = 0;
+        for (Long cycle : cycles)
+            array[i++] = cycle;
+        return array;
     }
 
     /**
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.CommitListener;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Tells the listeners and wakes the tailers waiting in {@code awaitNext} of a queue as its
+ * appenders in this process commit excerpts.
+ * <p>
+ * An appender only reads a volatile array of listeners, a count of waiting threads and the time
+ * until which a tailer is waiting, so a commit with nothing to tell costs three volatile reads,
+ * and a read of the clock once a tailer has waited. Listeners and waiting threads are added
+ * and removed with compare and swap, so neither side takes a lock. Asynchronous listeners are
+ * called, in the order of the commits, on a thread of the notifier's own, which the appenders
+ * hand the commits to through a ring of {@link #ASYNC_CAPACITY} for each listener, so a commit
+ * allocates nothing. Should a listener fall that far behind, the commits which don't fit are
+ * coalesced: the listener misses some of them, but is always told of the latest.
+ * <p>
+ * Tailers in other processes are told through two values in the queue's meta data {@link
+ * TableStore}: the time until which a tailer, in any process, is waiting, and a count of the
+ * commits, which is only bumped until then. A waiting tailer watches the count, so it sees an
+ * excerpt from another process without reading the queue each time it wakes, and moves the time
+ * on each time it looks. Nothing is left to repair when a tailer stops waiting, or its process
+ * ends, as the time passes {@link #WAITING_MS} after it last looked.
+ */
+final class CommitNotifier {
+    private static final CommitListener[] NO_LISTENERS = {};
+    private static final AtomicReferenceFieldUpdater<CommitNotifier, CommitListener[]> LISTENERS =
+            AtomicReferenceFieldUpdater.newUpdater(CommitNotifier.class, CommitListener[].class, "listeners");
+    static final String PUBLISHED_KEY = "commit.published";
+    static final String WAITING_UNTIL_KEY = "commit.waitingUntil";
+    static final long WAITING_MS = 100;
+    static final int ASYNC_CAPACITY =
+            Maths.nextPower2(Integer.getInteger("chronicle.queue.asyncCommitListenerCapacity", 4096), 2);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @NotNull
+    private final String name;
+    private final Queue<Thread> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    // shared by the processes using the queue, or null without meta data, e.g. if read only.
+    @Nullable
+    private final LongValue published;
+    @Nullable
+    private final LongValue waitingUntil;
+    private volatile CommitListener[] listeners = NO_LISTENERS;
+    @Nullable
+    private Thread asyncThread;
+    // set while the async thread is parked, so an appender only unparks it then.
+    private volatile boolean asyncParked = false;
+    private volatile boolean closed = false;
+
+    CommitNotifier(@NotNull String name, @Nullable TableStore metaStore) {
+        this.name = name;
+        if (metaStore == null) {
+            this.published = null;
+            this.waitingUntil = null;
+        } else {
+            this.published = metaStore.doWithExclusiveLock(ts -> ts.acquireValueFor(PUBLISHED_KEY));
+            // Long.MIN_VALUE until a tailer first waits, which has passed.
+            this.waitingUntil = metaStore.doWithExclusiveLock(ts -> ts.acquireValueFor(WAITING_UNTIL_KEY));
+        }
+    }
+
+    void addWaiting(@NotNull Thread thread) {
+        waiting.add(thread);
+        waitingCount.incrementAndGet();
+    }
+
+    /**
+     * Called by a waiting tailer each time it looks for an excerpt, so commits in any process are
+     * counted for {@link #WAITING_MS} after. The time is only moved on once half of it has passed.
+     */
+    void stillWaiting() {
+        if (waitingUntil == null)
+            return;
+        final long now = System.currentTimeMillis();
+        if (waitingUntil.getVolatileValue() < now + WAITING_MS / 2)
+            waitingUntil.setMaxValue(now + WAITING_MS);
+    }
+
+    void removeWaiting(@NotNull Thread thread) {
+        waitingCount.decrementAndGet();
+        waiting.remove(thread);
+    }
+
+    /**
+     * @return the count of the commits, by any process, while a tailer was waiting, or 0 if it
+     * isn't kept.
+     */
+    long published() {
+        return published == null ? 0 : published.getVolatileValue();
+    }
+
+    /**
+     * @return true if a commit might have been made since the count of them was {@code
+     * published}, which is always the case if the count isn't kept.
+     */
+    boolean publishedSince(long published) {
+        return this.published == null || this.published.getVolatileValue() != published;
+    }
+
+    void addListener(@NotNull CommitListener listener, boolean async) {
+        final CommitListener added = async ? new AsyncCommitListener(listener, this, ASYNC_CAPACITY) : listener;
+        CommitListener[] current, next;
+        do {
+            current = listeners;
+            next = new CommitListener[current.length + 1];
+            System.arraycopy(current, 0, next, 0, current.length);
+            next[current.length] = added;
+        } while (!LISTENERS.compareAndSet(this, current, next));
+    }
+
+    /**
+     * @return true if the listener had been added. An asynchronous listener is not told of the
+     * commits it hasn't been called for yet.
+     */
+    boolean removeListener(@NotNull CommitListener listener) {
+        CommitListener[] current, next;
+        do {
+            current = listeners;
+            int i = indexOf(current, listener);
+            if (i < 0)
+                return false;
+            next = new CommitListener[current.length - 1];
+            System.arraycopy(current, 0, next, 0, i);
+            System.arraycopy(current, i + 1, next, i, next.length - i);
+        } while (!LISTENERS.compareAndSet(this, current, next));
+        return true;
+    }
+
+    private static int indexOf(@NotNull CommitListener[] listeners, @NotNull CommitListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            CommitListener l = listeners[i];
+            if (l == listener || (l instanceof AsyncCommitListener && ((AsyncCommitListener) l).listener == listener))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Called by an appender once an excerpt can be read.
+     */
+    void onCommit(long index, long position) {
+        // waiting tailers first, as they are who the latency matters to.
+        if (waitingUntil != null) {
+            final long until = waitingUntil.getVolatileValue();
+            if (until != Long.MIN_VALUE && until > System.currentTimeMillis())
+                published.addAtomicValue(1);
+        }
+        if (waitingCount.get() != 0)
+            for (Thread thread : waiting)
+                LockSupport.unpark(thread);
+
+        final CommitListener[] listeners = this.listeners;
+        for (CommitListener listener : listeners)
+            call(listener, index, position);
+    }
+
+    static void call(@NotNull CommitListener listener, long index, long position) {
+        try {
+            listener.onCommit(index, position);
+        } catch (RuntimeException e) {
+            // the excerpt is committed whatever the listener does.
+            Jvm.warn().on(CommitNotifier.class, "Commit listener failed for index " + Long.toHexString(index), e);
+        }
+    }
+
+    private synchronized void startAsyncThread() {
+        if (closed)
+            throw new IllegalStateException("The queue " + name + " is closed");
+        if (asyncThread == null) {
+            asyncThread = new NamedThreadFactory(name + "-commit-listener", true).newThread(this::callAsyncListeners);
+            asyncThread.start();
+        }
+    }
+
+    private void callAsyncListeners() {
+        while (true) {
+            if (callAsyncListenersOnce())
+                continue;
+            if (closed && !asyncPending())
+                return;
+            asyncParked = true;
+            // an appender which missed the flag has made its commit visible by now.
+            if (!asyncPending())
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            asyncParked = false;
+        }
+    }
+
+    /**
+     * @return true if any listener was called.
+     */
+    private boolean callAsyncListenersOnce() {
+        boolean called = false;
+        for (CommitListener listener : listeners)
+            if (listener instanceof AsyncCommitListener)
+                called |= ((AsyncCommitListener) listener).callPending();
+        return called;
+    }
+
+    private boolean asyncPending() {
+        for (CommitListener listener : listeners)
+            if (listener instanceof AsyncCommitListener && ((AsyncCommitListener) listener).pending())
+                return true;
+        return false;
+    }
+
+    void wakeAsyncThread() {
+        if (asyncParked) {
+            final Thread thread = asyncThread;
+            if (thread != null)
+                LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stop calling asynchronous listeners, once those already due have been called.
+     */
+    void close() {
+        final Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = asyncThread;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1_000);
+                if (thread.isAlive())
+                    Jvm.warn().on(getClass(), "Commit listeners of " + name + " did not finish in time");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        listeners = NO_LISTENERS;
+    }
+
+    /**
+     * Hands the commits to the notifier's thread through a bounded ring, which any number of
+     * appenders add to and only that thread takes from. A commit which finds the ring full is
+     * kept aside, replacing any kept before it, and is called once the commits ahead of it in
+     * the ring have been.
+     */
+    static final class AsyncCommitListener implements CommitListener {
+        @NotNull
+        final CommitListener listener;
+        @NotNull
+        private final CommitNotifier notifier;
+        private final long[] indices;
+        private final long[] positions;
+        // one more than the ticket of the commit in each slot, once it can be read.
+        private final AtomicLongArray tickets;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        // only moved by the notifier's thread, once it has read a slot.
+        private volatile long head = 0;
+        // the latest commit which didn't fit, due once the commits before its ticket are called.
+        private volatile boolean overflowed = false;
+        private long overflowTicket;
+        private long overflowIndex;
+        private long overflowPosition;
+
+        AsyncCommitListener(@NotNull CommitListener listener, @NotNull CommitNotifier notifier, int capacity) {
+            this.listener = listener;
+            this.notifier = notifier;
+            this.indices = new long[capacity];
+            this.positions = new long[capacity];
+            this.tickets = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+            notifier.startAsyncThread();
+        }
+
+        @Override
+        public void onCommit(long index, long position) {
+            long ticket;
+            do {
+                ticket = tail.get();
+                if (ticket - head > mask) {
+                    overflow(ticket, index, position);
+                    notifier.wakeAsyncThread();
+                    return;
+                }
+            } while (!tail.compareAndSet(ticket, ticket + 1));
+            final int slot = (int) ticket & mask;
+            indices[slot] = index;
+            positions[slot] = position;
+            tickets.set(slot, ticket + 1);
+            notifier.wakeAsyncThread();
+        }
+
+        private synchronized void overflow(long ticket, long index, long position) {
+            if (overflowed && overflowTicket > ticket)
+                return;
+            overflowTicket = ticket;
+            overflowIndex = index;
+            overflowPosition = position;
+            overflowed = true;
+        }
+
+        boolean pending() {
+            final long head = this.head;
+            return overflowed || tickets.get((int) head & mask) == head + 1;
+        }
+
+        /**
+         * Called by the notifier's thread only.
+         *
+         * @return true if the listener was called.
+         */
+        boolean callPending() {
+            boolean called = false;
+            long head = this.head;
+            while (true) {
+                if (overflowed)
+                    called |= callOverflow(head);
+                final int slot = (int) head & mask;
+                if (tickets.get(slot) != head + 1)
+                    return called;
+                final long index = indices[slot];
+                final long position = positions[slot];
+                // frees the slot for an appender.
+                this.head = ++head;
+                call(listener, index, position);
+                called = true;
+            }
+        }
+
+        private boolean callOverflow(long head) {
+            final long index, position;
+            synchronized (this) {
+                if (overflowTicket > head)
+                    return false;
+                index = overflowIndex;
+                position = overflowPosition;
+                overflowed = false;
+            }
+            call(listener, index, position);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.Maths;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.util.StringUtils;
+import net.openhft.chronicle.queue.MessageCompression;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.WireType;
+import net.openhft.chronicle.wire.Wires;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Rewrites the files of sealed cycles, those ending with an end of file marker, compressed in
+ * blocks, to archive cycles which are no longer read; a cycle which isn't sealed, e.g. the one
+ * being appended to, is left as it is.
+ * <p>
+ * A compacted cycle keeps its name, and starts with {@link #MAGIC}, which can't be the header of
+ * a cycle which is being read. It holds the length of the original file, the length used up to
+ * the end of file marker, the codec and block size, then the offset of every block, followed by
+ * the blocks, each the next {@code blockSize} bytes of the cycle, compressed separately.
+ * <p>
+ * The queue doesn't read a compacted cycle, as its store is mapped at the positions of the
+ * original; acquiring one throws an IllegalStateException. {@link #inflate(File)} restores it in
+ * place before it is read again.
+ */
+public class CycleCompactor {
+    static final int MAGIC = 0x9A5A5143;
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    private static final Logger LOG = LoggerFactory.getLogger(CycleCompactor.class);
+    private static final int HEADER_SIZE = 32;
+    private static final int CODEC = 4;
+    private static final int FILE_LENGTH = 8;
+    private static final int LENGTH = 16;
+    private static final int BLOCK_SIZE = 24;
+    private static final int BLOCKS = 28;
+
+    @NotNull
+    private final MessageCompression compression;
+    private final int blockSize;
+
+    public CycleCompactor(@NotNull MessageCompression compression) {
+        this(compression, DEFAULT_BLOCK_SIZE);
+    }
+
+    public CycleCompactor(@NotNull MessageCompression compression, int blockSize) {
+        if (blockSize < 4096)
+            throw new IllegalArgumentException("blockSize: " + blockSize);
+        this.compression = compression;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return true if the file is a compacted cycle.
+     */
+    public static boolean isCompacted(@NotNull File file) {
+        if (file.length() < HEADER_SIZE)
+            return false;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+            readFully(raf.getChannel(), magic, 0);
+            return magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            LOG.warn("Unable to read {}", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * @return the length of a sealed cycle up to and including its end of file marker, or -1 if
+     * it isn't sealed.
+     */
+    static long sealedLength(@NotNull File file) throws IOException {
+        long fileLength = file.length();
+        MappedBytes bytes = MappedBytes.mappedBytes(file, OS.pageAlign(16 << 20), OS.pageSize(), true);
+        try {
+            int slotSize = SingleChronicleQueueStore.slotSize(recordSize(bytes));
+            long pos = 0;
+            while (pos + 4 <= fileLength) {
+                int header = bytes.readVolatileInt(pos);
+                if (Wires.isEndOfFile(header))
+                    return pos + 4;
+                if (header == 0 || Wires.isNotComplete(header))
+                    return -1;
+                // a fixed size record is followed by the padding to the next slot.
+                pos += slotSize > 0 && Wires.isReadyData(header)
+                        ? slotSize
+                        : Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+            }
+            return -1;
+        } finally {
+            bytes.release();
+        }
+    }
+
+    /**
+     * @return the length of the records of a cycle, from the store in its first header, or 0 if
+     * its excerpts can be of any length.
+     */
+    private static int recordSize(@NotNull MappedBytes bytes) throws StreamCorruptedException {
+        int header = bytes.readVolatileInt(0);
+        if (!Wires.isReady(header) || Wires.isReadyData(header))
+            return 0;
+        bytes.readPositionRemaining(Wires.SPB_HEADER_SIZE, Wires.lengthOf(header));
+        try {
+            StringBuilder name = Wires.acquireStringBuilder();
+            ValueIn valueIn = WireType.BINARY.apply(bytes).readEventName(name);
+            if (!StringUtils.isEqual(name, MetaDataKeys.header.name()))
+                throw new StreamCorruptedException("The first message should be the header, was " + name);
+            // the store releases the bytes it is read from.
+            bytes.reserve();
+            WireStore store = valueIn.typedMarshallable();
+            try {
+                return store instanceof SingleChronicleQueueStore
+                        ? ((SingleChronicleQueueStore) store).recordSize() : 0;
+            } finally {
+                if (store != null)
+                    store.release();
+            }
+        } finally {
+            bytes.readLimit(bytes.capacity());
+            bytes.readPosition(0);
+        }
+    }
+
+    /**
+     * Compact the cycle, if it is sealed and not compacted already. The compacted cycle is
+     * written next to it, and moved over it, so readers which have it mapped keep reading the
+     * original.
+     *
+     * @return true if the cycle was compacted.
+     */
+    public boolean compact(@NotNull File cycleFile) {
+        if (!cycleFile.getName().endsWith(SingleChronicleQueue.SUFFIX) || !cycleFile.exists() || isCompacted(cycleFile))
+            return false;
+        File tmp = null;
+        try {
+            long length = sealedLength(cycleFile);
+            if (length < 0)
+                return false;
+            tmp = File.createTempFile(cycleFile.getName(), ".compacting", cycleFile.getParentFile());
+            write(cycleFile, length, tmp);
+            Files.move(tmp.toPath(), cycleFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+
+        } catch (IOException e) {
+            if (tmp != null && !tmp.delete())
+                tmp.deleteOnExit();
+            throw new UncheckedIOException("Unable to compact " + cycleFile, e);
+        }
+    }
+
+    /**
+     * Compact the sealed cycles of a queue.
+     *
+     * @return the number of cycles compacted.
+     */
+    public int compactAll(@NotNull File queueDir) {
+        File[] files = queueDir.listFiles((d, n) -> n.endsWith(SingleChronicleQueue.SUFFIX));
+        if (files == null)
+            return 0;
+        Arrays.sort(files);
+        int compacted = 0;
+        for (File file : files) {
+            if (compact(file))
+                compacted++;
+        }
+        return compacted;
+    }
+
+    private void write(@NotNull File cycleFile, long length, @NotNull File to) throws IOException {
+        int blocks = Maths.toUInt31((length + blockSize - 1) / blockSize);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + (blocks + 1) * 8).order(ByteOrder.nativeOrder());
+        header.putInt(0, MAGIC);
+        header.putInt(CODEC, compression.ordinal());
+        header.putLong(FILE_LENGTH, cycleFile.length());
+        header.putLong(LENGTH, length);
+        header.putInt(BLOCK_SIZE, blockSize);
+        header.putInt(BLOCKS, blocks);
+
+        BiConsumer<BytesStore, Bytes> encoder = compression.encoder();
+        Bytes<ByteBuffer> block = Bytes.elasticByteBuffer(blockSize);
+        Bytes<ByteBuffer> compressed = Bytes.elasticByteBuffer(blockSize);
+        try (RandomAccessFile in = new RandomAccessFile(cycleFile, "r");
+             RandomAccessFile out = new RandomAccessFile(to, "rw")) {
+            FileChannel inChannel = in.getChannel();
+            FileChannel outChannel = out.getChannel();
+            long offset = header.capacity();
+            for (int i = 0; i < blocks; i++) {
+                header.putLong(HEADER_SIZE + i * 8, offset);
+                int size = (int) Math.min(blockSize, length - (long) i * blockSize);
+                read(inChannel, (long) i * blockSize, size, block);
+                compressed.clear();
+                encoder.accept(block, compressed);
+                offset += write(outChannel, offset, compressed);
+            }
+            header.putLong(HEADER_SIZE + blocks * 8, offset);
+            header.clear();
+            writeFully(outChannel, header, 0);
+            outChannel.force(true);
+
+        } finally {
+            block.release();
+            compressed.release();
+        }
+    }
+
+    /**
+     * Restore a compacted cycle to the original, so the queue can read it again. The cycle is
+     * inflated next to it, and moved over it.
+     *
+     * @return true if the cycle was compacted, and has been restored.
+     */
+    public static boolean inflate(@NotNull File cycleFile) {
+        if (!cycleFile.exists() || !isCompacted(cycleFile))
+            return false;
+        File tmp = null;
+        try {
+            tmp = File.createTempFile(cycleFile.getName(), ".inflating", cycleFile.getParentFile());
+            inflate(cycleFile, tmp);
+            Files.move(tmp.toPath(), cycleFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            return true;
+
+        } catch (IOException e) {
+            if (tmp != null && !tmp.delete())
+                tmp.deleteOnExit();
+            throw new UncheckedIOException("Unable to inflate " + cycleFile, e);
+        }
+    }
+
+    private static void inflate(@NotNull File cycleFile, @NotNull File to) throws IOException {
+        Bytes<ByteBuffer> block = Bytes.elasticByteBuffer(DEFAULT_BLOCK_SIZE);
+        Bytes<ByteBuffer> inflated = Bytes.elasticByteBuffer(DEFAULT_BLOCK_SIZE);
+        try (RandomAccessFile in = new RandomAccessFile(cycleFile, "r");
+             RandomAccessFile out = new RandomAccessFile(to, "rw")) {
+            FileChannel inChannel = in.getChannel();
+            FileChannel outChannel = out.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+            readFully(inChannel, header, 0);
+            if (header.getInt(0) != MAGIC)
+                throw new IOException(cycleFile + " is not a compacted cycle");
+            MessageCompression compression = MessageCompression.values()[header.getInt(CODEC)];
+            int blockSize = header.getInt(BLOCK_SIZE);
+            int blocks = header.getInt(BLOCKS);
+            ByteBuffer offsets = ByteBuffer.allocate((blocks + 1) * 8).order(ByteOrder.nativeOrder());
+            readFully(inChannel, offsets, HEADER_SIZE);
+
+            BiConsumer<BytesStore, Bytes> decoder = compression.decoder();
+            for (int i = 0; i < blocks; i++) {
+                long offset = offsets.getLong(i * 8);
+                read(inChannel, offset, Maths.toUInt31(offsets.getLong(i * 8 + 8) - offset), block);
+                inflated.clear();
+                decoder.accept(block, inflated);
+                write(outChannel, (long) i * blockSize, inflated);
+            }
+            out.setLength(header.getLong(FILE_LENGTH));
+
+        } finally {
+            block.release();
+            inflated.release();
+        }
+    }
+
+    private static void read(@NotNull FileChannel channel, long position, int size, @NotNull Bytes<ByteBuffer> to) throws IOException {
+        to.clear();
+        to.ensureCapacity(size);
+        ByteBuffer buffer = to.underlyingObject();
+        buffer.clear();
+        buffer.limit(size);
+        readFully(channel, buffer, position);
+        to.writePosition(size);
+    }
+
+    private static long write(@NotNull FileChannel channel, long position, @NotNull Bytes<ByteBuffer> from) throws IOException {
+        ByteBuffer buffer = from.underlyingObject();
+        buffer.clear();
+        buffer.limit(Maths.toUInt31(from.writePosition()));
+        writeFully(channel, buffer, position);
+        return from.writePosition();
+    }
+
+    private static void readFully(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new EOFException();
+        }
+    }
+
+    private static void writeFully(@NotNull FileChannel channel, @NotNull ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer, position + buffer.position());
+    }
+}
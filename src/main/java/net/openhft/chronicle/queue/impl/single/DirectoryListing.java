@@ -14,6 +14,11 @@ public interface DirectoryListing extends Closeable {
 
     void onFileCreated(File file, int cycle);
 
+    /**
+     * Called once the file of a cycle has been deleted, or moved out of the queue.
+     */
+    void onFileDeleted(File file, int cycle);
+
     int getMaxCreatedCycle();
 
     int getMinCreatedCycle();
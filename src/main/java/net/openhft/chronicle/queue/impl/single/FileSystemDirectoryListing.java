@@ -30,6 +30,11 @@ final class FileSystemDirectoryListing implements DirectoryListing {
         modCount.incrementAndGet();
     }
 
+    @Override
+    public void onFileDeleted(final File file, final int cycle) {
+        modCount.incrementAndGet();
+    }
+
     @Override
     public int getMaxCreatedCycle() {
         int maxCycle = Integer.MIN_VALUE;
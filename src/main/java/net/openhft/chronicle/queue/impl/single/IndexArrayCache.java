@@ -0,0 +1,257 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Byteable;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.bytes.MappedBytesStore;
+import net.openhft.chronicle.bytes.MappedFile;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.values.LongArrayValues;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The index arrays of one store, shared by all the threads appending to or tailing it.
+ * <p>
+ * An array read through a tailer or appender is bound to that excerpt's {@link MappedBytes},
+ * which can only be used by one thread. The cached copy is instead bound to the chunk of the file
+ * the array is in, which is held mapped while any of its arrays is cached. At most {@code
+ * maxArrays} arrays are kept, the least recently used being dropped first. The arrays are split
+ * between segments by address, each with its own lock, so threads looking up different arrays
+ * don't contend.
+ */
+class IndexArrayCache implements Closeable {
+    static final int MAX_ARRAYS = Integer.getInteger("chronicle.queue.indexArrayCacheSize", 128);
+    private static final int SEGMENTS = 8;
+    // a segment holds at least this many arrays, so a small cache is still least recently used overall.
+    private static final int MIN_SEGMENT_SIZE = 16;
+
+    @NotNull
+    private final Supplier<LongArrayValues> longArraySupplier;
+    @NotNull
+    private final Segment[] segments;
+    // guarded by this, by the number of the chunk.
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    private volatile boolean closed;
+
+    IndexArrayCache(@NotNull Supplier<LongArrayValues> longArraySupplier, int maxArrays) {
+        this.longArraySupplier = longArraySupplier;
+        int count = maxArrays >= SEGMENTS * MIN_SEGMENT_SIZE ? SEGMENTS : 1;
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++)
+            segments[i] = new Segment(Math.max(1, maxArrays / count));
+    }
+
+    /**
+     * @return the shared array at this address, or null if it isn't cached.
+     */
+    @Nullable
+    LongArrayValues get(long address) {
+        Segment segment = segmentFor(address);
+        synchronized (segment) {
+            Entry entry = segment.get(address);
+            return entry == null ? null : entry.values;
+        }
+    }
+
+    /**
+     * Cache an array, evicting the least recently used of its segment if it is full.
+     *
+     * @param address of the array's header
+     * @param values  the array as read by the caller
+     * @return the shared array, or the caller's if it can't be shared.
+     */
+    @NotNull
+    LongArrayValues put(long address, @NotNull LongArrayValues values) {
+        Entry entry = shared(values);
+        if (entry == null)
+            return values;
+        Entry previous;
+        Segment segment = segmentFor(address);
+        synchronized (segment) {
+            previous = segment.putIfAbsent(address, entry);
+        }
+        if (previous == null)
+            return entry.values;
+        releaseChunk(entry.chunk);
+        return previous.values;
+    }
+
+    /**
+     * @param values an array as read by the caller
+     * @return a copy of the array which can be used by any thread, and holds its chunk mapped
+     * until the cache is closed, or null if there isn't one.
+     */
+    @Nullable
+    LongArrayValues share(@NotNull LongArrayValues values) {
+        Entry entry = shared(values);
+        return entry == null ? null : entry.values;
+    }
+
+    @Nullable
+    private Entry shared(@NotNull LongArrayValues values) {
+        Byteable byteable = (Byteable) values;
+        BytesStore bytes = byteable.bytesStore();
+        if (!(bytes instanceof MappedBytes))
+            return null;
+        long offset = byteable.offset();
+        long length = byteable.maxSize();
+        Chunk chunk = reserveChunk(((MappedBytes) bytes).mappedFile(), offset, length);
+        if (chunk == null)
+            return null;
+        LongArrayValues shared = longArraySupplier.get();
+        ((Byteable) shared).bytesStore(chunk.store, offset, length);
+        return new Entry(shared, chunk);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    synchronized int chunks() {
+        return chunks.size();
+    }
+
+    @NotNull
+    private Segment segmentFor(long address) {
+        return segments[(int) ((address * 0x9E3779B97F4A7C15L) >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * @return the chunk the array is in, mapping it unless it is already, with one more array
+     * using it, or null if it can't be mapped, or the array runs past its overlap with the next.
+     */
+    @Nullable
+    private synchronized Chunk reserveChunk(@NotNull MappedFile mappedFile, long offset, long length) {
+        if (closed)
+            return null;
+        long number = offset / mappedFile.chunkSize();
+        Chunk chunk = chunks.get(number);
+        if (chunk == null) {
+            try {
+                chunk = new Chunk(number, mappedFile.acquireByteStore(offset));
+            } catch (IOException | IllegalStateException e) {
+                Jvm.debug().on(getClass(), "Unable to map the index at " + offset, e);
+                return null;
+            }
+            chunks.put(number, chunk);
+        }
+        if (!chunk.store.inside(offset + length - 1)) {
+            if (chunk.arrays == 0) {
+                chunks.remove(number);
+                chunk.store.release();
+            }
+            return null;
+        }
+        chunk.arrays++;
+        return chunk;
+    }
+
+    /**
+     * Unmap a chunk once none of its arrays is cached.
+     */
+    private synchronized void releaseChunk(@NotNull Chunk chunk) {
+        if (--chunk.arrays > 0 || closed)
+            return;
+        chunks.remove(chunk.number);
+        chunk.store.release();
+    }
+
+    /**
+     * Unmap the chunks held by the cache. Only to be called once no thread can use the store.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+        synchronized (this) {
+            for (Iterator<Chunk> iter = chunks.values().iterator(); iter.hasNext(); ) {
+                iter.next().store.release();
+                iter.remove();
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    static final class Entry {
+        @NotNull
+        final LongArrayValues values;
+        @NotNull
+        final Chunk chunk;
+
+        Entry(@NotNull LongArrayValues values, @NotNull Chunk chunk) {
+            this.values = values;
+            this.chunk = chunk;
+        }
+    }
+
+    static final class Chunk {
+        final long number;
+        @NotNull
+        final MappedBytesStore store;
+        // guarded by the cache
+        int arrays;
+
+        Chunk(long number, @NotNull MappedBytesStore store) {
+            this.number = number;
+            this.store = store;
+        }
+    }
+
+    /**
+     * The arrays of a segment, in the order they were last used.
+     */
+    final class Segment extends LinkedHashMap<Long, Entry> {
+        private final int maxArrays;
+
+        Segment(int maxArrays) {
+            super(16, 0.75f, true);
+            this.maxArrays = maxArrays;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() <= maxArrays)
+                return false;
+            releaseChunk(eldest.getValue().chunk);
+            return true;
+        }
+    }
+}
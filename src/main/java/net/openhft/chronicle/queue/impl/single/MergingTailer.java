@@ -0,0 +1,267 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.util.StringUtils;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.ValueIn;
+import net.openhft.chronicle.wire.VanillaMessageHistory;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the excerpts of several tailers, e.g. of different queues, in the order of a timestamp
+ * each excerpt holds, so feeds recorded separately can be replayed in one deterministic order
+ * without sorting them first.
+ * <p>
+ * Each tailer's next excerpt is kept open, with its timestamp, in a heap, so finding the next to
+ * read doesn't copy or read any excerpt twice. The document returned by {@link
+ * #readingDocument()} is that of the tailer it came from, and closing it moves that tailer on.
+ * <p>
+ * While a tailer has nothing to read, e.g. as its next excerpt is still being written, the
+ * excerpt it would have read might come before those the others have. As the timestamps of each
+ * tailer are expected to increase, the others' excerpts before its last timestamp are read
+ * straight away, while the rest are held back until it has had nothing to read for {@code
+ * maxDelay}, after which it holds nothing back until it reads again. An excerpt which turns up
+ * later with an earlier timestamp is read next, out of order. A maxDelay of 0 never waits, which
+ * suits inputs which have all been written.
+ * <p>
+ * Used by one thread, like the tailers.
+ */
+public final class MergingTailer {
+    @NotNull
+    private final TimestampExtractor extractor;
+    private final long maxDelayNanos;
+    @NotNull
+    private final Input[] inputs;
+    // a binary min-heap of the inputs with an excerpt open, by timestamp then input.
+    @NotNull
+    private final Input[] heap;
+    private int heapSize = 0;
+    // the input whose excerpt was last returned, which has to be closed before it is read again.
+    @Nullable
+    private Input reading;
+
+    public MergingTailer(@NotNull TimestampExtractor extractor, long maxDelay, @NotNull TimeUnit unit,
+                         @NotNull ExcerptTailer... tailers) {
+        if (maxDelay < 0)
+            throw new IllegalArgumentException("maxDelay: " + maxDelay);
+        this.extractor = extractor;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.inputs = new Input[tailers.length];
+        for (int i = 0; i < tailers.length; i++)
+            inputs[i] = new Input(i, tailers[i]);
+        this.heap = new Input[tailers.length];
+    }
+
+    /**
+     * @return the timing the excerpt was first written with, by a method writer recording its
+     * {@code MessageHistory}, or Long.MIN_VALUE if it has none. Not thread safe, so for the one
+     * merging tailer.
+     */
+    @NotNull
+    public static TimestampExtractor messageHistory() {
+        final StringBuilder sb = new StringBuilder();
+        final VanillaMessageHistory history = new VanillaMessageHistory();
+        history.addSourceDetails(false);
+        return wire -> {
+            final ValueIn valueIn = wire.readEventName(sb);
+            if (!StringUtils.isEqual("history", sb))
+                return Long.MIN_VALUE;
+            final Object parent = wire.parent();
+            try {
+                wire.parent(null);
+                valueIn.marshallable(history);
+            } finally {
+                wire.parent(parent);
+            }
+            return history.timings() > 0 ? history.timing(0) : Long.MIN_VALUE;
+        };
+    }
+
+    /**
+     * @return the int64 field of the name, which each excerpt starts with.
+     */
+    @NotNull
+    public static TimestampExtractor field(@NotNull String name) {
+        return wire -> wire.read(name).int64();
+    }
+
+    /**
+     * @return the next excerpt in timestamp order, or one which is not present if a tailer has
+     * nothing to read and the others' are being held back for it. The document has to be closed
+     * before this is called again.
+     */
+    @NotNull
+    public DocumentContext readingDocument() {
+        final Input last = this.reading;
+        if (last != null) {
+            this.reading = null;
+            last.context = null;
+        }
+        boolean idle = false;
+        for (Input input : inputs) {
+            if (input.context == null && !peek(input))
+                idle = true;
+        }
+        if (idle && maxDelayNanos > 0) {
+            final long now = System.nanoTime();
+            for (Input input : inputs) {
+                if (input.context == null && input.idleSinceNanos == Long.MIN_VALUE)
+                    input.idleSinceNanos = now;
+            }
+            if (heapSize > 0 && isHeldBack(heap[0], now))
+                return NoDocumentContext.INSTANCE;
+        }
+        if (heapSize == 0)
+            return NoDocumentContext.INSTANCE;
+        final Input next = poll();
+        this.reading = next;
+        return next.context;
+    }
+
+    /**
+     * @return whether an input with nothing to read, for less than maxDelay, might still read an
+     * excerpt which comes before the next.
+     */
+    private boolean isHeldBack(@NotNull Input next, long now) {
+        for (Input input : inputs) {
+            if (input.context != null || now - input.idleSinceNanos >= maxDelayNanos)
+                continue;
+            // its next excerpt is expected to be no earlier than the last it read.
+            if (next.isAfter(input))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the timestamp of the excerpt last returned by {@link #readingDocument()}.
+     */
+    public long timestamp() {
+        final Input reading = this.reading;
+        if (reading == null)
+            throw new IllegalStateException("No excerpt being read");
+        return reading.timestamp;
+    }
+
+    /**
+     * @return the index in the inputs of the tailer the excerpt last returned by {@link
+     * #readingDocument()} came from.
+     */
+    public int input() {
+        final Input reading = this.reading;
+        if (reading == null)
+            throw new IllegalStateException("No excerpt being read");
+        return reading.number;
+    }
+
+    public int inputs() {
+        return inputs.length;
+    }
+
+    /**
+     * Open the input's next excerpt, if it has one, and add it to the heap.
+     */
+    private boolean peek(@NotNull Input input) {
+        final DocumentContext context = input.tailer.readingDocument();
+        if (!context.isPresent()) {
+            context.close();
+            return false;
+        }
+        final Bytes<?> bytes = context.wire().bytes();
+        final long readPosition = bytes.readPosition();
+        try {
+            input.timestamp = extractor.timestamp(context.wire());
+        } finally {
+            bytes.readPosition(readPosition);
+        }
+        input.context = context;
+        input.idleSinceNanos = Long.MIN_VALUE;
+        offer(input);
+        return true;
+    }
+
+    private void offer(@NotNull Input input) {
+        int i = heapSize++;
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (!heap[parent].isAfter(input))
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = input;
+    }
+
+    @NotNull
+    private Input poll() {
+        final Input first = heap[0];
+        final Input last = heap[--heapSize];
+        heap[heapSize] = null;
+        if (heapSize > 0) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize)
+                    break;
+                if (child + 1 < heapSize && heap[child].isAfter(heap[child + 1]))
+                    child++;
+                if (!last.isAfter(heap[child]))
+                    break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+        }
+        return first;
+    }
+
+    /**
+     * Reads the timestamp of an excerpt. The read position is put back after, so it can read as
+     * much as it needs.
+     */
+    @FunctionalInterface
+    public interface TimestampExtractor {
+        long timestamp(@NotNull Wire wire);
+    }
+
+    private static final class Input {
+        final int number;
+        @NotNull
+        final ExcerptTailer tailer;
+        // the next excerpt, open, or null if it hasn't been read yet.
+        @Nullable
+        DocumentContext context;
+        // of the next excerpt, or the last while there is no next.
+        long timestamp = Long.MIN_VALUE;
+        long idleSinceNanos = Long.MIN_VALUE;
+
+        Input(int number, @NotNull ExcerptTailer tailer) {
+            this.number = number;
+            this.tailer = tailer;
+        }
+
+        boolean isAfter(@NotNull Input input) {
+            return timestamp != input.timestamp ? timestamp > input.timestamp : number > input.number;
+        }
+    }
+}
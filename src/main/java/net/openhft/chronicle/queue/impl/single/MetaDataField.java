@@ -12,7 +12,9 @@ public enum MetaDataField implements WireKey {
     lastAcknowledgedIndexReplicated,
     recovery,
     deltaCheckpointInterval,
-    encodedSequence;
+    encodedSequence,
+    recordSize,
+    compression;
 
     @Nullable
     @Override
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.impl.TableStore;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueue.NAMED_TAILER_KEY_PREFIX;
+
+/**
+ * The indices the named tailers of a queue, see {@link SingleChronicleQueue#createTailer(String)},
+ * save in its meta data {@link TableStore}, including those of tailers created since, by any
+ * process. Not thread safe.
+ */
+final class NamedTailerIndices {
+    @NotNull
+    private final TableStore metaStore;
+    // the index each named tailer will read next, by its key.
+    private final Map<String, LongValue> indices = new LinkedHashMap<>();
+    private final List<String> newKeys = new ArrayList<>();
+    @Nullable
+    private String slowestKey;
+
+    NamedTailerIndices(@NotNull TableStore metaStore) {
+        this.metaStore = metaStore;
+    }
+
+    private static boolean startsWith(@NotNull CharSequence key, @NotNull String prefix) {
+        if (key.length() < prefix.length())
+            return false;
+        for (int i = 0; i < prefix.length(); i++)
+            if (Character.toLowerCase(key.charAt(i)) != prefix.charAt(i))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return the lowest index a named tailer will read next, Long.MIN_VALUE if a named tailer
+     * hasn't saved one, as it is at the start, or Long.MAX_VALUE if there are no named tailers
+     * but those which have been removed.
+     */
+    long slowest() {
+        // tailers created since the last look, acquired once the keys have been read.
+        metaStore.forEachKey(key -> {
+            if (startsWith(key, NAMED_TAILER_KEY_PREFIX) && !indices.containsKey(key.toString()))
+                newKeys.add(key.toString());
+        });
+        if (!newKeys.isEmpty()) {
+            metaStore.doWithExclusiveLock(ts -> {
+                for (String key : newKeys)
+                    indices.put(key, ts.acquireValueFor(key));
+                return null;
+            });
+            newKeys.clear();
+        }
+
+        long slowest = Long.MAX_VALUE;
+        slowestKey = null;
+        for (Map.Entry<String, LongValue> entry : indices.entrySet()) {
+            final long index = entry.getValue().getVolatileValue();
+            if (index < slowest) {
+                slowest = index;
+                slowestKey = entry.getKey();
+            }
+        }
+        return slowest;
+    }
+
+    /**
+     * @return the key of the tailer last found to be the slowest.
+     */
+    @Nullable
+    String slowestKey() {
+        return slowestKey;
+    }
+}
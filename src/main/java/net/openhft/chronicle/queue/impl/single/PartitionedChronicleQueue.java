@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.util.function.Function;
+
+/**
+ * A queue split into partitions, each a {@link SingleChronicleQueue} in a sub-directory, so
+ * appenders to different partitions don't contend for a header and each partition can be read by
+ * a tailer of its own. An excerpt goes to the partition its key hashes to, so the excerpts of a
+ * key are read in the order they were written, while those of different keys are not ordered.
+ * <p>
+ * The index of the last excerpt committed to each partition by its appenders is kept in the
+ * partition's meta data {@link TableStore}, as a high water mark which can be read without
+ * a tailer. The number of partitions has to stay the same for the keys to stay in their
+ * partitions, so it is saved in the meta data of each partition when it is first opened, and the
+ * queue can't be opened again with a different number.
+ */
+public final class PartitionedChronicleQueue implements Closeable {
+    static final String PARTITION_DIR_PREFIX = "partition-";
+    static final String HIGH_WATER_MARK_KEY = "partition.highWaterMark";
+    static final String PARTITION_COUNT_KEY = "partition.count";
+
+    @NotNull
+    private final File path;
+    @NotNull
+    private final SingleChronicleQueue[] partitions;
+    @NotNull
+    private final LongValue[] highWaterMarks;
+    private final ThreadLocal<PartitionedAppender> threadAppenders = ThreadLocal.withInitial(PartitionedAppender::new);
+    private volatile boolean closed = false;
+
+    /**
+     * @param builderForPartition the builder of the queue of each partition, given its directory
+     */
+    public PartitionedChronicleQueue(@NotNull File path, int partitions,
+                                     @NotNull Function<File, SingleChronicleQueueBuilder> builderForPartition) {
+        if (partitions < 1)
+            throw new IllegalArgumentException("partitions: " + partitions);
+        this.path = path;
+        this.partitions = new SingleChronicleQueue[partitions];
+        this.highWaterMarks = new LongValue[partitions];
+        try {
+            for (int i = 0; i < partitions; i++) {
+                final SingleChronicleQueue queue = builderForPartition.apply(new File(path, PARTITION_DIR_PREFIX + i)).build();
+                this.partitions[i] = queue;
+                final TableStore metaStore = queue.metaStore();
+                if (metaStore == null)
+                    throw new IllegalStateException("The high water marks are kept in the partitions, which can't be written to by a read only queue");
+                checkPartitionCount(metaStore, partitions);
+                final LongValue highWaterMark = metaStore.doWithExclusiveLock(ts -> ts.acquireValueFor(HIGH_WATER_MARK_KEY));
+                highWaterMarks[i] = highWaterMark;
+                queue.addCommitListener((index, position) -> raise(highWaterMark, index));
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @NotNull
+    public static PartitionedChronicleQueue binary(@NotNull File path, int partitions) {
+        return new PartitionedChronicleQueue(path, partitions, SingleChronicleQueueBuilder::binary);
+    }
+
+    private void checkPartitionCount(@NotNull TableStore metaStore, int partitions) {
+        final long saved = metaStore.doWithExclusiveLock(ts -> {
+            final LongValue count = ts.acquireValueFor(PARTITION_COUNT_KEY);
+            count.compareAndSwapValue(Long.MIN_VALUE, partitions);
+            return count.getVolatileValue();
+        });
+        if (saved != partitions)
+            throw new IllegalStateException(path + " has " + saved + " partitions, so can't be opened with " +
+                    partitions + " partitions, as the keys would move partition");
+    }
+
+    private static void raise(@NotNull LongValue highWaterMark, long index) {
+        // the index isn't worked out by an appender with lazy indexing.
+        if (index == Long.MIN_VALUE)
+            return;
+        long value;
+        do {
+            value = highWaterMark.getVolatileValue();
+            if (value >= index)
+                return;
+        } while (!highWaterMark.compareAndSwapValue(value, index));
+    }
+
+    /**
+     * Spreads the keys evenly whatever their bits, with a multiplier which mixes them into the
+     * high bits, which are then scaled to the number of partitions.
+     */
+    static int partitionFor(long key, int partitions) {
+        final long hash = (key * 0x9E3779B97F4A7C15L) >>> 32;
+        return (int) ((hash * partitions) >>> 32);
+    }
+
+    public int partitionFor(long key) {
+        return partitionFor(key, partitions.length);
+    }
+
+    /**
+     * @return the partition of the key, which is the same for every CharSequence of the same
+     * characters.
+     */
+    public int partitionFor(@NotNull CharSequence key) {
+        long hash = 0;
+        for (int i = 0; i < key.length(); i++)
+            hash = 31 * hash + key.charAt(i);
+        return partitionFor(hash);
+    }
+
+    public int partitions() {
+        return partitions.length;
+    }
+
+    @NotNull
+    public SingleChronicleQueue partition(int partition) {
+        return partitions[partition];
+    }
+
+    @NotNull
+    public File path() {
+        return path;
+    }
+
+    /**
+     * @return the appender of this thread, which appends each excerpt to the partition of its key.
+     */
+    @NotNull
+    public PartitionedAppender acquireAppender() {
+        if (closed)
+            throw new IllegalStateException("Queue is closed");
+        return threadAppenders.get();
+    }
+
+    /**
+     * @return a tailer of the partition, from its start.
+     */
+    @NotNull
+    public ExcerptTailer createTailer(int partition) {
+        return partitions[partition].createTailer();
+    }
+
+    /**
+     * @return a named tailer of the partition, see {@link SingleChronicleQueue#createTailer(String)}.
+     * The same name can be used in each partition.
+     */
+    @NotNull
+    public ExcerptTailer createTailer(int partition, @NotNull String name) {
+        return partitions[partition].createTailer(name);
+    }
+
+    /**
+     * @return the index of the last excerpt committed to the partition by an appender of a
+     * partitioned queue, or Long.MIN_VALUE if there hasn't been one. Read from memory shared with
+     * the other processes using the queue, without a tailer.
+     */
+    public long highWaterMark(int partition) {
+        return highWaterMarks[partition].getVolatileValue();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+        closed = true;
+        for (SingleChronicleQueue queue : partitions)
+            if (queue != null)
+                queue.close();
+    }
+
+    /**
+     * Appends each excerpt to the partition of its key, with the appender of the partition. Used
+     * by the one thread it was acquired by.
+     */
+    public final class PartitionedAppender {
+        @NotNull
+        private final ExcerptAppender[] appenders = new ExcerptAppender[partitions.length];
+
+        PartitionedAppender() {
+        }
+
+        /**
+         * @return the appender of the partition, which appends to it like that of any queue.
+         */
+        @NotNull
+        public ExcerptAppender appender(int partition) {
+            ExcerptAppender appender = appenders[partition];
+            if (appender == null)
+                appenders[partition] = appender = partitions[partition].acquireAppender();
+            return appender;
+        }
+
+        @NotNull
+        public DocumentContext writingDocument(long key) throws UnrecoverableTimeoutException {
+            return appender(partitionFor(key)).writingDocument();
+        }
+
+        @NotNull
+        public DocumentContext writingDocument(@NotNull CharSequence key) throws UnrecoverableTimeoutException {
+            return appender(partitionFor(key)).writingDocument();
+        }
+    }
+}
@@ -16,15 +16,27 @@ import java.util.function.IntConsumer;
  *
  * Alternatively, the {@code shutdown()} method can be called to close the supplied queue and release any other resources.
  * Invocation of the {@code execute()} method after {@code shutdown()} has been called with cause an {@code IllegalStateException} to be thrown.
+ *
+ * With {@code -Dchronicle.queue.pretoucher.earlyAcquireNextCycle=true}, the next cycle's file is also created, mapped,
+ * pretouched and has its header written within {@code chronicle.queue.pretoucher.prerollTimeMS} (default 2000) of the
+ * roll, so an appender rolling to it only has to pick up the store which is already open.
  */
 public final class Pretoucher {
+    static final boolean EARLY_ACQUIRE_NEXT_CYCLE = Boolean.getBoolean("chronicle.queue.pretoucher.earlyAcquireNextCycle");
+    static final long PREROLL_TIME_MS = Long.getLong("chronicle.queue.pretoucher.prerollTimeMS", 2_000L);
     private final SingleChronicleQueue queue;
     private final NewChunkListener chunkListener;
     private final IntConsumer cycleChangedListener;
     private final PretoucherState pretoucherState;
+    private final PretoucherState nextCyclePretoucherState;
+    private final boolean earlyAcquireNextCycle;
+    private final long prerollTimeMS;
     private int currentCycle = Integer.MIN_VALUE;
     private WireStore currentCycleWireStore;
     private MappedBytes currentCycleMappedBytes;
+    private int nextCycle = Integer.MIN_VALUE;
+    private WireStore nextCycleWireStore;
+    private MappedBytes nextCycleMappedBytes;
 
     public Pretoucher(final SingleChronicleQueue queue) {
         this(queue, null, c -> {});
@@ -33,16 +45,29 @@ public final class Pretoucher {
     // visible for testing
     Pretoucher(final SingleChronicleQueue queue, final NewChunkListener chunkListener,
                final IntConsumer cycleChangedListener) {
+        this(queue, chunkListener, cycleChangedListener, EARLY_ACQUIRE_NEXT_CYCLE, PREROLL_TIME_MS);
+    }
+
+    // visible for testing
+    Pretoucher(final SingleChronicleQueue queue, final NewChunkListener chunkListener,
+               final IntConsumer cycleChangedListener, final boolean earlyAcquireNextCycle,
+               final long prerollTimeMS) {
         this.queue = queue;
         this.chunkListener = chunkListener;
         this.cycleChangedListener = cycleChangedListener;
+        this.earlyAcquireNextCycle = earlyAcquireNextCycle;
+        // leave at least half of a short cycle before acquiring the next one.
+        this.prerollTimeMS = Math.min(prerollTimeMS, queue.rollCycle().length() / 2);
         queue.addCloseListener(this, Pretoucher::releaseResources);
         pretoucherState = new PretoucherState(this::getStoreWritePosition);
+        nextCyclePretoucherState = new PretoucherState(this::getNextStoreWritePosition);
     }
 
     public void execute() {
         assignCurrentCycle();
         pretoucherState.pretouch(currentCycleMappedBytes);
+        if (earlyAcquireNextCycle)
+            acquireNextCycle();
     }
 
     public void shutdown() {
@@ -50,30 +75,86 @@ public final class Pretoucher {
     }
 
     private void assignCurrentCycle() {
-        if (queue.cycle() != currentCycle) {
-            releaseResources();
+        final int cycle = queue.cycle();
+        if (cycle != currentCycle) {
+            releaseCurrentCycle();
 
-            currentCycleWireStore = queue.storeForCycle(queue.cycle(), queue.epoch(), true);
-            currentCycleMappedBytes = currentCycleWireStore.bytes();
-            currentCycle = queue.cycle();
-            if (chunkListener != null) {
-                currentCycleMappedBytes.setNewChunkListener(chunkListener);
+            if (cycle == nextCycle) {
+                // already opened ahead of the roll
+                currentCycleWireStore = nextCycleWireStore;
+                currentCycleMappedBytes = nextCycleMappedBytes;
+                nextCycleWireStore = null;
+                nextCycleMappedBytes = null;
+                nextCycle = Integer.MIN_VALUE;
+            } else {
+                releaseNextCycle();
+                currentCycleWireStore = queue.storeForCycle(cycle, queue.epoch(), true);
+                currentCycleMappedBytes = currentCycleWireStore.bytes();
+                if (chunkListener != null) {
+                    currentCycleMappedBytes.setNewChunkListener(chunkListener);
+                }
             }
+            currentCycle = cycle;
+
+            cycleChangedListener.accept(cycle);
+        }
+    }
+
+    /**
+     * Create the next cycle's file, if it is close enough to the roll, and keep it mapped until
+     * the appenders roll to it.
+     */
+    private void acquireNextCycle() {
+        final int nextPeriod = queue.period(currentCycle) + 1;
+        final long timeForNextCycle = (long) nextPeriod * queue.rollCycle().length() + queue.epoch();
+        if (queue.time().currentTimeMillis() < timeForNextCycle - prerollTimeMS)
+            return;
 
-            cycleChangedListener.accept(queue.cycle());
+        if (nextCycleWireStore == null) {
+            final int cycle = queue.firstPart(nextPeriod);
+            nextCycleWireStore = queue.storeForCycle(cycle, queue.epoch(), true);
+            nextCycleMappedBytes = nextCycleWireStore.bytes();
+            nextCycle = cycle;
+            if (chunkListener != null) {
+                nextCycleMappedBytes.setNewChunkListener(chunkListener);
+            }
         }
+        nextCyclePretoucherState.pretouch(nextCycleMappedBytes);
     }
 
     private long getStoreWritePosition() {
         return currentCycleWireStore.writePosition();
     }
 
+    private long getNextStoreWritePosition() {
+        return nextCycleWireStore.writePosition();
+    }
+
     private void releaseResources() {
+        releaseCurrentCycle();
+        releaseNextCycle();
+    }
+
+    private void releaseCurrentCycle() {
         if (currentCycleWireStore != null) {
             queue.release(currentCycleWireStore);
+            currentCycleWireStore = null;
         }
         if (currentCycleMappedBytes != null) {
             currentCycleMappedBytes.close();
+            currentCycleMappedBytes = null;
+        }
+    }
+
+    private void releaseNextCycle() {
+        if (nextCycleWireStore != null) {
+            queue.release(nextCycleWireStore);
+            nextCycleWireStore = null;
+        }
+        if (nextCycleMappedBytes != null) {
+            nextCycleMappedBytes.close();
+            nextCycleMappedBytes = null;
         }
+        nextCycle = Integer.MIN_VALUE;
     }
-}
\ No newline at end of file
+}
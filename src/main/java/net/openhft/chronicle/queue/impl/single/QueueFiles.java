@@ -112,6 +112,15 @@ public enum QueueFiles {
                             // nothing has been written to the file, let the StoreTailer fix it up
                             return null;
                         }
+                        if (qs.recordSize() > 0) {
+                            // the end of the fixed size records goes in the slot after the last one claimed.
+                            try {
+                                qs.writeEOF(w, timeoutMS);
+                            } catch (TimeoutException e) {
+                                Jvm.warn().on(RollCycleRetriever.class, "Timeout writing EOF for last file in " + queuePath);
+                            }
+                            return null;
+                        }
 
                         final int recordHeader = bytes.readVolatileInt(writePosition);
                         if (Wires.isNotComplete(recordHeader)) {
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.ParseException;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * The excerpts from one index up to, but not including, another, each read with a tailer of its
+ * own. It splits on the cycles in the range first, then within a cycle on the blocks of excerpts
+ * covered by one index array, so each split starts where the index can take a tailer directly.
+ * <p>
+ * The range is fixed to the excerpts written when the stream is created, so the size of every
+ * split is exact.
+ * <p>
+ * A split releases its tailer once it has read its range. The tailers of the splits which
+ * haven't, e.g. after a short circuiting operation or an exception from the reader, are released
+ * by {@link #releaseTailers()}, which the stream calls when it is closed.
+ */
+class QueueSpliterator<T> implements Spliterator<T> {
+    private static final int BATCH = 256;
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final Function<Bytes<?>, T> reader;
+    private long fromIndex;
+    private final long toIndex;
+    private long size;
+    @Nullable
+    private StoreTailer tailer;
+    // the tailers of this and every split of it which are still open.
+    @NotNull
+    private final Set<StoreTailer> openTailers;
+
+    private QueueSpliterator(@NotNull SingleChronicleQueue queue, @NotNull Function<Bytes<?>, T> reader,
+                             long fromIndex, long toIndex, long size) {
+        this(queue, reader, fromIndex, toIndex, size, ConcurrentHashMap.newKeySet());
+    }
+
+    private QueueSpliterator(@NotNull SingleChronicleQueue queue, @NotNull Function<Bytes<?>, T> reader,
+                             long fromIndex, long toIndex, long size, @NotNull Set<StoreTailer> openTailers) {
+        this.queue = queue;
+        this.reader = reader;
+        this.openTailers = openTailers;
+        this.fromIndex = fromIndex;
+        this.toIndex = toIndex;
+        this.size = size;
+    }
+
+    /**
+     * @return the excerpts from the first cycle at or after {@code fromIndex}, up to {@code
+     * toIndex} or the end of the queue, whichever is first.
+     */
+    @NotNull
+    static <T> QueueSpliterator<T> of(@NotNull SingleChronicleQueue queue, @NotNull Function<Bytes<?>, T> reader,
+                                      long fromIndex, long toIndex) {
+        final RollCycle rollCycle = queue.rollCycle();
+        final StoreTailer endTailer = (StoreTailer) queue.createTailer();
+        final long end = endTailer.toEnd().index();
+        endTailer.releaseResources();
+        toIndex = Math.min(toIndex, end);
+        if (fromIndex >= toIndex || queue.firstIndex() == Long.MAX_VALUE)
+            return new QueueSpliterator<>(queue, reader, fromIndex, fromIndex, 0);
+
+        final int firstCycle = queue.firstCycle();
+        final int lastCycle = queue.lastCycleNotAhead();
+        if (firstCycle > lastCycle)
+            return new QueueSpliterator<>(queue, reader, fromIndex, fromIndex, 0);
+        // the cycles the range covers, without either end needing to have a file.
+        final NavigableSet<Long> cycles = new TreeSet<>(cycles(queue, firstCycle, lastCycle))
+                .subSet((long) rollCycle.toCycle(fromIndex), true, (long) rollCycle.toCycle(toIndex), true);
+        if (cycles.isEmpty())
+            return new QueueSpliterator<>(queue, reader, fromIndex, fromIndex, 0);
+        if (cycles.first() != rollCycle.toCycle(fromIndex))
+            fromIndex = rollCycle.toIndex(cycles.first().intValue(), 0);
+        final int lastInRange = cycles.last().intValue();
+        if (lastInRange != rollCycle.toCycle(toIndex))
+            toIndex = rollCycle.toIndex(lastInRange, queue.exceptsPerCycle(lastInRange));
+        if (fromIndex >= toIndex)
+            return new QueueSpliterator<>(queue, reader, fromIndex, fromIndex, 0);
+        return new QueueSpliterator<>(queue, reader, fromIndex, toIndex, queue.countExcerpts(fromIndex, toIndex));
+    }
+
+    @NotNull
+    private static NavigableSet<Long> cycles(@NotNull SingleChronicleQueue queue, int lowerCycle, int upperCycle) {
+        try {
+            return queue.listCyclesBetween(lowerCycle, upperCycle);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(@NotNull Consumer<? super T> action) {
+        if (size <= 0)
+            return false;
+        final StoreTailer tailer = tailer();
+        boolean read = false;
+        try {
+            read = tailer.readBatch((index, bytes) -> action.accept(reader.apply(bytes)), 1) > 0;
+            if (read)
+                size--;
+        } finally {
+            if (!read || size == 0)
+                close();
+        }
+        return read;
+    }
+
+    @Override
+    public void forEachRemaining(@NotNull Consumer<? super T> action) {
+        if (size <= 0)
+            return;
+        final StoreTailer tailer = tailer();
+        try {
+            while (size > 0) {
+                final int read = tailer.readBatch((index, bytes) -> action.accept(reader.apply(bytes)),
+                        (int) Math.min(size, BATCH));
+                if (read == 0)
+                    break;
+                size -= read;
+            }
+        } finally {
+            close();
+        }
+    }
+
+    @Nullable
+    @Override
+    public Spliterator<T> trySplit() {
+        if (tailer != null || size < 2)
+            return null;
+        final long split = splitIndex();
+        if (split <= fromIndex || split >= toIndex)
+            return null;
+
+        final long prefixSize = queue.countExcerpts(fromIndex, split);
+        if (prefixSize <= 0 || prefixSize >= size)
+            return null;
+        final QueueSpliterator<T> prefix = new QueueSpliterator<>(queue, reader, fromIndex, split, prefixSize, openTailers);
+        fromIndex = split;
+        size -= prefixSize;
+        return prefix;
+    }
+
+    /**
+     * @return the start of the middle cycle of the range, or of the middle index block if the
+     * range is in one cycle.
+     */
+    private long splitIndex() {
+        final RollCycle rollCycle = queue.rollCycle();
+        final int fromCycle = rollCycle.toCycle(fromIndex);
+        final int toCycle = rollCycle.toCycle(toIndex);
+        if (fromCycle != toCycle) {
+            // the cycles after the first, one of which starts the second half.
+            final NavigableSet<Long> cycles = cycles(queue, fromCycle, toCycle)
+                    .subSet((long) fromCycle, false, (long) toCycle, rollCycle.toSequenceNumber(toIndex) > 0);
+            if (cycles.isEmpty())
+                return fromIndex;
+            final Long[] array = cycles.toArray(new Long[cycles.size()]);
+            return rollCycle.toIndex(array[(array.length - 1) / 2].intValue(), 0);
+        }
+
+        final long block = (long) queue.indexCount() * queue.indexSpacing();
+        final long fromSeq = rollCycle.toSequenceNumber(fromIndex);
+        final long toSeq = rollCycle.toSequenceNumber(toIndex);
+        long split = (fromSeq + toSeq) / 2 / block * block;
+        if (split <= fromSeq)
+            split += block;
+        return split >= toSeq ? fromIndex : rollCycle.toIndex(fromCycle, split);
+    }
+
+    @NotNull
+    private StoreTailer tailer() {
+        if (tailer == null) {
+            tailer = (StoreTailer) queue.createTailer();
+            openTailers.add(tailer);
+            if (!tailer.moveToIndex(fromIndex))
+                throw new IllegalStateException("Unable to move to " + Long.toHexString(fromIndex));
+        }
+        return tailer;
+    }
+
+    private void close() {
+        size = 0;
+        if (tailer != null) {
+            if (openTailers.remove(tailer))
+                tailer.releaseResources();
+            tailer = null;
+        }
+    }
+
+    /**
+     * Release the tailers of this and its splits which are still open.
+     */
+    void releaseTailers() {
+        for (StoreTailer tailer : openTailers) {
+            if (openTailers.remove(tailer))
+                tailer.releaseResources();
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.queue.impl.WireStorePool;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.text.ParseException;
+import java.util.NavigableSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the disk a queue uses in bounds by deleting its oldest cycles, or moving them to an
+ * archive directory, once they are older than {@code maxAge}, or the queue has more than {@code
+ * maxCycles} cycles or {@code maxBytes} of them. The cycle being appended to is always kept.
+ * <p>
+ * Cycles are retired oldest first, and never past one which is still needed: one acquired in
+ * this process, see {@link WireStorePool#ifNotAcquired}, or the cycle a named tailer, see {@link
+ * SingleChronicleQueue#createTailer(String)}, in any process, is to read next. Other tailers in
+ * other processes aren't known about; on Linux a file they have mapped stays readable once
+ * deleted. The directory listing's lowest cycle, and the cycles each process has cached, are
+ * updated as each cycle is retired.
+ * <p>
+ * {@link #retire()} can be called from a scheduler, or {@link #start(long, TimeUnit)} runs it on
+ * a thread of its own.
+ */
+public final class RetentionManager implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(RetentionManager.class);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final NamedTailerIndices tailerIndices;
+    private long maxAgeMS = Long.MAX_VALUE;
+    private long maxBytes = Long.MAX_VALUE;
+    private int maxCycles = Integer.MAX_VALUE;
+    @Nullable
+    private File archiveDir;
+    private boolean keepForNamedTailers = true;
+    @Nullable
+    private ScheduledExecutorService executor;
+
+    public RetentionManager(@NotNull SingleChronicleQueue queue) {
+        final TableStore metaStore = queue.metaStore();
+        if (metaStore == null)
+            throw new IllegalStateException("Cycles can't be retired from a read only queue");
+        this.queue = queue;
+        this.tailerIndices = new NamedTailerIndices(metaStore);
+    }
+
+    /**
+     * Retire a cycle once its file hasn't been written to for this long.
+     */
+    @NotNull
+    public RetentionManager maxAge(long maxAge, @NotNull TimeUnit unit) {
+        if (maxAge <= 0)
+            throw new IllegalArgumentException("maxAge must be positive, was " + maxAge);
+        this.maxAgeMS = unit.toMillis(maxAge);
+        return this;
+    }
+
+    /**
+     * Retire the oldest cycles while the files of the queue's cycles add up to more than this.
+     */
+    @NotNull
+    public RetentionManager maxBytes(long maxBytes) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("maxBytes must be positive, was " + maxBytes);
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * Retire the oldest cycles while the queue has more than this many.
+     */
+    @NotNull
+    public RetentionManager maxCycles(int maxCycles) {
+        if (maxCycles <= 0)
+            throw new IllegalArgumentException("maxCycles must be positive, was " + maxCycles);
+        this.maxCycles = maxCycles;
+        return this;
+    }
+
+    /**
+     * @param archiveDir to move retired cycles to, or null (default) to delete them
+     */
+    @NotNull
+    public RetentionManager archiveTo(@Nullable File archiveDir) {
+        if (archiveDir != null && !archiveDir.isDirectory() && !archiveDir.mkdirs())
+            throw new IllegalArgumentException("Unable to create the archive directory " + archiveDir);
+        this.archiveDir = archiveDir;
+        return this;
+    }
+
+    /**
+     * @param keepForNamedTailers leave true (default) to keep the cycles named tailers have still
+     *                            to read, including all of them for a named tailer which hasn't
+     *                            read anything, or false to retire them regardless
+     */
+    @NotNull
+    public RetentionManager keepForNamedTailers(boolean keepForNamedTailers) {
+        this.keepForNamedTailers = keepForNamedTailers;
+        return this;
+    }
+
+    /**
+     * Retire the cycles the limits call for.
+     *
+     * @return the number of cycles retired
+     */
+    public synchronized int retire() {
+        if (queue.isClosed())
+            return 0;
+        final int firstCycle = queue.firstCycle();
+        final int lastCycle = queue.lastCycleNotAhead();
+        if (firstCycle == Integer.MAX_VALUE || firstCycle >= lastCycle)
+            return 0;
+        final NavigableSet<Long> cycles;
+        try {
+            cycles = queue.listCyclesBetween(firstCycle, lastCycle);
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // the cycles from this one on are kept.
+        int keepFrom = lastCycle;
+        if (keepForNamedTailers) {
+            final long slowest = tailerIndices.slowest();
+            if (slowest == Long.MIN_VALUE)
+                return 0;
+            if (slowest != Long.MAX_VALUE)
+                keepFrom = Math.min(keepFrom, queue.rollCycle().toCycle(slowest));
+        }
+
+        long bytes = 0;
+        for (long cycle : cycles)
+            bytes += queue.cycleFile((int) cycle).length();
+        int count = cycles.size();
+        final long modifiedBefore = maxAgeMS == Long.MAX_VALUE ? Long.MIN_VALUE : System.currentTimeMillis() - maxAgeMS;
+
+        int retired = 0;
+        for (long c : cycles) {
+            final int cycle = (int) c;
+            if (cycle >= keepFrom)
+                break;
+            final File file = queue.cycleFile(cycle);
+            final long length = file.length();
+            if (count <= maxCycles && bytes <= maxBytes && file.lastModified() >= modifiedBefore)
+                break;
+            if (!queue.retireCycle(cycle, archiveDir))
+                break;
+            LOG.info("Retired {}{}", file, archiveDir == null ? "" : " to " + archiveDir);
+            count--;
+            bytes -= length;
+            retired++;
+        }
+        return retired;
+    }
+
+    /**
+     * Call {@link #retire()} every period, on a thread of its own, until closed.
+     */
+    @NotNull
+    public synchronized RetentionManager start(long period, @NotNull TimeUnit unit) {
+        if (executor != null)
+            throw new IllegalStateException("Already started");
+        executor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("retention-manager", true));
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                retire();
+            } catch (Exception e) {
+                LOG.warn("Unable to retire the cycles of {}", queue.file(), e);
+            }
+        }, 0, period, unit);
+        return this;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -25,7 +25,6 @@ import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.annotation.UsedViaReflection;
 import net.openhft.chronicle.core.io.Closeable;
-import net.openhft.chronicle.core.threads.ThreadLocalHelper;
 import net.openhft.chronicle.core.values.LongArrayValues;
 import net.openhft.chronicle.core.values.LongValue;
 import net.openhft.chronicle.queue.impl.ExcerptContext;
@@ -36,7 +35,6 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.EOFException;
 import java.io.StreamCorruptedException;
-import java.lang.ref.WeakReference;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
@@ -53,9 +51,15 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
     final LongValue nextEntryToBeIndexed;
     private final Supplier<LongArrayValues> longArraySupplier;
     @NotNull
-    private final ThreadLocal<WeakReference<LongArrayValuesHolder>> index2indexArray;
+    private final IndexArrayCache indexArrays;
+    // an array which isn't cached is read into, as the cache binds a copy to the chunk it is in.
     @NotNull
-    private final ThreadLocal<WeakReference<LongArrayValuesHolder>> indexArray;
+    private final ThreadLocal<LongArrayValues> readArray;
+    // never bound, returned while there is no index2index to wait for.
+    @NotNull
+    private final LongArrayValues noIndex2index;
+    @Nullable
+    private volatile LongArrayValues index2indexArray;
     @NotNull
     private final WriteMarshallable index2IndexTemplate;
     @NotNull
@@ -89,22 +93,13 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         this.index2Index = index2Index;
         this.nextEntryToBeIndexed = nextEntryToBeIndexed;
         this.longArraySupplier = longArraySupplier;
-        this.index2indexArray = new ThreadLocal<>();
-        this.indexArray = new ThreadLocal<>();
+        this.indexArrays = new IndexArrayCache(longArraySupplier, IndexArrayCache.MAX_ARRAYS);
+        this.readArray = ThreadLocal.withInitial(longArraySupplier);
+        this.noIndex2index = longArraySupplier.get();
         this.index2IndexTemplate = w -> w.writeEventName(() -> "index2index").int64array(indexCount);
         this.indexTemplate = w -> w.writeEventName(() -> "index").int64array(indexCount);
     }
 
-    @Nullable
-    private LongArrayValuesHolder getIndex2IndexArray() {
-        return ThreadLocalHelper.getTL(index2indexArray, longArraySupplier, las -> new LongArrayValuesHolder(las.get()));
-    }
-
-    @Nullable
-    private LongArrayValuesHolder getIndexArray() {
-        return ThreadLocalHelper.getTL(indexArray, longArraySupplier, las -> new LongArrayValuesHolder(las.get()));
-    }
-
     public long toAddress0(long index) {
         long siftedIndex = index >> (indexSpacingBits + indexCountBits);
         long mask = indexCount - 1L;
@@ -121,6 +116,13 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
 
     @Override
     public void close() {
+        index2indexArray = null;
+        indexArrays.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return indexArrays.isClosed();
     }
 
     @Override
@@ -192,13 +194,12 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
 
     @NotNull
     private LongArrayValues arrayForAddress(@NotNull Wire wire, long secondaryAddress) {
-        LongArrayValuesHolder holder = getIndexArray();
-        if (holder.address == secondaryAddress)
-            return holder.values;
-        holder.address = secondaryAddress;
+        LongArrayValues values = indexArrays.get(secondaryAddress);
+        if (values != null)
+            return values;
         wire.bytes().readPositionRemaining(secondaryAddress, 4); // to read the header.
         wire.readMetaDataHeader();
-        return array(wire, holder.values, false);
+        return indexArrays.put(secondaryAddress, array(wire, readArray.get(), false));
     }
 
     @NotNull
@@ -499,40 +500,26 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
                 // create the first index: eagerly.
                 getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, 0);
             }
-            Outer:
-            for (int index2 = used2 - 1; index2 >= 0; index2--) {
+            // the last secondary array to start at or before the position, though if that has
+            // holes up to the position an earlier one is needed.
+            for (int index2 = floorIndex2(recovery, ec, timeoutMS, index2indexArr, used2, position); index2 >= 0; index2--) {
                 long secondaryAddress = getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, index2);
                 if (secondaryAddress == 0)
                     continue;
 
                 LongArrayValues indexValues = arrayForAddress(ec.wireForIndex(), secondaryAddress);
-                // TODO use a binary rather than linear search
-
-                // check the first one to see if any in the index is appropriate.
                 int used = Maths.toUInt31(indexValues.getUsed());
                 assert used >= 0;
-                if (used == 0)
-                    continue;
-
-                long posN = indexValues.getVolatileValueAt(0);
-                assert posN >= 0;
-                if (posN > position)
+                int index1 = floorIndex(indexValues, used, position);
+                if (index1 < 0)
                     continue;
 
-                for (int index1 = used - 1; index1 >= 0; index1--) {
-                    long pos = indexValues.getVolatileValueAt(index1);
-                    // TODO pos shouldn't be 0, but holes in the index appear..
-                    if (pos == 0 || pos > position) {
-                        continue;
-                    }
-                    lastKnownAddress = pos;
-                    indexOfNext = ((long) index2 << (indexCountBits + indexSpacingBits)) + (index1 << indexSpacingBits);
-
-                    if (lastKnownAddress == position)
-                        return indexOfNext;
+                lastKnownAddress = indexValues.getVolatileValueAt(index1);
+                indexOfNext = ((long) index2 << (indexCountBits + indexSpacingBits)) + (index1 << indexSpacingBits);
 
-                    break Outer;
-                }
+                if (lastKnownAddress == position)
+                    return indexOfNext;
+                break;
             }
         } catch (EOFException | IllegalStateException e) {
             Jvm.debug().on(getClass(), "Attempt to find " + Long.toHexString(position), e);
@@ -544,13 +531,89 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         }
     }
 
+    /**
+     * Binary search for the last entry at or before a position. Positions only increase along
+     * the array, apart from the holes an index can have, which are zero.
+     *
+     * @return the highest index below used whose position is neither a hole nor after the
+     * position, or -1 if there isn't one.
+     */
+    static int floorIndex(@NotNull LongArrayValues values, int used, long position) {
+        int lo = 0, hi = used - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int probe = mid;
+            long pos = values.getVolatileValueAt(probe);
+            // step down over a hole
+            while (pos == 0 && probe > lo)
+                pos = values.getVolatileValueAt(--probe);
+
+            if (pos != 0 && pos <= position) {
+                found = probe;
+                lo = mid + 1;
+            } else if (pos == 0) {
+                lo = mid + 1;
+            } else {
+                hi = probe - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Binary search of the index2index for the last secondary array which starts at or before a
+     * position. Only the populated prefix is searched, as the last arrays may not have had their
+     * first entry written yet, and like {@link #floorIndex} it steps down over a hole.
+     *
+     * @return the index2 of that array, or -1 if there isn't one.
+     */
+    private int floorIndex2(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS,
+                            @NotNull LongArrayValues index2indexArr, int used2, long position)
+            throws EOFException, UnrecoverableTimeoutException, StreamCorruptedException {
+        int lo = 0, hi = used2 - 1, found = -1;
+        while (hi >= 0 && firstPosition(recovery, ec, timeoutMS, index2indexArr, hi) == 0)
+            hi--;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int probe = mid;
+            long first = firstPosition(recovery, ec, timeoutMS, index2indexArr, probe);
+            // step down over a hole
+            while (first == 0 && probe > lo)
+                first = firstPosition(recovery, ec, timeoutMS, index2indexArr, --probe);
+
+            if (first != 0 && first <= position) {
+                found = probe;
+                lo = mid + 1;
+            } else if (first == 0) {
+                lo = mid + 1;
+            } else {
+                hi = probe - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the position of the first entry of a secondary array, or 0 if it has none.
+     */
+    private long firstPosition(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS,
+                               @NotNull LongArrayValues index2indexArr, int index2)
+            throws EOFException, UnrecoverableTimeoutException, StreamCorruptedException {
+        long secondaryAddress = getSecondaryAddress(recovery, ec, timeoutMS, index2indexArr, index2);
+        if (secondaryAddress == 0)
+            return 0;
+        LongArrayValues indexValues = arrayForAddress(ec.wireForIndex(), secondaryAddress);
+        return indexValues.getUsed() > 0 ? indexValues.getVolatileValueAt(0) : 0;
+    }
+
     private LongArrayValues getIndex2index(@NotNull StoreRecovery recovery, @NotNull ExcerptContext ec, long timeoutMS) throws
             EOFException, UnrecoverableTimeoutException, StreamCorruptedException {
 
-        LongArrayValuesHolder holder = getIndex2IndexArray();
-        LongArrayValues values = holder.values;
-        if (((Byteable) values).bytesStore() != null || timeoutMS == 0)
+        LongArrayValues values = index2indexArray;
+        if (values != null)
             return values;
+        if (timeoutMS == 0)
+            return noIndex2index;
         final long indexToIndex0 = indexToIndex(recovery, ec, timeoutMS);
 
         Wire wire = ec.wireForIndex();
@@ -561,7 +624,11 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
                     continue;
                 }
 
-                return array(wire, values, true);
+                values = array(wire, longArraySupplier.get(), true);
+                LongArrayValues shared = indexArrays.share(values);
+                if (shared == null)
+                    return values;
+                return index2indexArray = shared;
             }
         }
     }
@@ -689,14 +756,4 @@ class SCQIndexing implements Demarshallable, WriteMarshallable, Closeable {
         indexCount, indexSpacing, index2Index,
         lastIndex // NOTE: the nextEntryToBeIndexed
     }
-
-    static class LongArrayValuesHolder {
-        final LongArrayValues values;
-        long address;
-
-        LongArrayValuesHolder(LongArrayValues values) {
-            this.values = values;
-            address = Long.MIN_VALUE;
-        }
-    }
 }
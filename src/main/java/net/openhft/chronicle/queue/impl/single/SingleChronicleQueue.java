@@ -17,6 +17,7 @@ package net.openhft.chronicle.queue.impl.single;
 
 import net.openhft.chronicle.bytes.Bytes;
 import net.openhft.chronicle.bytes.BytesRingBufferStats;
+import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.bytes.MappedBytes;
 import net.openhft.chronicle.core.Jvm;
 import net.openhft.chronicle.core.OS;
@@ -24,14 +25,21 @@ import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.threads.ThreadLocalHelper;
 import net.openhft.chronicle.core.time.TimeProvider;
 import net.openhft.chronicle.core.util.StringUtils;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.BackPressurePolicy;
+import net.openhft.chronicle.queue.BufferMode;
+import net.openhft.chronicle.queue.CommitListener;
 import net.openhft.chronicle.queue.CycleCalculator;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.MessageCompression;
 import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.queue.WaitStrategy;
 import net.openhft.chronicle.queue.impl.CommonStore;
 import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
 import net.openhft.chronicle.queue.impl.RollingResourcesCache;
+import net.openhft.chronicle.queue.impl.TableStore;
 import net.openhft.chronicle.queue.impl.WireStore;
 import net.openhft.chronicle.queue.impl.WireStorePool;
 import net.openhft.chronicle.queue.impl.WireStoreSupplier;
@@ -54,11 +62,13 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.text.ParseException;
 import java.util.Arrays;
 import java.util.Map;
@@ -72,24 +82,32 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static net.openhft.chronicle.queue.TailerDirection.NONE;
 import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreAppender;
 import static net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
 
 public class SingleChronicleQueue implements RollingChronicleQueue {
-
     public static final String SUFFIX = ".cq4";
+    static final String NAMED_TAILER_KEY_PREFIX = "tailer.index.";
+    static final String PART_BITS_KEY = "cycle.partBits";
+    // the index left for a removed named tailer, which holds nothing back.
+    static final long REMOVED_TAILER_INDEX = Long.MAX_VALUE;
     private static final boolean SHOULD_RELEASE_RESOURCES =
             Boolean.valueOf(System.getProperty("chronicle.queue.release.weakRef.resources",
                     Boolean.TRUE.toString()));
     private static final Logger LOG = LoggerFactory.getLogger(SingleChronicleQueue.class);
     private static final int FIRST_AND_LAST_RETRY_MAX = Integer.getInteger("cq.firstAndLastRetryMax", 8);
+    // the low bits of a cycle number which are the part of the period, when rolling on size.
+    private static final int PART_BITS = 8;
     protected final ThreadLocal<WeakReference<ExcerptAppender>> excerptAppenderThreadLocal = new ThreadLocal<>();
     protected final int sourceId;
     final Supplier<Pauser> pauserSupplier;
@@ -118,6 +136,9 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     private final BiFunction<RollingChronicleQueue, Wire, WireStore> storeFactory;
     private final StoreRecoveryFactory recoverySupplier;
     private final Map<Object, Consumer> closers = new WeakHashMap<>();
+    // saved before the closers, which close the meta data they are saved in.
+    // by the key of their index.
+    private final Map<StoreTailer, String> namedTailers = new WeakHashMap<>();
     private final boolean readOnly;
     @NotNull
     private final CycleCalculator cycleCalculator;
@@ -125,9 +146,45 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     private final Function<String, File> nameToFile;
     @NotNull
     private final DirectoryListing directoryListing;
+    @Nullable
+    private final TableStore metaStore;
+    // added to the meta data once an appender of this queue writes, or an exclusive appender asks for it.
+    @Nullable
+    private volatile WriterLease writerLease;
     @NotNull
     private final QueueLock queueLock;
     private final boolean progressOnContention;
+    private final boolean exclusiveWriter;
+    private final boolean backgroundIndexing;
+    private final boolean timeIndex;
+    private final long maxCycleBytes;
+    private final long maxCycleMessages;
+    private final int partBits;
+    // the last part of the current period rolled to, so the files of the period aren't probed on every append.
+    private volatile int lastPart = Integer.MIN_VALUE;
+    private final int recordSize;
+    private final int namedTailerUpdateInterval;
+    private final long maxTailerLagMessages;
+    private final long maxTailerLagBytes;
+    @NotNull
+    private final BackPressurePolicy backPressurePolicy;
+    @NotNull
+    private final WaitStrategy backPressureWaitStrategy;
+    private final int backPressureCheckInterval;
+    @Nullable
+    private final MessageCompression compression;
+    @Nullable
+    private final Supplier<BiConsumer<BytesStore, Bytes>> encodingSupplier;
+    @Nullable
+    private final Supplier<BiConsumer<BytesStore, Bytes>> decodingSupplier;
+    @NotNull
+    private final BufferMode writeBufferMode;
+    @NotNull
+    private final CommitNotifier commitNotifier;
+    @Nullable
+    private WriteBehindBuffer writeBehindBuffer;
+    @Nullable
+    private BackgroundIndexer backgroundIndexer;
     @NotNull
     private RollCycle rollCycle;
     @NotNull
@@ -144,7 +201,21 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         cycleCalculator = builder.cycleCalculator();
         epoch = builder.epoch();
         nameToFile = textToFile(builder);
-        assignRollCycleDependentFields();
+        maxCycleBytes = builder.maxCycleBytes();
+        maxCycleMessages = builder.maxCycleMessages();
+        final int limitPartBits = maxCycleBytes < Long.MAX_VALUE || maxCycleMessages < Long.MAX_VALUE ? PART_BITS : 0;
+        recordSize = builder.recordSize();
+        namedTailerUpdateInterval = builder.namedTailerUpdateInterval();
+        maxTailerLagMessages = builder.maxTailerLagMessages();
+        maxTailerLagBytes = builder.maxTailerLagBytes();
+        backPressurePolicy = builder.backPressurePolicy();
+        backPressureWaitStrategy = builder.backPressureWaitStrategy();
+        backPressureCheckInterval = builder.backPressureCheckInterval();
+        compression = builder.compression();
+        encodingSupplier = builder.encodingSupplier();
+        decodingSupplier = builder.decodingSupplier();
+        if (recordSize > 0 && encodingSupplier != null)
+            throw new IllegalArgumentException("Fixed size records can't be encoded, as their length would vary");
 
         pool = WireStorePool.withSupplier(new StoreSupplier(), builder.storeFileListener());
         isBuffered = builder.buffered();
@@ -158,16 +229,25 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         indexCount = builder.indexCount();
         indexSpacing = builder.indexSpacing();
         time = builder.timeProvider();
+        if (limitPartBits > 0)
+            checkPartsFitInIndex(limitPartBits);
         pauserSupplier = builder.pauserSupplier();
         // add a 10% random element to make it less likely threads will timeout at the same time.
         timeoutMS = (long) (builder.timeoutMS() * (1 + 0.2 * ThreadLocalRandom.current().nextFloat()));
         storeFactory = builder.storeFactory();
         if (readOnly) {
-            this.directoryListing = new FileSystemDirectoryListing(path, fileToCycleFunction());
+            this.metaStore = null;
         } else {
             final File listingPath = createDirectoryListingFile();
-            this.directoryListing = new TableDirectoryListing(SingleTableBuilder.
-                    binary(listingPath).readOnly(builder.readOnly()).build(),
+            this.metaStore = SingleTableBuilder.binary(listingPath).readOnly(builder.readOnly()).build();
+        }
+        // the names of the files depend on the part bits, so they are known before the files are listed.
+        partBits = savedPartBits(limitPartBits);
+        assignRollCycleDependentFields();
+        if (readOnly) {
+            this.directoryListing = new FileSystemDirectoryListing(path, fileToCycleFunction());
+        } else {
+            this.directoryListing = new TableDirectoryListing(metaStore,
                     path.toPath(), fileToCycleFunction(), builder.readOnly());
             directoryListing.init();
         }
@@ -191,6 +271,11 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         sourceId = builder.sourceId();
         recoverySupplier = builder.recoverySupplier();
         progressOnContention = builder.progressOnContention();
+        writeBufferMode = builder.writeBufferMode();
+        exclusiveWriter = builder.exclusiveWriter();
+        backgroundIndexing = builder.backgroundIndexing();
+        timeIndex = builder.timeIndex();
+        commitNotifier = new CommitNotifier(path.getName(), metaStore);
     }
 
     @Nullable
@@ -331,6 +416,39 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return deltaCheckpointInterval;
     }
 
+    @Override
+    public int recordSize() {
+        return recordSize;
+    }
+
+    @Nullable
+    @Override
+    public MessageCompression compression() {
+        return compression;
+    }
+
+    /**
+     * @param compression of the cycle being written to, which takes precedence.
+     * @return a new encoder for an appender, or null if the excerpts aren't encoded.
+     */
+    @Nullable
+    BiConsumer<BytesStore, Bytes> encoder(@Nullable MessageCompression compression) {
+        if (compression != null)
+            return compression.encoder();
+        return encodingSupplier == null ? null : encodingSupplier.get();
+    }
+
+    /**
+     * @param compression of the cycle being read, which takes precedence.
+     * @return a new decoder for a tailer, or null if the excerpts aren't encoded.
+     */
+    @Nullable
+    BiConsumer<BytesStore, Bytes> decoder(@Nullable MessageCompression compression) {
+        if (compression != null)
+            return compression.decoder();
+        return decodingSupplier == null ? null : decodingSupplier.get();
+    }
+
     /**
      * @return if we uses a ring buffer to buffer the appends, the Excerpts are written to the
      * Chronicle Queue using a background thread
@@ -344,11 +462,263 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return this.eventLoop;
     }
 
+    @NotNull
+    public BufferMode writeBufferMode() {
+        return writeBufferMode;
+    }
+
+    /**
+     * @return the table store holding the metadata of this queue, shared by all the processes
+     * using it, or null if the queue is read only.
+     */
+    @Nullable
+    public TableStore metaStore() {
+        return metaStore;
+    }
+
+    /**
+     * @return true if the appender holds a lease which stops any other appender writing to this
+     * queue.
+     */
+    public boolean exclusiveWriter() {
+        return exclusiveWriter;
+    }
+
+    /**
+     * @return the writer lease, if an appender of this queue has written or asked for it.
+     */
+    @Nullable
+    WriterLease writerLease() {
+        return writerLease;
+    }
+
+    /**
+     * @return the writer lease, added to the meta data the first time an appender of any
+     * process writes or asks for it.
+     */
+    @NotNull
+    synchronized WriterLease acquireWriterLease() {
+        WriterLease writerLease = this.writerLease;
+        if (writerLease == null) {
+            assert metaStore != null;
+            this.writerLease = writerLease = new WriterLease(metaStore, path);
+        }
+        return writerLease;
+    }
+
+    /**
+     * @return true if the appenders leave indexing to a background indexer.
+     */
+    public boolean backgroundIndexing() {
+        return backgroundIndexing;
+    }
+
+    /**
+     * @return true if the appenders record the time of each excerpt they index.
+     */
+    public boolean timeIndex() {
+        return timeIndex;
+    }
+
+    /**
+     * @return the number of bytes after which the appenders roll to a new file, before the end of
+     * the roll cycle's period.
+     */
+    public long maxCycleBytes() {
+        return maxCycleBytes;
+    }
+
+    /**
+     * @return the number of excerpts after which the appenders roll to a new file, before the end
+     * of the roll cycle's period.
+     */
+    public long maxCycleMessages() {
+        return maxCycleMessages;
+    }
+
+    /**
+     * @return true if the appenders are held back once they are too far ahead of the slowest named
+     * tailer.
+     */
+    public boolean backPressure() {
+        return maxTailerLagMessages < Long.MAX_VALUE || maxTailerLagBytes < Long.MAX_VALUE;
+    }
+
+    /**
+     * @return the number of excerpts an appender can get ahead of the slowest named tailer.
+     */
+    public long maxTailerLagMessages() {
+        return maxTailerLagMessages;
+    }
+
+    /**
+     * @return the number of bytes an appender can get ahead of the slowest named tailer.
+     */
+    public long maxTailerLagBytes() {
+        return maxTailerLagBytes;
+    }
+
+    @NotNull
+    public BackPressurePolicy backPressurePolicy() {
+        return backPressurePolicy;
+    }
+
+    @NotNull
+    public WaitStrategy backPressureWaitStrategy() {
+        return backPressureWaitStrategy;
+    }
+
+    public int backPressureCheckInterval() {
+        return backPressureCheckInterval;
+    }
+
+    /**
+     * @return true if a cycle's file has reached the limits for rolling on size, and there is a
+     * part of its period left to roll to.
+     */
+    boolean isCycleFull(int cycle, long writePosition, long messages) {
+        return partBits > 0
+                && (writePosition >= maxCycleBytes || messages >= maxCycleMessages)
+                && period(cycle + 1) == period(cycle);
+    }
+
+    /**
+     * @return the period of the roll cycle a cycle is in, which is the cycle itself unless the
+     * queue rolls on size.
+     */
+    int period(int cycle) {
+        return cycle >> partBits;
+    }
+
+    /**
+     * @return the cycle of the first file of a period of the roll cycle.
+     */
+    int firstPart(int period) {
+        return period << partBits;
+    }
+
+    /**
+     * The part bits are kept with the queue, so it can be read without the limits it was written
+     * with, and opening it with limits it wasn't written with, or without those it was, is rejected.
+     *
+     * @return the part bits of the queue, or those of the limits of the builder for a new queue
+     */
+    private int savedPartBits(int limitPartBits) {
+        final long saved;
+        if (metaStore == null) {
+            saved = readPartBits();
+            if (saved == Long.MIN_VALUE)
+                return limitPartBits;
+        } else {
+            saved = metaStore.doWithExclusiveLock(ts -> {
+                final LongValue bits = ts.acquireValueFor(PART_BITS_KEY);
+                // a queue written before the part bits were kept has one file a period.
+                bits.compareAndSwapValue(Long.MIN_VALUE, hasQueueFiles() ? 0 : limitPartBits);
+                return bits.getVolatileValue();
+            });
+        }
+        if (limitPartBits > 0 && saved != limitPartBits) {
+            if (metaStore != null)
+                metaStore.close();
+            throw new IllegalStateException(path + " doesn't roll on size, so can't be opened with " +
+                    "maxCycleBytes or maxCycleMessages, as the cycles of its files would move");
+        }
+        return (int) saved;
+    }
+
+    /**
+     * @return the part bits of a queue opened read only, without adding them to its meta data, or
+     * Long.MIN_VALUE if they aren't there.
+     */
+    private long readPartBits() {
+        final File listingPath = "".equals(path.getPath())
+                ? new File(DirectoryListing.DIRECTORY_LISTING_FILE)
+                : new File(path, DirectoryListing.DIRECTORY_LISTING_FILE);
+        if (!listingPath.exists())
+            return Long.MIN_VALUE;
+        final TableStore tableStore = SingleTableBuilder.binary(listingPath).readOnly(true).build();
+        try {
+            final boolean[] found = {false};
+            tableStore.forEachKey(key -> found[0] |= StringUtils.isEqual(key, PART_BITS_KEY));
+            return found[0] ? tableStore.acquireValueFor(PART_BITS_KEY).getVolatileValue() : Long.MIN_VALUE;
+        } finally {
+            tableStore.close();
+        }
+    }
+
+    private boolean hasQueueFiles() {
+        final String[] files = path.list((dir, name) -> name.endsWith(SUFFIX));
+        return files != null && files.length > 0;
+    }
+
+    private void checkPartsFitInIndex(int partBits) {
+        long lastPart = ((long) cycleCalculator.currentCycle(rollCycle, time, epoch) << partBits)
+                | ((1 << partBits) - 1);
+        if (lastPart > Integer.MAX_VALUE || rollCycle.toCycle(rollCycle.toIndex((int) lastPart, 0)) != lastPart)
+            throw new IllegalArgumentException("Unable to roll on size with " + rollCycle +
+                    ", the cycle numbers of " + (1 << partBits) + " files a period don't fit in its indices. " +
+                    "Use a roll cycle with longer periods, or a later epoch");
+    }
+
+    @NotNull
+    File timeIndexFile(int cycle) {
+        return TimeIndex.fileFor(dateCache.resourceFor(cycle).path);
+    }
+
+    @NotNull
+    File cycleFile(int cycle) {
+        return dateCache.resourceFor(cycle).path;
+    }
+
+    /**
+     * Delete the file of the cycle, and its time index, or move them to the archive directory,
+     * unless the cycle is acquired in this process. The directory listing is updated so every
+     * process sees the cycle has gone.
+     *
+     * @param archiveDir to move the files to, or null to delete them
+     * @return true if the cycle has been retired
+     */
+    boolean retireCycle(int cycle, @Nullable File archiveDir) {
+        final File file = cycleFile(cycle);
+        return pool.ifNotAcquired(cycle, () -> {
+            try {
+                for (File f : new File[]{file, timeIndexFile(cycle)}) {
+                    if (archiveDir == null)
+                        Files.deleteIfExists(f.toPath());
+                    else if (f.exists())
+                        Files.move(f.toPath(), new File(archiveDir, f.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to retire " + file, e);
+            }
+            directoryListing.onFileDeleted(file, cycle);
+            return true;
+        });
+    }
+
     @NotNull
     protected ExcerptAppender newAppender() {
+        if (backgroundIndexing)
+            backgroundIndexer();
+        if (writeBufferMode == BufferMode.Asynchronous)
+            return new WriteBehindAppender(this, writeBehindBuffer());
         return new StoreAppender(this, progressOnContention);
     }
 
+    @NotNull
+    synchronized WriteBehindBuffer writeBehindBuffer() {
+        if (writeBehindBuffer == null)
+            writeBehindBuffer = new WriteBehindBuffer(this);
+        return writeBehindBuffer;
+    }
+
+    @NotNull
+    synchronized BackgroundIndexer backgroundIndexer() {
+        if (backgroundIndexer == null)
+            backgroundIndexer = new BackgroundIndexer(this);
+        return backgroundIndexer;
+    }
+
     @NotNull
     @Override
     public ExcerptAppender acquireAppender() {
@@ -386,6 +756,56 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return storeTailer.toStart();
     }
 
+    /**
+     * The index of a named tailer is kept in the queue's meta data {@link TableStore}, under
+     * {@value #NAMED_TAILER_KEY_PREFIX} and its name. It is the index of the next excerpt to read,
+     * written with an ordered write, so restarting from it reads on from the last excerpt read.
+     * An index in a cycle which has since been deleted starts the tailer at the start. A removed
+     * name is left with an index of Long.MAX_VALUE, as keys can't be removed from the store,
+     * which is after any other and so holds nothing back.
+     */
+    @NotNull
+    @Override
+    public ExcerptTailer createTailer(@NotNull String name) {
+        if (metaStore == null)
+            throw new IllegalStateException("The index of a named tailer is saved in the queue, which can't be written to by a read only queue");
+        final LongValue indexValue = metaStore.doWithExclusiveLock(ts -> ts.acquireValueFor(NAMED_TAILER_KEY_PREFIX + name));
+        final StoreTailer tailer = (StoreTailer) createTailer();
+        final long index = indexValue.getVolatileValue();
+        if (index != Long.MIN_VALUE && index != REMOVED_TAILER_INDEX
+                && tailer.moveToIndexResult(index) == ScanResult.NOT_REACHED)
+            tailer.toStart();
+        tailer.indexValue(indexValue, namedTailerUpdateInterval);
+        synchronized (namedTailers) {
+            namedTailers.put(tailer, NAMED_TAILER_KEY_PREFIX + name);
+        }
+        return tailer;
+    }
+
+    @Override
+    public boolean removeNamedTailer(@NotNull String name) {
+        if (metaStore == null)
+            throw new IllegalStateException("The index of a named tailer is saved in the queue, which can't be written to by a read only queue");
+        final String key = NAMED_TAILER_KEY_PREFIX + name;
+        synchronized (namedTailers) {
+            namedTailers.entrySet().removeIf(e -> {
+                if (!StringUtils.equalsCaseIgnore(e.getValue(), key))
+                    return false;
+                e.getKey().removeIndexValue();
+                return true;
+            });
+        }
+        return metaStore.doWithExclusiveLock(ts -> {
+            // looked for first, as acquiring the value of a key adds it.
+            final boolean[] found = {false};
+            ts.forEachKey(k -> found[0] |= StringUtils.equalsCaseIgnore(k, key));
+            if (!found[0])
+                return false;
+            ts.acquireValueFor(key).setOrderedValue(REMOVED_TAILER_INDEX);
+            return true;
+        });
+    }
+
     @Nullable
     @Override
     public final WireStore storeForCycle(int cycle, final long epoch, boolean createIfAbsent) {
@@ -397,6 +817,14 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return pool.nextCycle(cycle, direction);
     }
 
+    @NotNull
+    @Override
+    public <T> Stream<T> stream(long fromIndex, long toIndex, @NotNull Function<Bytes<?>, T> reader) {
+        final QueueSpliterator<T> spliterator = QueueSpliterator.of(this, reader, fromIndex, toIndex);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(spliterator::releaseTailers);
+    }
+
     public long exceptsPerCycle(int cycle) {
         StoreTailer tailer = acquireTailer();
         try {
@@ -518,11 +946,32 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     public void close() {
         if (isClosed.getAndSet(true))
             return;
+        // write out anything still buffered before the appenders are closed.
+        synchronized (this) {
+            if (writeBehindBuffer != null)
+                writeBehindBuffer.close();
+            if (backgroundIndexer != null)
+                backgroundIndexer.close();
+        }
+        commitNotifier.close();
+        // before the closers, as one of them closes the meta store.
+        WriterLease writerLease = this.writerLease;
+        if (writerLease != null)
+            writerLease.close();
+        synchronized (namedTailers) {
+            namedTailers.keySet().forEach(StoreTailer::closeIndexValue);
+            namedTailers.clear();
+        }
         synchronized (closers) {
             closers.forEach((k, v) -> v.accept(k));
             closers.clear();
         }
         this.pool.close();
+        // once everything is closed, as the excerpts which couldn't be written were dropped.
+        synchronized (this) {
+            if (writeBehindBuffer != null)
+                writeBehindBuffer.throwIfFailed();
+        }
     }
 
     @Override
@@ -533,7 +982,28 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
 
     @Override
     public final int cycle() {
-        return cycleCalculator.currentCycle(rollCycle, time, epoch);
+        int cycle = cycleCalculator.currentCycle(rollCycle, time, epoch);
+        return partBits == 0 ? cycle : lastCreatedPart(firstPart(cycle));
+    }
+
+    /**
+     * @return the last file of the period which has been created, or the first if none has.
+     */
+    private int lastCreatedPart(int firstPart) {
+        int maxCreated = directoryListing.getMaxCreatedCycle();
+        int firstOfNextPeriod = firstPart(period(firstPart) + 1);
+        if (maxCreated < firstOfNextPeriod)
+            return Math.max(firstPart, maxCreated);
+        // the next period has been created ahead of the roll, e.g. by the Pretoucher, so the files
+        // of this period are only probed until an appender has rolled to one of them.
+        int part = lastPart;
+        if (period(part) == period(firstPart))
+            return part;
+        part = firstPart;
+        while (part + 1 < firstOfNextPeriod && dateCache.resourceFor(part + 1).path.exists())
+            part++;
+        lastPart = part;
+        return part;
     }
 
     @Override
@@ -614,6 +1084,8 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
      * @param cycle the cycle the appender has rolled to
      */
     void onRoll(int cycle) {
+        if (partBits > 0 && lastPart < cycle)
+            lastPart = cycle;
         if (lastCycle < cycle)
             lastCycle = cycle;
         if (firstCycle > cycle)
@@ -626,6 +1098,23 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         return lastCycle;
     }
 
+    /**
+     * @return the last cycle, but not the first of the next period if it has been created ahead of
+     * the roll, e.g. by the {@link Pretoucher}, as nothing can have been written to it yet, or
+     * Integer.MIN_VALUE if there is no other.
+     */
+    int lastCycleNotAhead() {
+        final int lastCycle = lastCycle();
+        if (lastCycle != firstPart(cycleCalculator.currentCycle(rollCycle, time, epoch) + 1))
+            return lastCycle;
+        try {
+            final int previous = nextCycle(lastCycle, TailerDirection.BACKWARD);
+            return previous == -1 ? Integer.MIN_VALUE : previous;
+        } catch (ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @NotNull
     public Consumer<BytesRingBufferStats> onRingBufferStats() {
         return this.onRingBufferStats;
@@ -706,7 +1195,7 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
     }
 
     private void assignRollCycleDependentFields() {
-        dateCache = new RollingResourcesCache(this.rollCycle, epoch, nameToFile,
+        dateCache = new RollingResourcesCache(this.rollCycle, partBits, epoch, nameToFile,
                 fileToText());
     }
 
@@ -718,6 +1207,37 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
         };
     }
 
+    /**
+     * Call the listener each time an appender of this queue, in this process, commits an excerpt,
+     * on the appending thread.
+     */
+    public void addCommitListener(@NotNull CommitListener listener) {
+        addCommitListener(listener, false);
+    }
+
+    /**
+     * Call the listener each time an appender of this queue, in this process, commits an excerpt.
+     *
+     * @param async true to call it on a thread of the queue's, rather than the appending thread,
+     *              so a slow listener doesn't hold up the appender. Asynchronous listeners are
+     *              called in the order of the commits.
+     */
+    public void addCommitListener(@NotNull CommitListener listener, boolean async) {
+        commitNotifier.addListener(listener, async);
+    }
+
+    /**
+     * @return true if the listener had been added
+     */
+    public boolean removeCommitListener(@NotNull CommitListener listener) {
+        return commitNotifier.removeListener(listener);
+    }
+
+    @NotNull
+    CommitNotifier commitNotifier() {
+        return commitNotifier;
+    }
+
     void removeCloseListener(final StoreTailer storeTailer) {
         synchronized (closers) {
             closers.remove(storeTailer);
@@ -766,6 +1286,11 @@ public class SingleChronicleQueue implements RollingChronicleQueue {
                 }
 
                 final MappedBytes mappedBytes = mappedBytes(path);
+                if (mappedBytes.readVolatileInt(0) == CycleCompactor.MAGIC) {
+                    mappedBytes.release();
+                    throw new IllegalStateException(path + " has been compacted, " +
+                            "restore it with CycleCompactor.inflate to read it");
+                }
                 directoryListing.onFileCreated(path, cycle);
                 queuePathExists = true;
                 AbstractWire wire = (AbstractWire) wireType.apply(mappedBytes);
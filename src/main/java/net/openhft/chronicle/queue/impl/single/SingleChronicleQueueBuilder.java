@@ -16,12 +16,16 @@
 package net.openhft.chronicle.queue.impl.single;
 
 import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesRingBufferStats;
 import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.bytes.MappedBytes;
 import net.openhft.chronicle.core.threads.EventLoop;
 import net.openhft.chronicle.core.time.TimeProvider;
+import net.openhft.chronicle.queue.BackPressurePolicy;
 import net.openhft.chronicle.queue.BufferMode;
+import net.openhft.chronicle.queue.MessageCompression;
 import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.WaitStrategy;
 import net.openhft.chronicle.queue.impl.AbstractChronicleQueueBuilder;
 import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
 import net.openhft.chronicle.queue.impl.StoreFileListener;
@@ -39,6 +43,7 @@ import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static net.openhft.chronicle.core.pool.ClassAliasPool.CLASS_ALIASES;
@@ -61,6 +66,13 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SingleChronicleQueueBuilder.class);
 
+    @Nullable
+    private Supplier<BiConsumer<BytesStore, Bytes>> encodingSupplier;
+    @Nullable
+    private Supplier<BiConsumer<BytesStore, Bytes>> decodingSupplier;
+    @Nullable
+    private MessageCompression compression;
+
     @SuppressWarnings("unchecked")
     @Deprecated
     public SingleChronicleQueueBuilder(@NotNull String path) {
@@ -150,7 +162,9 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
                 queue.indexCount(),
                 queue.indexSpacing(),
                 queue.recoverySupplier().apply(queue.wireType()),
-                queue.deltaCheckpointInterval());
+                queue.deltaCheckpointInterval(),
+                queue.recordSize(),
+                queue.compression());
 
         wire.writeEventName(MetaDataKeys.header).typedMarshallable(wireStore);
 
@@ -180,9 +194,6 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
     @Override
     @NotNull
     public SingleChronicleQueue build() {
-        if (buffered())
-            onlyAvailableInEnterprise("Buffering");
-
         super.preBuild();
 
         return new SingleChronicleQueue(this);
@@ -208,12 +219,34 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
 
     @Nullable
     public Supplier<BiConsumer<BytesStore, Bytes>> encodingSupplier() {
-        return null;
+        return encodingSupplier;
     }
 
     @Nullable
     public Supplier<BiConsumer<BytesStore, Bytes>> decodingSupplier() {
-        return null;
+        return decodingSupplier;
+    }
+
+    @Nullable
+    public MessageCompression compression() {
+        return compression;
+    }
+
+    /**
+     * Compress each excerpt written to the cycles created. The compression is saved in the header
+     * of each cycle, so tailers of the queue uncompress without being told.
+     *
+     * @param compression leave as null (default) for excerpts which aren't compressed
+     * @return this
+     */
+    @NotNull
+    public SingleChronicleQueueBuilder<S> compression(@Nullable MessageCompression compression) {
+        if (compression == null)
+            codingSuppliers(null, null);
+        else
+            codingSuppliers(compression::encoder, compression::decoder);
+        this.compression = compression;
+        return this;
     }
 
     @NotNull
@@ -226,11 +259,20 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
         return this;
     }
 
+    /**
+     * Encode each excerpt written with an encoder from the first supplier, and decode each read
+     * with a decoder from the second. Each appender and tailer gets its own. Unlike a {@link
+     * #compression(MessageCompression)}, this isn't saved in the cycles, so every queue which
+     * reads them has to be built with the same decoding.
+     *
+     * @return this
+     */
     @NotNull
     public SingleChronicleQueueBuilder codingSuppliers(@Nullable Supplier<BiConsumer<BytesStore, Bytes>> encodingSupplier,
                                                        @Nullable Supplier<BiConsumer<BytesStore, Bytes>> decodingSupplier) {
-        if (encodingSupplier != null || decodingSupplier != null)
-            onlyAvailableInEnterprise("Custom encoding");
+        this.encodingSupplier = encodingSupplier;
+        this.decodingSupplier = decodingSupplier;
+        this.compression = null;
         return this;
     }
 
@@ -298,6 +340,12 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
         return super.eventLoop(eventLoop);
     }
 
+    @NotNull
+    @Override
+    public SingleChronicleQueueBuilder<S> onRingBufferStats(@NotNull Consumer<BytesRingBufferStats> onRingBufferStats) {
+        return super.onRingBufferStats(onRingBufferStats);
+    }
+
     @Override
     public SingleChronicleQueueBuilder<S> indexCount(int indexCount) {
         return super.indexCount(indexCount);
@@ -351,6 +399,66 @@ public class SingleChronicleQueueBuilder<S extends SingleChronicleQueueBuilder>
         return super.progressOnContention(progressOnContention);
     }
 
+    @Override
+    public SingleChronicleQueueBuilder<S> exclusiveWriter(boolean exclusiveWriter) {
+        return super.exclusiveWriter(exclusiveWriter);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> backgroundIndexing(boolean backgroundIndexing) {
+        return super.backgroundIndexing(backgroundIndexing);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> timeIndex(boolean timeIndex) {
+        return super.timeIndex(timeIndex);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> maxCycleBytes(long maxCycleBytes) {
+        return super.maxCycleBytes(maxCycleBytes);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> maxCycleMessages(long maxCycleMessages) {
+        return super.maxCycleMessages(maxCycleMessages);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> recordSize(int recordSize) {
+        return super.recordSize(recordSize);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> namedTailerUpdateInterval(int namedTailerUpdateInterval) {
+        return super.namedTailerUpdateInterval(namedTailerUpdateInterval);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> maxTailerLagMessages(long maxTailerLagMessages) {
+        return super.maxTailerLagMessages(maxTailerLagMessages);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> maxTailerLagBytes(long maxTailerLagBytes) {
+        return super.maxTailerLagBytes(maxTailerLagBytes);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> backPressurePolicy(@NotNull BackPressurePolicy backPressurePolicy) {
+        return super.backPressurePolicy(backPressurePolicy);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> backPressureWaitStrategy(@NotNull WaitStrategy backPressureWaitStrategy) {
+        return super.backPressureWaitStrategy(backPressureWaitStrategy);
+    }
+
+    @Override
+    public SingleChronicleQueueBuilder<S> backPressureCheckInterval(int backPressureCheckInterval) {
+        return super.backPressureCheckInterval(backPressureCheckInterval);
+    }
+
     protected QueueLock queueLock() {
         return isQueueReplicationAvailable() && !readOnly() ? createTableStoreLock() : new NoopQueueLock();
     }
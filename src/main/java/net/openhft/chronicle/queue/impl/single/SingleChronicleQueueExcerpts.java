@@ -26,16 +26,24 @@ import net.openhft.chronicle.core.Maths;
 import net.openhft.chronicle.core.annotation.UsedViaReflection;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.core.util.StringUtils;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.BatchConsumer;
+import net.openhft.chronicle.queue.BatchDocumentContext;
+import net.openhft.chronicle.queue.BufferMode;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.MessageCompression;
 import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.queue.TailerDirection;
 import net.openhft.chronicle.queue.TailerState;
+import net.openhft.chronicle.queue.WaitStrategies;
+import net.openhft.chronicle.queue.WaitStrategy;
 import net.openhft.chronicle.queue.impl.CommonStore;
 import net.openhft.chronicle.queue.impl.ExcerptContext;
 import net.openhft.chronicle.queue.impl.RollingChronicleQueue;
 import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.threads.Pauser;
 import net.openhft.chronicle.wire.AbstractWire;
 import net.openhft.chronicle.wire.BinaryReadDocumentContext;
 import net.openhft.chronicle.wire.DocumentContext;
@@ -58,8 +66,11 @@ import java.io.IOException;
 import java.io.StreamCorruptedException;
 import java.nio.BufferOverflowException;
 import java.text.ParseException;
+import java.util.Arrays;
+import java.util.NavigableSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 import static net.openhft.chronicle.queue.TailerDirection.BACKWARD;
 import static net.openhft.chronicle.queue.TailerDirection.FORWARD;
@@ -99,6 +110,8 @@ public class SingleChronicleQueueExcerpts {
         private final SingleChronicleQueue queue;
         @NotNull
         private final StoreAppenderContext context;
+        @NotNull
+        private final StoreAppenderBatchContext batchContext;
         private final ClosableResources closableResources;
         @NotNull
         private final HeaderWriteStrategy headerWriteStrategy;
@@ -118,18 +131,54 @@ public class SingleChronicleQueueExcerpts {
         private boolean lazyIndexing = false;
         private long lastPosition;
         private int lastCycle;
+        // with lazy indexing, the excerpts counted in the cycle, up to the position.
+        private int countedCycle = Integer.MIN_VALUE;
+        private long countedPosition;
+        private long countedMessages;
         @Nullable
         private PretoucherState pretoucher = null;
         private Padding padToCacheLines = Padding.SMART;
+        // the length of the space claimed, or -1 if there is no claim.
+        private int claimedLength = -1;
+        // holds the writer lease, so headers and the write position don't need to be contended for.
+        private final boolean exclusive;
+        // mapped on the first write, then read on every write.
+        @Nullable
+        private WriterLease writerLease;
+        @Nullable
+        private TimeIndex timeIndex;
+        // the store if its excerpts are fixed size records, which are claimed rather than contended for.
+        @Nullable
+        private SingleChronicleQueueStore recordStore;
+        private final HeaderWriteStrategy recordWriteStrategy = new HeaderWriteStrategyOriginal();
+        // encodes the excerpts written to the store, if they are compressed.
+        @Nullable
+        private BiConsumer<BytesStore, Bytes> encoder;
+        @Nullable
+        private MessageCompression encoderCompression;
+        private final HeaderWriteStrategy encodeWriteStrategy = new HeaderWriteStrategyEncode();
+        // holds the appender back from the slowest named tailer, or null.
+        @Nullable
+        private final BackPressure backPressure;
+        // a dropped excerpt is written to a buffer which is thrown away on close.
+        private final HeaderWriteStrategy dropWriteStrategy = new HeaderWriteStrategyCopy();
 
         StoreAppender(@NotNull SingleChronicleQueue queue, boolean progressOnContention) {
             this.queue = queue;
+            exclusive = queue.exclusiveWriter();
+            if (exclusive)
+                queue.acquireWriterLease().acquire(this, queue.timeoutMS);
             queue.addCloseListener(this, StoreAppender::close);
             context = new StoreAppenderContext();
+            batchContext = new StoreAppenderBatchContext();
 
             closableResources = new ClosableResources(queue);
             queue.ensureThatRollCycleDoesNotConflictWithExistingQueueFiles();
-            headerWriteStrategy = progressOnContention ? new HeaderWriteStrategyDefer() : new HeaderWriteStrategyOriginal();
+            backPressure = queue.backPressure() ? new BackPressure(queue) : null;
+            // an exclusive writer never finds the header contended, so has nothing to defer.
+            headerWriteStrategy = progressOnContention && !exclusive ? new HeaderWriteStrategyDefer()
+                    : queue.writeBufferMode() == BufferMode.Copy ? new HeaderWriteStrategyCopy()
+                    : new HeaderWriteStrategyOriginal();
         }
 
         @Override
@@ -175,6 +224,11 @@ public class SingleChronicleQueueExcerpts {
         }
 
         void close() {
+            if (exclusive) {
+                WriterLease writerLease = queue.writerLease();
+                if (writerLease != null)
+                    writerLease.release(this);
+            }
             Wire w0 = wireForIndex;
             wireForIndex = null;
             if (w0 != null)
@@ -189,6 +243,12 @@ public class SingleChronicleQueueExcerpts {
                 bufferWire.bytes().release();
                 bufferWire = null;
             }
+            if (timeIndex != null) {
+                timeIndex.close();
+                timeIndex = null;
+            }
+            if (backPressure != null)
+                backPressure.close();
             store = null;
         }
 
@@ -223,6 +283,14 @@ public class SingleChronicleQueueExcerpts {
             this.lastIndex = index;
         }
 
+        /**
+         * Tell the queue's commit listeners, and wake its waiting tailers, once an excerpt can be
+         * read.
+         */
+        private void committed(long index, long position) {
+            queue.commitNotifier().onCommit(index, position);
+        }
+
         @NotNull
         @Override
         public ExcerptAppender lazyIndexing(boolean lazyIndexing) {
@@ -262,6 +330,9 @@ public class SingleChronicleQueueExcerpts {
 
             this.store = queue.storeForCycle(cycle, queue.epoch(), createIfAbsent);
             closableResources.storeReference = store;
+            recordStore = store instanceof SingleChronicleQueueStore
+                    && ((SingleChronicleQueueStore) store).recordSize() > 0 ? (SingleChronicleQueueStore) store : null;
+            resetEncoder();
             resetWires(queue);
 
             // only set the cycle after the wire is set.
@@ -277,6 +348,19 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
+        /**
+         * The store's compression takes precedence, and its encoder is kept while the stores
+         * rolled to have the same one.
+         */
+        private void resetEncoder() {
+            MessageCompression compression = store instanceof SingleChronicleQueueStore
+                    ? ((SingleChronicleQueueStore) store).compression() : null;
+            if (encoder == null || compression != encoderCompression) {
+                encoder = queue.encoder(compression);
+                encoderCompression = compression;
+            }
+        }
+
         private void resetWires(@NotNull SingleChronicleQueue queue) {
             WireType wireType = queue.wireType();
             {
@@ -305,6 +389,10 @@ public class SingleChronicleQueueExcerpts {
 
                 if (store == null || wire == null)
                     return;
+                if (recordStore != null) {
+                    resetRecordPosition(recordStore);
+                    return;
+                }
                 position(store.writePosition());
 
                 Bytes<?> bytes = wire.bytes();
@@ -329,6 +417,19 @@ public class SingleChronicleQueueExcerpts {
             assert checkWritePositionHeaderNumber();
         }
 
+        /**
+         * The position of a store of fixed size records is the next record to be claimed, rather
+         * than the last one written.
+         */
+        private void resetRecordPosition(@NotNull SingleChronicleQueueStore recordStore) throws EOFException {
+            Bytes<?> bytes = wire.bytes();
+            long next = recordStore.nextRecord(bytes);
+            bytes.writeLimit(bytes.capacity());
+            bytes.writePosition(next);
+            position(next);
+            wire.headerNumber(queue.rollCycle().toIndex(cycle, recordStore.recordForPosition(bytes, next)) - 1);
+        }
+
         @NotNull
         @Override
         public DocumentContext writingDocument(boolean metaData) throws UnrecoverableTimeoutException {
@@ -338,7 +439,14 @@ public class SingleChronicleQueueExcerpts {
                 throw new IllegalStateException("Queue is closed");
             boolean ok = false;
             try {
-                int cycle = queue.cycle();
+                checkWriterLease();
+                if (backPressure != null && !metaData && !backPressure.beforeAppend()) {
+                    context.strategy = dropWriteStrategy;
+                    ok = dropWriteStrategy.onContextOpen(false, 0);
+                    context.rollbackOnClose();
+                    return context;
+                }
+                int cycle = appendCycle();
 
                 if (wire == null)
                     setCycle2(cycle, true);
@@ -347,7 +455,21 @@ public class SingleChronicleQueueExcerpts {
                         rollCycleTo(cycle);
 
                 int safeLength = (int) queue.overlapSize();
-                ok = headerWriteStrategy.onContextOpen(metaData, safeLength);
+                if (recordStore != null) {
+                    if (metaData)
+                        throw new IllegalStateException("Meta data can't be written to a queue of fixed size records");
+                    context.strategy = recordWriteStrategy;
+                    ok = recordWriteStrategy.onContextOpen(false, safeLength);
+                    // padding would run past the record.
+                    context.padToCacheAlign = false;
+                } else {
+                    // only the data is encoded.
+                    context.strategy = encoder != null && !metaData ? encodeWriteStrategy : headerWriteStrategy;
+                    ok = context.strategy.onContextOpen(metaData, safeLength);
+                    // padding would be decoded with the excerpt.
+                    if (context.strategy == encodeWriteStrategy)
+                        context.padToCacheAlign = false;
+                }
                 return context;
 
             } finally {
@@ -355,6 +477,46 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
+        /**
+         * @return the queue's current cycle, or the next part of it if this appender is on it and
+         * its file has reached the queue's limits for rolling on size.
+         */
+        private int appendCycle() {
+            int cycle = queue.cycle();
+            if (cycle == this.cycle && wire != null) {
+                long messages = queue.maxCycleMessages() == Long.MAX_VALUE ? 0 : messagesInCycle();
+                if (queue.isCycleFull(cycle, store.writePosition(), messages))
+                    return cycle + 1;
+            }
+            return cycle;
+        }
+
+        /**
+         * @return the number of excerpts in the cycle, by any appender. With lazy indexing the
+         * header number isn't known, so the excerpts are counted from the headers, on from where
+         * this appender counted up to last time.
+         */
+        private long messagesInCycle() {
+            long headerNumber = wire.headerNumber();
+            if (headerNumber != Long.MIN_VALUE)
+                return queue.rollCycle().toSequenceNumber(headerNumber + 1);
+            if (countedCycle != cycle) {
+                countedCycle = cycle;
+                countedPosition = 0;
+                countedMessages = 0;
+            }
+            Bytes<?> bytes = wire.bytes();
+            while (countedPosition + 4 <= bytes.capacity()) {
+                int header = bytes.readVolatileInt(countedPosition);
+                if (header == 0 || Wires.isNotComplete(header) || Wires.isEndOfFile(header))
+                    break;
+                if (Wires.isReadyData(header))
+                    countedMessages++;
+                countedPosition += Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+            }
+            return countedMessages;
+        }
+
         private int handleRoll(int cycle) {
             assert !((AbstractWire) wire).isInsideHeader();
             int qCycle = queue.cycle();
@@ -381,6 +543,8 @@ public class SingleChronicleQueueExcerpts {
 
         boolean checkWritePositionHeaderNumber() {
             if (wire == null || wire.headerNumber() == Long.MIN_VALUE) return true;
+            // the position is of the next record, not the last one.
+            if (recordStore != null) return true;
             try {
                 long pos1 = position;
          /*
@@ -422,10 +586,265 @@ public class SingleChronicleQueueExcerpts {
             assert checkAppendingThread();
             context.wire = acquireBufferWire();
             context.wire.headerNumber(index);
+            context.strategy = headerWriteStrategy;
             context.isClosed = false;
             return context;
         }
 
+        /**
+         * Reserves one header for the whole batch. The documents after the first are written with
+         * plain headers which can't be seen until the reserved header is published on close.
+         */
+        @NotNull
+        @Override
+        public BatchDocumentContext writingDocuments(int count) throws UnrecoverableTimeoutException {
+            if (count < 1)
+                throw new IllegalArgumentException("count: " + count);
+            assert checkAppendingThread();
+            assert checkWritePositionHeaderNumber();
+            boolean ok = false;
+            try {
+                if (queue.isClosed.get())
+                    throw new IllegalStateException("Queue is closed");
+                checkWriterLease();
+                int cycle = appendCycle();
+                if (wire == null)
+                    setCycle2(cycle, true);
+                else if (this.cycle != cycle)
+                    rollCycleTo(cycle);
+                if (recordStore != null)
+                    throw new UnsupportedOperationException("Batches can't be written to a queue of fixed size records");
+                if (encoder != null)
+                    throw new UnsupportedOperationException("Batches can't be written to a compressed queue");
+
+                int safeLength = (int) queue.overlapSize();
+                for (int i = 0; i < REPEAT_WHILE_ROLLING; i++) {
+                    try {
+                        assert wire != null;
+                        long pos = writeHeader(safeLength);
+                        position(pos);
+                        // the batch can be longer than the safe length, the bytes map more as they are written.
+                        wire.bytes().writeLimit(wire.bytes().capacity());
+                        batchContext.start(count);
+                        ok = true;
+                        return batchContext;
+
+                    } catch (EOFException theySeeMeRolling) {
+                        handleRoll(this.cycle);
+                    }
+                }
+                throw new IllegalStateException("Unable to roll to the current cycle");
+
+            } finally {
+                assert ok || resetAppendingThread();
+            }
+        }
+
+        /**
+         * The claim holds the header like an open {@link #writingDocument()}, so the address is
+         * only guaranteed to be mapped for as much as the chunks of the cycle file overlap.
+         */
+        @Override
+        public long claim(int maxLength) throws UnrecoverableTimeoutException {
+            if (maxLength < 1)
+                throw new IllegalArgumentException("maxLength: " + maxLength);
+            assert checkAppendingThread();
+            boolean ok = false;
+            try {
+                if (queue.isClosed.get())
+                    throw new IllegalStateException("Queue is closed");
+                checkWriterLease();
+                int cycle = appendCycle();
+                if (wire == null)
+                    setCycle2(cycle, true);
+                else if (this.cycle != cycle)
+                    rollCycleTo(cycle);
+
+                if (encoder != null)
+                    throw new UnsupportedOperationException("Space can't be claimed in a compressed queue");
+                assert wire != null;
+                long overlapSize = ((MappedBytes) wire.bytes()).mappedFile().overlapSize();
+                if (maxLength > overlapSize - Wires.SPB_HEADER_SIZE)
+                    throw new IllegalArgumentException("Unable to claim " + maxLength + " bytes, " +
+                            "the most which can be claimed is " + (overlapSize - Wires.SPB_HEADER_SIZE));
+                if (recordStore != null && maxLength > recordStore.recordSize())
+                    throw new IllegalArgumentException("Unable to claim " + maxLength + " bytes, " +
+                            "the records are " + recordStore.recordSize() + " bytes");
+
+                for (int i = 0; i < REPEAT_WHILE_ROLLING; i++) {
+                    try {
+                        position(writeHeader(maxLength));
+                        context.isClosed = false;
+                        context.wire = wire;
+                        context.deferredHeader = false;
+                        context.strategy = headerWriteStrategy;
+                        // the header is already written at the address returned.
+                        context.padToCacheAlign = false;
+                        context.metaData(false);
+                        claimedLength = maxLength;
+                        ok = true;
+                        return wire.bytes().addressForWrite(position + Wires.SPB_HEADER_SIZE);
+
+                    } catch (EOFException theySeeMeRolling) {
+                        handleRoll(this.cycle);
+                    }
+                }
+                throw new IllegalStateException("Unable to roll to the current cycle");
+
+            } finally {
+                assert ok || resetAppendingThread();
+            }
+        }
+
+        @Override
+        public void commit(int actualLength) {
+            int claimedLength = this.claimedLength;
+            if (claimedLength < 0)
+                throw new IllegalStateException("Nothing has been claimed");
+            // an empty excerpt would be read as the end of the data written, so is aborted instead.
+            if (actualLength < 1 || actualLength > claimedLength)
+                throw new IllegalArgumentException("actualLength: " + actualLength + " claimed: " + claimedLength);
+            this.claimedLength = -1;
+            assert wire != null;
+            wire.bytes().writePosition(position + Wires.SPB_HEADER_SIZE + actualLength);
+            context.close();
+        }
+
+        @Override
+        public void abort() {
+            int claimedLength = this.claimedLength;
+            if (claimedLength < 0)
+                throw new IllegalStateException("Nothing has been claimed");
+            this.claimedLength = -1;
+            try {
+                abandonHeader(position + Wires.SPB_HEADER_SIZE + claimedLength);
+            } catch (StreamCorruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                context.isClosed = true;
+                assert resetAppendingThread();
+            }
+        }
+
+        /**
+         * A header can't be given back once other appenders might be waiting on it, so what was
+         * written after it is zeroed and it becomes an empty meta data message, which tailers skip.
+         * A fixed size record can't be skipped without leaving a gap in the indices, so it becomes
+         * a record of zeros.
+         *
+         * @param end of what might have been written after the header.
+         */
+        private void abandonHeader(long end) throws StreamCorruptedException {
+            assert wire != null;
+            Bytes<?> bytes = wire.bytes();
+            bytes.zeroOut(position + Wires.SPB_HEADER_SIZE, end);
+            bytes.writePosition(position + Wires.SPB_HEADER_SIZE);
+            updateHeader(position, true);
+        }
+
+        /**
+         * Any appender which doesn't hold the writer lease, in this process or another, can't
+         * write while it is held, as the holder doesn't expect anyone else to be writing. The
+         * lease is mapped once, and read with a single volatile read on every write.
+         */
+        private void checkWriterLease() throws IllegalStateException {
+            if (exclusive)
+                return;
+            WriterLease writerLease = this.writerLease;
+            if (writerLease == null)
+                this.writerLease = writerLease = queue.acquireWriterLease();
+            if (writerLease.isHeld())
+                throw new IllegalStateException("Unable to write to " + queue.file() +
+                        " while the exclusive writer lease is held by PID " + writerLease.holderPid());
+        }
+
+        /**
+         * An exclusive writer doesn't contend for the header, so it takes the one at its own write
+         * position with a single CAS, only stepping over meta data, such as index arrays, which
+         * readers can add to the cycle file.
+         *
+         * @return the position of the header.
+         */
+        private long writeHeader(int safeLength) throws EOFException, UnrecoverableTimeoutException {
+            assert wire != null;
+            if (recordStore != null) {
+                Bytes<?> bytes = wire.bytes();
+                long pos = recordStore.claimRecord(bytes);
+                wire.headerNumber(queue.rollCycle().toIndex(cycle, recordStore.recordForPosition(bytes, pos)) - 1);
+                return pos;
+            }
+            if (!exclusive)
+                return store.writeHeader(wire, Wires.UNKNOWN_LENGTH, safeLength, timeoutMS());
+
+            Bytes<?> bytes = wire.bytes();
+            long pos = bytes.writePosition();
+            if (bytes.compareAndSwapInt(pos, 0, Wires.NOT_COMPLETE)) {
+                bytes.writeSkip(Wires.SPB_HEADER_SIZE);
+                return pos;
+            }
+            Pauser pauser = wire.pauser();
+            try {
+                while (true) {
+                    int header = bytes.readVolatileInt(pos);
+                    if (header == Wires.END_OF_DATA)
+                        throw new EOFException();
+                    if (Wires.isReadyData(header)) {
+                        throw new IllegalStateException("Found data at " + pos + " of " + queue.file() +
+                                " written by another appender while the exclusive writer lease was held");
+
+                    } else if (Wires.isReady(header)) {
+                        pos += Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+
+                    } else if (header == 0) {
+                        if (bytes.compareAndSwapInt(pos, 0, Wires.NOT_COMPLETE)) {
+                            bytes.writePosition(pos + Wires.SPB_HEADER_SIZE);
+                            return pos;
+                        }
+
+                    } else {
+                        pauser.pause(timeoutMS(), TimeUnit.MILLISECONDS);
+                    }
+                }
+            } catch (TimeoutException e) {
+                throw new UnrecoverableTimeoutException(e);
+            } finally {
+                pauser.reset();
+            }
+        }
+
+        /**
+         * An exclusive writer publishes the header it holds with an ordered write rather than a CAS,
+         * as does the writer of a fixed size record, which is always data.
+         */
+        private void updateHeader(long position, boolean metaData) throws StreamCorruptedException {
+            assert wire != null;
+            if (recordStore != null) {
+                recordStore.updateRecord(wire.bytes(), position);
+                wire.headerNumber(wire.headerNumber() + 1);
+                return;
+            }
+            if (!exclusive) {
+                wire.updateHeader(position, metaData);
+                return;
+            }
+
+            Bytes<?> bytes = wire.bytes();
+            if (bytes.writePosition() == position + Wires.SPB_HEADER_SIZE)
+                wire.addPadding(1);
+            int length = Maths.toUInt31(bytes.writePosition() - position - Wires.SPB_HEADER_SIZE);
+            bytes.writeOrderedInt(position, metaData ? length | Wires.META_DATA : length);
+            if (!metaData && wire.headerNumber() != Long.MIN_VALUE)
+                wire.headerNumber(wire.headerNumber() + 1);
+        }
+
+        private void writePosition(long position) {
+            assert store != null;
+            if (exclusive)
+                store.writePositionOrdered(position);
+            else
+                store.writePosition(position);
+        }
+
         @Override
         public int sourceId() {
             return queue.sourceId;
@@ -433,7 +852,22 @@ public class SingleChronicleQueueExcerpts {
 
         @Override
         public void writeBytes(@NotNull BytesStore bytes) throws UnrecoverableTimeoutException {
+            // the store decides how the bytes are written.
+            if (wire == null)
+                setCycle2(appendCycle(), true);
+            if (recordStore != null && bytes.readRemaining() > recordStore.recordSize())
+                throw new IllegalArgumentException("Unable to write " + bytes.readRemaining() + " bytes, " +
+                        "the records are " + recordStore.recordSize() + " bytes");
+            if (exclusive || recordStore != null || encoder != null) {
+                // the length is only needed to reserve a contended header.
+                try (DocumentContext dc = writingDocument()) {
+                    dc.wire().bytes().write(bytes);
+                    ((StoreAppenderContext) dc).padToCacheAlign = false;
+                }
+                return;
+            }
             // still uses append as it has a known length.
+            checkWriterLease();
             append(Maths.toUInt31(bytes.readRemaining()), (m, w) -> w.bytes().write(m), bytes);
         }
 
@@ -455,8 +889,11 @@ public class SingleChronicleQueueExcerpts {
                 throw new IllegalArgumentException("index: " + Long.toHexString(index));
             if (bytes.isEmpty())
                 throw new UnsupportedOperationException("Cannot append a zero length message");
+            if (recordStore != null || queue.recordSize() > 0)
+                throw new UnsupportedOperationException("Excerpts can't be written at an index of a queue of fixed size records");
             assert checkAppendingThread();
             try {
+                checkWriterLease();
                 moveToIndexForWrite(index);
 
                 // only get the bytes after moveToIndex
@@ -476,6 +913,7 @@ public class SingleChronicleQueueExcerpts {
                     lastPosition = position;
                     lastCycle = cycle;
                     store.writePosition(position);
+                    committed(index, position);
 
                 } catch (EOFException theySeeMeRolling) {
                     if (wireBytes.compareAndSwapInt(wireBytes.writePosition(), Wires.END_OF_DATA, Wires.NOT_COMPLETE)) {
@@ -611,7 +1049,7 @@ public class SingleChronicleQueueExcerpts {
 
             assert checkAppendingThread();
             try {
-                int cycle = queue.cycle();
+                int cycle = appendCycle();
                 if (this.cycle != cycle || wire == null)
                     rollCycleTo(cycle);
 
@@ -626,6 +1064,7 @@ public class SingleChronicleQueueExcerpts {
                     lastCycle = cycle;
                     store.writePosition(position);
                     writeIndexForPosition(lastIndex, position);
+                    committed(lastIndex, position);
                 } catch (EOFException theySeeMeRolling) {
                     try {
                         append2(length, wireWriter, writer);
@@ -675,6 +1114,7 @@ public class SingleChronicleQueueExcerpts {
             beforeAppend(wire, wire.headerNumber() + 1);
             wireWriter.write(writer, wire);
             wire.updateHeader(length, position, false);
+            committed(wire.headerNumber(), position);
         }
 
         private boolean checkAppendingThread() {
@@ -699,12 +1139,57 @@ public class SingleChronicleQueueExcerpts {
         void writeIndexForPosition(long index, long position)
                 throws UnrecoverableTimeoutException, StreamCorruptedException {
 
-            if (!lazyIndexing) {
+            if (queue.timeIndex())
+                recordTime(index);
+            if (!lazyIndexing && !queue.backgroundIndexing()) {
                 long sequenceNumber = queue.rollCycle().toSequenceNumber(index);
                 store.setPositionForSequenceNumber(this, sequenceNumber, position);
             }
         }
 
+        private void recordTime(long index) {
+            final RollCycle rollCycle = queue.rollCycle();
+            final long sequenceNumber = rollCycle.toSequenceNumber(index);
+            final int indexSpacing = ((SingleChronicleQueueStore) store).rollIndexSpacing();
+            if ((sequenceNumber & (indexSpacing - 1)) != 0)
+                return;
+            final int cycle = rollCycle.toCycle(index);
+            if (timeIndex == null || timeIndex.cycle() != cycle) {
+                if (timeIndex != null)
+                    timeIndex.close();
+                timeIndex = TimeIndex.of(queue.timeIndexFile(cycle), cycle, true, false);
+                closableResources.timeIndexReference = timeIndex == null ? null : timeIndex.bytes();
+            }
+            if (timeIndex != null)
+                timeIndex.record(sequenceNumber / indexSpacing, queue.time().currentTimeMillis());
+        }
+
+        /**
+         * With lazy indexing the header number isn't known when the header is published, so the
+         * sequence number is counted from the headers before it, on from where this appender
+         * counted up to last time. The time isn't recorded if an earlier header isn't complete.
+         */
+        private void recordTimeAt(long position) {
+            if (countedCycle != cycle || countedPosition > position) {
+                countedCycle = cycle;
+                countedPosition = 0;
+                countedMessages = 0;
+            }
+            assert wire != null;
+            Bytes<?> bytes = wire.bytes();
+            SingleChronicleQueueStore scqStore = (SingleChronicleQueueStore) store;
+            while (countedPosition < position) {
+                int header = bytes.readVolatileInt(countedPosition);
+                if (header == 0 || Wires.isNotComplete(header) || Wires.isEndOfFile(header))
+                    return;
+                if (Wires.isReadyData(header))
+                    countedMessages++;
+                countedPosition = scqStore.nextHeader(countedPosition, header);
+            }
+            if (countedPosition == position)
+                recordTime(queue.rollCycle().toIndex(cycle, countedMessages));
+        }
+
         boolean checkIndex(long index, long position) {
             try {
                 final long seq1 = queue.rollCycle().toSequenceNumber(index + 1) - 1;
@@ -741,6 +1226,8 @@ public class SingleChronicleQueueExcerpts {
             boolean isClosed;
             boolean deferredHeader;
             boolean padToCacheAlign = true;
+            // what the header was written with when the context was opened.
+            HeaderWriteStrategy strategy;
             private boolean metaData = false;
             private boolean rollbackOnClose = false;
             @Nullable
@@ -798,6 +1285,20 @@ public class SingleChronicleQueueExcerpts {
                 if (rollbackOnClose || interrupted) {
                     if (interrupted)
                         LOG.warn("Thread is interrupted. Can't guarantee complete message, so not committing");
+                    rollbackOnClose = false;
+                    assert resetAppendingThread();
+                    // nothing has been written to the queue yet
+                    if (deferredHeader)
+                        return;
+                    if (exclusive || recordStore != null) {
+                        // the write position has to stay on a complete header.
+                        try {
+                            abandonHeader(wire.bytes().writePosition());
+                        } catch (StreamCorruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return;
+                    }
                     // zero out all contents...
                     for (long i = position + Wires.SPB_HEADER_SIZE; i <= wire.bytes().writePosition(); i++)
                         wire.bytes().writeByte(i, (byte) 0);
@@ -808,24 +1309,25 @@ public class SingleChronicleQueueExcerpts {
                 }
 
                 try {
-                    headerWriteStrategy.onContextClose();
+                    strategy.onContextClose();
 
                     if (wire == StoreAppender.this.wire) {
                         if (padToCacheAlign)
                             wire.padToCacheAlign();
 
-                        wire.updateHeader(position, metaData);
+                        updateHeader(position, metaData);
 
                         lastPosition = position;
                         lastCycle = cycle;
 
                         if (!metaData) {
                             lastIndex(wire.headerNumber());
-                            store.writePosition(position);
+                            writePosition(position);
                             if (lastIndex != Long.MIN_VALUE)
                                 writeIndexForPosition(lastIndex, position);
-                            else
-                                assert lazyIndexing || lastIndex == Long.MIN_VALUE || checkIndex(lastIndex, position);
+                            else if (queue.timeIndex())
+                                recordTimeAt(position);
+                            committed(lastIndex, position);
                         }
                         assert checkWritePositionHeaderNumber();
                     } else
@@ -848,7 +1350,7 @@ public class SingleChronicleQueueExcerpts {
                     try {
                         long headerNumber0 = queue.rollCycle().toIndex(cycle, store
                                 .sequenceForPosition(StoreAppender.this, position, false));
-                        assert (((AbstractWire) this.wire).isInsideHeader());
+                        assert exclusive || ((AbstractWire) this.wire).isInsideHeader();
                         return isMetaData() ? headerNumber0 : headerNumber0 + 1;
                     } catch (IOException e) {
                         throw new IORuntimeException(e);
@@ -864,6 +1366,196 @@ public class SingleChronicleQueueExcerpts {
             }
         }
 
+        class StoreAppenderBatchContext implements BatchDocumentContext {
+
+            boolean isClosed = true;
+            private boolean rollbackOnClose = false;
+            private int capacity;
+            private int documents;
+            @NotNull
+            private long[] positions = new long[16];
+            // the header of the document being written, or -1 between documents.
+            private long documentPosition = -1;
+            // where the first document ends, as its header is only published on close.
+            private long firstEnd;
+
+            void start(int capacity) {
+                this.capacity = capacity;
+                this.documents = 0;
+                this.documentPosition = -1;
+                this.rollbackOnClose = false;
+                this.isClosed = false;
+            }
+
+            @NotNull
+            @Override
+            public Wire nextDocument() {
+                if (isClosed)
+                    throw new IllegalStateException("The batch has been closed");
+                assert wire != null;
+                Bytes<?> bytes = wire.bytes();
+                if (documentPosition >= 0)
+                    endDocument(bytes);
+                if (documents == capacity)
+                    throw new IllegalStateException("The batch already has " + capacity + " documents");
+
+                if (documents == 0) {
+                    // the reserved header
+                    documentPosition = position;
+                } else {
+                    documentPosition = bytes.writePosition();
+                    bytes.writeSkip(Wires.SPB_HEADER_SIZE);
+                }
+                if (documents == positions.length)
+                    positions = Arrays.copyOf(positions, documents * 2);
+                positions[documents++] = documentPosition;
+                return wire;
+            }
+
+            private void endDocument(@NotNull Bytes<?> bytes) {
+                if (padToCacheAlignMode() != Padding.NEVER)
+                    wire.padToCacheAlign();
+                // as for updateHeader, a data message can't be empty
+                if (bytes.writePosition() == documentPosition + Wires.SPB_HEADER_SIZE)
+                    wire.addPadding(1);
+                long end = bytes.writePosition();
+                if (documentPosition == position)
+                    firstEnd = end;
+                else
+                    bytes.writeOrderedInt(documentPosition, Maths.toUInt31(end - documentPosition - Wires.SPB_HEADER_SIZE));
+                documentPosition = -1;
+            }
+
+            @Override
+            public int documents() {
+                return documents;
+            }
+
+            @Override
+            public int capacity() {
+                return capacity;
+            }
+
+            @Override
+            public void rollbackOnClose() {
+                this.rollbackOnClose = true;
+            }
+
+            @Override
+            public int sourceId() {
+                return StoreAppender.this.sourceId();
+            }
+
+            @Override
+            public boolean isPresent() {
+                return false;
+            }
+
+            @NotNull
+            @Override
+            public Wire wire() {
+                return wire;
+            }
+
+            @Override
+            public boolean isMetaData() {
+                return false;
+            }
+
+            @Override
+            public void metaData(boolean metaData) {
+                if (metaData)
+                    throw new UnsupportedOperationException("A batch can only hold data messages");
+            }
+
+            @Override
+            public boolean isClosed() {
+                return isClosed;
+            }
+
+            /**
+             * @return the index of the current document.
+             */
+            @Override
+            public long index() throws IORuntimeException {
+                if (documents == 0)
+                    throw new IllegalStateException("No document has been started in this batch");
+                if (wire.headerNumber() == Long.MIN_VALUE) {
+                    try {
+                        return queue.rollCycle().toIndex(cycle, store
+                                .sequenceForPosition(StoreAppender.this, position, false)) + documents;
+                    } catch (IOException e) {
+                        throw new IORuntimeException(e);
+                    }
+                }
+                return wire.headerNumber() + documents;
+            }
+
+            @Override
+            public boolean isNotComplete() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+                if (isClosed) {
+                    LOG.warn("Already Closed, close was called twice.");
+                    return;
+                }
+                isClosed = true;
+
+                try {
+                    assert wire != null;
+                    Bytes<?> bytes = wire.bytes();
+                    final boolean interrupted = Thread.currentThread().isInterrupted();
+                    if (rollbackOnClose || interrupted || documents == 0) {
+                        if (interrupted)
+                            LOG.warn("Thread is interrupted. Can't guarantee complete message, so not committing");
+                        abandonHeader(bytes.writePosition());
+                        return;
+                    }
+
+                    if (documentPosition >= 0)
+                        endDocument(bytes);
+                    long firstIndex = wire.headerNumber() + 1;
+                    long lastPosition = positions[documents - 1];
+                    boolean indexed = wire.headerNumber() != Long.MIN_VALUE;
+                    if (indexed)
+                        wire.headerNumber(wire.headerNumber() + documents - 1);
+
+                    if (documents > 1) {
+                        // the wire completes the last header, so it takes over from the reserved
+                        // header, which can then be published. Anyone who gets past the reserved
+                        // header only waits for the last one.
+                        bytes.writeOrderedInt(lastPosition, Wires.NOT_COMPLETE);
+                        bytes.writeOrderedInt(position, Maths.toUInt31(firstEnd - position - Wires.SPB_HEADER_SIZE));
+                    }
+                    updateHeader(lastPosition, false);
+
+                    // not position(long) as a large batch can be more than a block past the write position.
+                    StoreAppender.this.position = lastPosition;
+                    StoreAppender.this.lastPosition = lastPosition;
+                    lastCycle = cycle;
+                    lastIndex(wire.headerNumber());
+                    writePosition(lastPosition);
+                    if (indexed)
+                        for (int i = 0; i < documents; i++)
+                            writeIndexForPosition(firstIndex + i, positions[i]);
+                    else if (queue.timeIndex())
+                        for (int i = 0; i < documents; i++)
+                            recordTimeAt(positions[i]);
+                    committed(lastIndex, lastPosition);
+                    assert checkWritePositionHeaderNumber();
+
+                } catch (@NotNull StreamCorruptedException | UnrecoverableTimeoutException e) {
+                    throw new IllegalStateException(e);
+
+                } finally {
+                    assert resetAppendingThread();
+                }
+            }
+        }
+
         @Override
         public String toString() {
             return "StoreAppender{" +
@@ -892,10 +1584,11 @@ public class SingleChronicleQueueExcerpts {
                 for (int i = 0; i < REPEAT_WHILE_ROLLING; i++) {
                     try {
                         assert wire != null;
-                        long pos = store.writeHeader(wire, Wires.UNKNOWN_LENGTH, safeLength, timeoutMS());
+                        long pos = writeHeader(safeLength);
                         position(pos);
                         context.isClosed = false;
                         context.wire = wire; // Jvm.isDebug() ? acquireBufferWire() : wire;
+                        context.deferredHeader = false;
                         context.padToCacheAlign = padToCacheAlignMode() != Padding.NEVER;
                         context.metaData(metaData);
                         return true;
@@ -944,10 +1637,9 @@ public class SingleChronicleQueueExcerpts {
                     for (int i = 0; i < REPEAT_WHILE_ROLLING; i++) {
                         try {
                             // TODO: we should be able to write and update the header in one go
-                            long pos = store.writeHeader(wire, Wires.UNKNOWN_LENGTH, safeLength, timeoutMS());
+                            long pos = writeHeader(safeLength);
                             position(pos);
-                            long length = context.wire.bytes().copyTo(wire.bytes());
-                            wire.bytes().writePosition(length + wire.bytes().writePosition());
+                            transfer(context.wire.bytes(), wire.bytes());
                             context.wire = wire;
                             return;
                         } catch (EOFException theySeeMeRolling) {
@@ -957,6 +1649,42 @@ public class SingleChronicleQueueExcerpts {
                     throw new IllegalStateException("Unable to roll to the current cycle");
                 }
             }
+
+            void transfer(@NotNull Bytes<?> from, @NotNull Bytes<?> to) {
+                long length = from.copyTo(to);
+                to.writePosition(length + to.writePosition());
+            }
+        }
+
+        /**
+         * BufferMode.Copy, always encode into a buffer and only hold the header for the copy into
+         * the queue.
+         */
+        private class HeaderWriteStrategyCopy extends HeaderWriteStrategyDefer {
+            @Override
+            public boolean onContextOpen(boolean metaData, int safeLength) {
+                context.wire = acquireBufferWire();
+                context.deferredHeader = true;
+                context.isClosed = false;
+                context.padToCacheAlign = padToCacheAlignMode() != Padding.NEVER;
+                context.metaData(metaData);
+                return true;
+            }
+        }
+
+        /**
+         * A compressed queue writes into a buffer, like {@link BufferMode#Copy}, and encodes it into
+         * the queue once it holds the header.
+         */
+        private class HeaderWriteStrategyEncode extends HeaderWriteStrategyCopy {
+            @Override
+            void transfer(@NotNull Bytes<?> from, @NotNull Bytes<?> to) {
+                // the store rolled to might not be compressed.
+                if (encoder == null)
+                    super.transfer(from, to);
+                else
+                    encoder.accept(from, to);
+            }
         }
     }
 
@@ -966,6 +1694,7 @@ public class SingleChronicleQueueExcerpts {
         private volatile Bytes bufferWireReference = null;
         private volatile Bytes wireForIndexReference = null;
         private volatile CommonStore storeReference = null;
+        private volatile Bytes timeIndexReference = null;
 
         ClosableResources(final SingleChronicleQueue queue) {
             this.queue = queue;
@@ -982,6 +1711,7 @@ public class SingleChronicleQueueExcerpts {
             releaseIfNotNull(wireForIndexReference);
             releaseIfNotNull(wireReference);
             releaseIfNotNull(bufferWireReference);
+            releaseIfNotNull(timeIndexReference);
 
             // Object is no longer reachable, check that it has not already been released
             if (storeReference != null && storeReference.refCount() > 0) {
@@ -1020,6 +1750,19 @@ public class SingleChronicleQueueExcerpts {
         private long indexAtCreation = Long.MIN_VALUE;
         private boolean readingDocumentFound = false;
         private final MoveToState moveToState = new MoveToState();
+        // decodes the excerpts read from the store, if they are compressed.
+        @Nullable
+        private BiConsumer<BytesStore, Bytes> decoder;
+        @Nullable
+        private MessageCompression decoderCompression;
+        // where a named tailer saves its index, see SingleChronicleQueue.createTailer(String)
+        @Nullable
+        private LongValue indexValue;
+        private int indexUpdateInterval;
+        private int readsSinceIndexSaved;
+        // the time index last searched, kept mapped for the next moveToTime.
+        @Nullable
+        private TimeIndex timeIndex;
 
         public StoreTailer(@NotNull final SingleChronicleQueue queue) {
             this.queue = queue;
@@ -1057,18 +1800,24 @@ public class SingleChronicleQueueExcerpts {
         }
 
         private void close() {
+            closeIndexValue();
             context.wire(null);
+            context.releaseDecodedWire();
             Wire w0 = wireForIndex;
             if (w0 != null)
                 w0.bytes().release();
             if (store != null)
                 queue.release(store);
             store = null;
+            if (timeIndex != null) {
+                timeIndex.close();
+                timeIndex = null;
+            }
         }
 
         @Override
         public Wire wire() {
-            return context.wire();
+            return context.storeWire();
         }
 
         @Override
@@ -1114,8 +1863,11 @@ public class SingleChronicleQueueExcerpts {
                     next = next0(includeMetaData);
 
                 if (context.present(next)) {
-                    context.setStart(context.wire().bytes().readPosition() - 4);
+                    context.setStart(context.storeWire().bytes().readPosition() - 4);
                     readingDocumentFound = true;
+                    // only the data is encoded.
+                    if (decoder != null && !context.isMetaData())
+                        context.decode(decoder);
                     return context;
                 }
                 RollCycle rollCycle = queue.rollCycle();
@@ -1146,6 +1898,109 @@ public class SingleChronicleQueueExcerpts {
             return NoDocumentContext.INSTANCE;
         }
 
+        @NotNull
+        @Override
+        public DocumentContext awaitNext(@NotNull WaitStrategy waitStrategy, long timeout, @NotNull TimeUnit unit) {
+            if (!waitStrategy.isNotified())
+                return ExcerptTailer.super.awaitNext(waitStrategy, timeout, unit);
+            final long deadlineNanos = System.nanoTime() + unit.toNanos(timeout);
+            // registered before looking, so an excerpt written after the look unparks the wait,
+            // or is counted as published.
+            final Thread thread = Thread.currentThread();
+            final CommitNotifier notifier = queue.commitNotifier();
+            notifier.addWaiting(thread);
+            try {
+                for (int iteration = 0; ; ) {
+                    notifier.stillWaiting();
+                    final long published = notifier.published();
+                    final long lookedNanos = System.nanoTime();
+                    final DocumentContext dc = readingDocument();
+                    if (dc.isPresent() || System.nanoTime() - deadlineNanos >= 0 || thread.isInterrupted())
+                        return dc;
+                    dc.close();
+                    // look again once an excerpt is published, or after MAX_PARK_NANOS, as an
+                    // appender could read the count of waiting tailers before this was added.
+                    do {
+                        waitStrategy.idle(iteration++, deadlineNanos);
+                    } while (!notifier.publishedSince(published)
+                            && System.nanoTime() - lookedNanos < WaitStrategies.MAX_PARK_NANOS
+                            && System.nanoTime() - deadlineNanos < 0
+                            && !thread.isInterrupted());
+                }
+            } finally {
+                notifier.removeWaiting(thread);
+            }
+        }
+
+        /**
+         * Reads the first excerpt with {@link #readingDocument()}, which finds the cycle and rolls
+         * as needed, then the complete excerpts which follow it in the cycle straight from their
+         * headers, stepping over meta data. A compressed queue, or one read backwards or only
+         * after replication, reads every excerpt with {@link #readingDocument()}.
+         */
+        @Override
+        public int readBatch(@NotNull BatchConsumer consumer, int maxMessages) {
+            if (maxMessages < 1)
+                throw new IllegalArgumentException("maxMessages: " + maxMessages);
+            try (DocumentContext dc = readingDocument()) {
+                if (!dc.isPresent())
+                    return 0;
+                consumer.accept(dc.index(), dc.wire().bytes());
+            }
+            if (maxMessages == 1)
+                return 1;
+            if (decoder != null || readAfterReplicaAcknowledged || direction != FORWARD || state != FOUND_CYCLE)
+                return 1 + ExcerptTailer.super.readBatch(consumer, maxMessages - 1);
+
+            try {
+                return 1 + readBatchInACycle(consumer, maxMessages - 1);
+            } catch (StreamCorruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private int readBatchInACycle(@NotNull BatchConsumer consumer, int maxMessages) throws StreamCorruptedException {
+            final RollCycle rollCycle = queue.rollCycle();
+            final boolean indexing = !lazyIndexing;
+            final Bytes<?> bytes = context.storeWire().bytes();
+            final SingleChronicleQueueStore scqStore = store instanceof SingleChronicleQueueStore
+                    ? (SingleChronicleQueueStore) store : null;
+            final long capacity = bytes.capacity();
+            long pos = bytes.readPosition();
+            int count = 0;
+            try {
+                while (count < maxMessages && pos + Wires.SPB_HEADER_SIZE <= capacity) {
+                    final int header = bytes.readVolatileInt(pos);
+                    if (!Wires.isReady(header) || Wires.isEndOfFile(header))
+                        break;
+                    final long end = pos + Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+                    final long next = scqStore == null ? end : scqStore.nextHeader(pos, header);
+                    if (!Wires.isReadyData(header)) {
+                        pos = next;
+                        continue;
+                    }
+                    // the next sequence number would be in the next cycle.
+                    if (rollCycle.toSequenceNumber(index + 1) == 0)
+                        break;
+                    if (indexing && (index & indexSpacingMask) == 0 && store.indexable(index))
+                        store.setPositionForSequenceNumber(this, rollCycle.toSequenceNumber(index), pos);
+
+                    bytes.readLimit(end);
+                    bytes.readPosition(pos + Wires.SPB_HEADER_SIZE);
+                    consumer.accept(index, bytes);
+                    bytes.readLimit(capacity);
+                    pos = next;
+                    index++;
+                    count++;
+                }
+            } finally {
+                bytes.readLimit(capacity);
+                bytes.readPosition(pos);
+                afterRead(count);
+            }
+            return count;
+        }
+
         private boolean next0(boolean includeMetaData) throws UnrecoverableTimeoutException, StreamCorruptedException {
             for (int i = 0; i < 1000; i++) {
                 switch (state) {
@@ -1300,8 +2155,13 @@ public class SingleChronicleQueueExcerpts {
                 indexEntry(bytes);
 
             context.closeReadLimit(bytes.capacity());
-            wire().readAndSetLength(bytes.readPosition());
+            long position = bytes.readPosition();
+            int header = bytes.readVolatileInt(position);
+            wire().readAndSetLength(position);
             long end = bytes.readLimit();
+            // a fixed size record is followed by the padding to the next slot.
+            if (store instanceof SingleChronicleQueueStore)
+                end = ((SingleChronicleQueueStore) store).nextHeader(position, header);
             context.closeReadPosition(end);
         }
 
@@ -1455,6 +2315,12 @@ public class SingleChronicleQueueExcerpts {
 
         @Override
         public boolean moveToIndex(final long index) {
+            final boolean found = moveToIndex0(index);
+            saveIndex();
+            return found;
+        }
+
+        private boolean moveToIndex0(final long index) {
             if (moveToState.canReuseLastIndexMove(index, state, direction, queue, wire())) {
                 return true;
             } else
@@ -1473,6 +2339,72 @@ public class SingleChronicleQueueExcerpts {
             return moveToIndexInternal(index);
         }
 
+        @NotNull
+        @Override
+        public ExcerptTailer moveToTime(long epochMillis) {
+            final RollCycle rollCycle = queue.rollCycle();
+            final int firstCycle = queue.firstCycle();
+            final int lastCycle = queue.lastCycleNotAhead();
+            final int cycle = queue.firstPart(rollCycle.current(() -> epochMillis, queue.epoch()));
+            if (firstCycle > lastCycle || cycle < firstCycle)
+                return toStart();
+            if (cycle > lastCycle)
+                return toEnd();
+
+            final NavigableSet<Long> cycles;
+            try {
+                cycles = queue.listCyclesBetween(firstCycle, lastCycle);
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+            for (long found : cycles.tailSet((long) cycle)) {
+                if (!moveToIndex(rollCycle.toIndex((int) found, 0)))
+                    continue;
+                // a later cycle was written entirely after the time
+                final int period = queue.period(cycle);
+                if (queue.period((int) found) == period) {
+                    final long lastPart = Math.min(queue.firstPart(period + 1) - 1L, cycles.last());
+                    moveToTimeInPeriod(cycles.subSet(found, true, lastPart, true), epochMillis);
+                }
+                return this;
+            }
+            return toEnd();
+        }
+
+        /**
+         * @param parts the files of the period from the one the tailer is at the start of.
+         */
+        private void moveToTimeInPeriod(NavigableSet<Long> parts, long epochMillis) {
+            final int indexSpacing = ((SingleChronicleQueueStore) store).rollIndexSpacing();
+            for (long part : parts.descendingSet()) {
+                final int cycle = (int) part;
+                final TimeIndex timeIndex = timeIndex(cycle);
+                if (timeIndex == null)
+                    continue;
+                final long entry = timeIndex.lastBefore(epochMillis);
+                if (entry >= 0) {
+                    moveToIndex(queue.rollCycle().toIndex(cycle, entry * indexSpacing));
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return the time index of a cycle, mapping it unless it is the one last searched, or null
+         * if it doesn't have one.
+         */
+        @Nullable
+        private TimeIndex timeIndex(int cycle) {
+            TimeIndex timeIndex = this.timeIndex;
+            if (timeIndex != null && timeIndex.cycle() == cycle)
+                return timeIndex;
+            if (timeIndex != null)
+                timeIndex.close();
+            this.timeIndex = timeIndex = TimeIndex.of(queue.timeIndexFile(cycle), cycle, false, queue.isReadOnly());
+            closableResources.timeIndexReference = timeIndex == null ? null : timeIndex.bytes();
+            return timeIndex;
+        }
+
         ScanResult moveToIndexResult(long index) {
             final int cycle = queue.rollCycle().toCycle(index);
             final long sequenceNumber = queue.rollCycle().toSequenceNumber(index);
@@ -1524,6 +2456,7 @@ public class SingleChronicleQueueExcerpts {
             state = FOUND_CYCLE;
             if (wire() != null)
                 wire().bytes().readPosition(0);
+            saveIndex();
             return this;
         }
 
@@ -1541,9 +2474,12 @@ public class SingleChronicleQueueExcerpts {
          * @return the last index at the time this method was called, or Long.MIN_VALUE if none.
          */
         private long approximateLastIndex() {
+            return approximateLastIndex(queue.lastCycle());
+        }
+
+        private long approximateLastIndex(final int lastCycle) {
 
             RollCycle rollCycle = queue.rollCycle();
-            final int lastCycle = queue.lastCycle();
             try {
                 if (lastCycle == Integer.MIN_VALUE)
                     return Long.MIN_VALUE;
@@ -1565,6 +2501,14 @@ public class SingleChronicleQueueExcerpts {
 
                 long sequenceNumber = store.lastSequenceNumber(this);
 
+                // the next cycle can be created before the roll by the Pretoucher, the end of the
+                // queue is still in the cycle before it.
+                if (sequenceNumber == -1L && lastCycle > queue.cycle()) {
+                    int previousCycle = queue.nextCycle(lastCycle, BACKWARD);
+                    if (previousCycle != -1)
+                        return approximateLastIndex(previousCycle);
+                }
+
                 // fixes #378
                 if (sequenceNumber == -1L) {
                     // nothing has been written yet, so point to start of cycle
@@ -1572,7 +2516,7 @@ public class SingleChronicleQueueExcerpts {
                 }
                 return rollCycle.toIndex(lastCycle, sequenceNumber);
 
-            } catch (@NotNull StreamCorruptedException | UnrecoverableTimeoutException e) {
+            } catch (@NotNull StreamCorruptedException | UnrecoverableTimeoutException | ParseException e) {
                 throw new IllegalStateException(e);
             }
         }
@@ -1616,6 +2560,20 @@ public class SingleChronicleQueueExcerpts {
                 releaseWireResources(wireForIndexOld);
             }
 
+            resetDecoder();
+        }
+
+        /**
+         * The store's compression takes precedence, and its decoder is kept while the stores
+         * read have the same one.
+         */
+        private void resetDecoder() {
+            MessageCompression compression = store instanceof SingleChronicleQueueStore
+                    ? ((SingleChronicleQueueStore) store).compression() : null;
+            if (decoder == null || compression != decoderCompression) {
+                decoder = queue.decoder(compression);
+                decoderCompression = compression;
+            }
         }
 
         @NotNull
@@ -1673,7 +2631,7 @@ public class SingleChronicleQueueExcerpts {
                     throw new IllegalStateException("Unknown ScanResult: " + scanResult);
 
             }
-
+            saveIndex();
             return this;
         }
 
@@ -1763,6 +2721,42 @@ public class SingleChronicleQueueExcerpts {
             return true;
         }
 
+        void indexValue(@NotNull LongValue indexValue, int updateInterval) {
+            this.indexValue = indexValue;
+            this.indexUpdateInterval = updateInterval;
+        }
+
+        private void afterRead(int count) {
+            if (indexValue != null && (readsSinceIndexSaved += count) >= indexUpdateInterval)
+                saveIndex();
+        }
+
+        /**
+         * Save the index of a named tailer, with an ordered write, for the next tailer of its name.
+         */
+        private void saveIndex() {
+            final LongValue indexValue = this.indexValue;
+            if (indexValue == null)
+                return;
+            indexValue.setOrderedValue(index);
+            readsSinceIndexSaved = 0;
+        }
+
+        /**
+         * Save the index of a named tailer for the last time, before the queue's meta data closes.
+         */
+        void closeIndexValue() {
+            saveIndex();
+            indexValue = null;
+        }
+
+        /**
+         * Stop saving the index, without saving it again, as the name has been removed.
+         */
+        void removeIndexValue() {
+            indexValue = null;
+        }
+
         // DON'T INLINE THIS METHOD, as it's used by enterprise chronicle queue
         void index(long index) {
             this.index = index;
@@ -1927,7 +2921,7 @@ public class SingleChronicleQueueExcerpts {
             this.cycle = cycle;
 
             timeForNextCycle = cycle == Integer.MIN_VALUE ? Long.MAX_VALUE :
-                    (long) (cycle + 1) * queue.rollCycle().length() + queue.epoch();
+                    (long) (queue.period(cycle) + 1) * queue.rollCycle().length() + queue.epoch();
 
         }
 
@@ -1937,10 +2931,45 @@ public class SingleChronicleQueueExcerpts {
         }
 
         class StoreTailerContext extends BinaryReadDocumentContext {
+            // what the excerpt is decoded into, if it is compressed.
+            @Nullable
+            private Wire decodedWire;
+            private boolean decoded;
+
             StoreTailerContext() {
                 super(null);
             }
 
+            @Override
+            public Wire wire() {
+                return decoded ? decodedWire : wire;
+            }
+
+            /**
+             * @return the wire of the store, rather than what has been decoded from it.
+             */
+            Wire storeWire() {
+                return wire;
+            }
+
+            void decode(@NotNull BiConsumer<BytesStore, Bytes> decoder) {
+                if (decodedWire == null) {
+                    decodedWire = queue.wireType().apply(Bytes.elasticByteBuffer());
+                    decodedWire.parent(StoreTailer.this);
+                } else {
+                    decodedWire.clear();
+                }
+                decoder.accept(wire.bytes(), decodedWire.bytes());
+                decoded = true;
+            }
+
+            void releaseDecodedWire() {
+                if (decodedWire != null) {
+                    decodedWire.bytes().release();
+                    decodedWire = null;
+                }
+            }
+
             @Override
             public long index() {
                 return StoreTailer.this.index();
@@ -1953,9 +2982,12 @@ public class SingleChronicleQueueExcerpts {
 
             @Override
             public void close() {
-                if (isPresent())
+                if (isPresent()) {
                     incrementIndex();
+                    afterRead(1);
+                }
 
+                decoded = false;
                 super.close();
                 // assert wire == null || wire.endUse();
             }
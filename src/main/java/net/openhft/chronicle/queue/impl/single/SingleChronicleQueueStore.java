@@ -25,6 +25,7 @@ import net.openhft.chronicle.core.annotation.UsedViaReflection;
 import net.openhft.chronicle.core.pool.ClassAliasPool;
 import net.openhft.chronicle.core.values.LongValue;
 import net.openhft.chronicle.core.values.TwoLongValue;
+import net.openhft.chronicle.queue.MessageCompression;
 import net.openhft.chronicle.queue.RollCycle;
 import net.openhft.chronicle.queue.impl.ExcerptContext;
 import net.openhft.chronicle.queue.impl.WireStore;
@@ -39,6 +40,9 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 public class SingleChronicleQueueStore implements WireStore {
+    // set in the write position of a store of fixed size records once it has been ended.
+    private static final long END_OF_RECORDS = 1L << 62;
+
     static {
         ClassAliasPool.CLASS_ALIASES.addAlias(SCQIndexing.class);
         ClassAliasPool.CLASS_ALIASES.addAlias(SCQRoll.class, "Roll");
@@ -64,7 +68,14 @@ public class SingleChronicleQueueStore implements WireStore {
     private int deltaCheckpointInterval = -1;
     @Nullable
     private LongValue lastAcknowledgedIndexReplicated;
-
+    // the length of every excerpt, or 0 if they can be of any length.
+    private final int recordSize;
+    private final int slotSize;
+    // the position of the first record, after the header.
+    private long recordsStart;
+    // what the excerpts are compressed with, if anything.
+    @Nullable
+    private final MessageCompression compression;
     @NotNull
     private transient Sequence sequence;
 
@@ -109,6 +120,19 @@ public class SingleChronicleQueueStore implements WireStore {
                 this.deltaCheckpointInterval = -1; // disabled.
             }
 
+            if (wire.bytes().readRemaining() > 0) {
+                this.recordSize = wire.read(MetaDataField.recordSize).int32();
+            } else {
+                this.recordSize = 0; // any length.
+            }
+            this.slotSize = slotSize(recordSize);
+
+            if (wire.bytes().readRemaining() > 0) {
+                final String compression = wire.read(MetaDataField.compression).text();
+                this.compression = compression == null || compression.isEmpty() ? null : MessageCompression.valueOf(compression);
+            } else {
+                this.compression = null; // not compressed.
+            }
 
             this.sequence = new RollCycleEncodeSequence(writePosition, rollIndexCount(), rollIndexSpacing());
 
@@ -164,6 +188,30 @@ public class SingleChronicleQueueStore implements WireStore {
                                      int indexSpacing,
                                      StoreRecovery recovery,
                                      int deltaCheckpointInterval) {
+        this(rollCycle, wireType, mappedBytes, epoch, indexCount, indexSpacing, recovery, deltaCheckpointInterval, 0, null);
+    }
+
+    /**
+     * @param recordSize  the length of every excerpt, which makes the position of an index a
+     *                    multiple of it, rather than something to look up, or 0 for excerpts of
+     *                    any length.
+     * @param compression what the excerpts are compressed with, or null if they aren't.
+     */
+    public SingleChronicleQueueStore(@Nullable RollCycle rollCycle,
+                                     @NotNull final WireType wireType,
+                                     @NotNull MappedBytes mappedBytes,
+                                     long epoch,
+                                     int indexCount,
+                                     int indexSpacing,
+                                     StoreRecovery recovery,
+                                     int deltaCheckpointInterval,
+                                     int recordSize,
+                                     @Nullable MessageCompression compression) {
+        if (recordSize < 0)
+            throw new IllegalArgumentException("recordSize: " + recordSize);
+        this.recordSize = recordSize;
+        this.slotSize = slotSize(recordSize);
+        this.compression = compression;
         this.recovery = recovery;
         this.roll = new SCQRoll(rollCycle, epoch);
         this.wireType = wireType;
@@ -241,12 +289,16 @@ public class SingleChronicleQueueStore implements WireStore {
 
     @Override
     public long writePosition() {
-        return this.writePosition.getVolatileValue();
+        long position = this.writePosition.getVolatileValue();
+        return recordSize > 0 ? position & ~END_OF_RECORDS : position;
     }
 
     @NotNull
     @Override
     public WireStore writePosition(long position) {
+        // the records are claimed by moving the write position on.
+        if (recordSize > 0)
+            return this;
 
         assert writePosition.getVolatileValue() + mappedFile.chunkSize() > position;
         int header = mappedBytes.readVolatileInt(position);
@@ -257,6 +309,17 @@ public class SingleChronicleQueueStore implements WireStore {
         return this;
     }
 
+    @NotNull
+    @Override
+    public WireStore writePositionOrdered(long position) {
+        if (recordSize > 0)
+            return this;
+        assert writePosition.getVolatileValue() <= position;
+        assert Wires.isReadyData(mappedBytes.readVolatileInt(position));
+        writePosition.setOrderedValue(position);
+        return this;
+    }
+
     /**
      * @return an epoch offset as the number of number of milliseconds since January 1, 1970,
      * 00:00:00 GMT
@@ -276,6 +339,8 @@ public class SingleChronicleQueueStore implements WireStore {
     @Nullable
     @Override
     public ScanResult moveToIndexForRead(@NotNull ExcerptContext ec, long index) {
+        if (recordSize > 0)
+            return moveToRecord(ec.wire().bytes(), index);
         try {
             return indexing.moveToIndex(recovery, ec, index);
         } catch (@NotNull UnrecoverableTimeoutException | StreamCorruptedException e) {
@@ -318,14 +383,168 @@ public class SingleChronicleQueueStore implements WireStore {
     @Override
     public long sequenceForPosition(@NotNull final ExcerptContext ec, final long position, boolean inclusive) throws
             UnrecoverableTimeoutException, StreamCorruptedException {
+        if (recordSize > 0) {
+            if (position == Long.MAX_VALUE)
+                return lastRecord(ec.wireForIndex().bytes());
+            long sequenceNumber = recordForPosition(ec.wireForIndex().bytes(), position);
+            return inclusive ? sequenceNumber : sequenceNumber - 1;
+        }
         return indexing.sequenceForPosition(recovery, ec, position, inclusive);
     }
 
     @Override
     public long lastSequenceNumber(@NotNull ExcerptContext ec) throws StreamCorruptedException {
+        if (recordSize > 0)
+            return lastRecord(ec.wireForIndex().bytes());
         return indexing.lastSequenceNumber(recovery, ec);
     }
 
+    // *************************************************************************
+    // Fixed size records
+    // *************************************************************************
+
+    /**
+     * A record's header is aligned, so its slot is padded after the excerpt, outside the length
+     * in its header.
+     */
+    static int slotSize(int recordSize) {
+        return recordSize == 0 ? 0 : (Wires.SPB_HEADER_SIZE + recordSize + 3) & ~3;
+    }
+
+    /**
+     * @return the length of every excerpt in this store, or 0 if they can be of any length.
+     */
+    int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * @return what the excerpts in this store are compressed with, or null if they aren't.
+     */
+    @Nullable
+    MessageCompression compression() {
+        return compression;
+    }
+
+    /**
+     * @return the position of the header which follows the one at a position, stepping over the
+     * padding after a record.
+     */
+    long nextHeader(long position, int header) {
+        return recordSize > 0 && Wires.isReadyData(header)
+                ? position + slotSize
+                : position + Wires.SPB_HEADER_SIZE + Wires.lengthOf(header);
+    }
+
+    private long recordsStart(@NotNull Bytes<?> bytes) {
+        long start = recordsStart;
+        if (start == 0)
+            recordsStart = start = Wires.SPB_HEADER_SIZE + Wires.lengthOf(bytes.readVolatileInt(0));
+        return start;
+    }
+
+    private long recordPosition(@NotNull Bytes<?> bytes, long sequenceNumber) {
+        return recordsStart(bytes) + sequenceNumber * slotSize;
+    }
+
+    /**
+     * @return the sequence number of the record a position is in, or -1 if it is before them.
+     */
+    long recordForPosition(@NotNull Bytes<?> bytes, long position) {
+        long start = recordsStart(bytes);
+        return position < start ? -1 : (position - start) / slotSize;
+    }
+
+    /**
+     * @return the position of the next record to be claimed.
+     * @throws EOFException if the store has been ended.
+     */
+    long nextRecord(@NotNull Bytes<?> bytes) throws EOFException {
+        long position = writePosition.getVolatileValue();
+        if ((position & END_OF_RECORDS) != 0)
+            throw new EOFException();
+        return Math.max(position, recordsStart(bytes));
+    }
+
+    /**
+     * Claims the next record with one add to the write position, and takes its header.
+     *
+     * @return the position of the record's header.
+     * @throws EOFException if the store has been ended.
+     */
+    long claimRecord(@NotNull Bytes<?> bytes) throws EOFException {
+        long start = recordsStart(bytes);
+        if (nextRecord(bytes) == start)
+            writePosition.compareAndSwapValue(0, start);
+        long position = writePosition.addAtomicValue(slotSize) - slotSize;
+        if ((position & END_OF_RECORDS) != 0 || !bytes.compareAndSwapInt(position, 0, Wires.NOT_COMPLETE))
+            throw new EOFException();
+        bytes.writeLimit(bytes.capacity());
+        bytes.writePosition(position + Wires.SPB_HEADER_SIZE);
+        bytes.writeLimit(position + Wires.SPB_HEADER_SIZE + recordSize);
+        return position;
+    }
+
+    /**
+     * Publishes a record with the length written in its header, so it isn't read with the zeros
+     * after it, which a reader steps over to the next slot. An empty record would read as one not
+     * yet written, so it is published as a record of zeros.
+     */
+    void updateRecord(@NotNull Bytes<?> bytes, long position) {
+        int length = Maths.toUInt31(bytes.writePosition() - position - Wires.SPB_HEADER_SIZE);
+        bytes.writeLimit(bytes.capacity());
+        bytes.writePosition(position + slotSize);
+        bytes.writeOrderedInt(position, length == 0 ? recordSize : length);
+    }
+
+    /**
+     * @return the last record which has been written, stepping back over those which have
+     * been claimed but not yet written.
+     */
+    private long lastRecord(@NotNull Bytes<?> bytes) {
+        long sequenceNumber = recordForPosition(bytes, writePosition()) - 1;
+        while (sequenceNumber >= 0 && !Wires.isReadyData(bytes.readVolatileInt(recordPosition(bytes, sequenceNumber))))
+            sequenceNumber--;
+        return sequenceNumber;
+    }
+
+    @NotNull
+    private ScanResult moveToRecord(@NotNull Bytes<?> bytes, long sequenceNumber) {
+        long end = Math.max(writePosition(), recordsStart(bytes));
+        long position = recordPosition(bytes, sequenceNumber);
+        if (position > end) {
+            bytes.readPositionUnlimited(end);
+            return ScanResult.NOT_REACHED;
+        }
+        bytes.readPositionUnlimited(position);
+        int header = bytes.readVolatileInt(position);
+        if (header == Wires.END_OF_DATA)
+            return ScanResult.END_OF_FILE;
+        if (Wires.isReadyData(header))
+            return ScanResult.FOUND;
+        // not found if it is the next to be read, not reached if one before it is still to be written.
+        return sequenceNumber == 0 || Wires.isReadyData(bytes.readVolatileInt(position - slotSize))
+                ? ScanResult.NOT_FOUND : ScanResult.NOT_REACHED;
+    }
+
+    /**
+     * Ends the records, so any claimed after this find the end of the store, and writes the end
+     * of file marker after the last one claimed before.
+     */
+    private void writeEndOfRecords(@NotNull Wire wire, long timeoutMS) throws TimeoutException {
+        long start = recordsStart(wire.bytes());
+        while (true) {
+            long position = writePosition.getVolatileValue();
+            if ((position & END_OF_RECORDS) != 0)
+                return;
+            if (writePosition.compareAndSwapValue(position, position | END_OF_RECORDS)) {
+                wire.bytes().writeLimit(wire.bytes().capacity());
+                wire.writeEndOfWire(timeoutMS, TimeUnit.MILLISECONDS, Math.max(position, start));
+                return;
+            }
+        }
+    }
+
     @NotNull
     @Override
     public String toString() {
@@ -345,6 +564,7 @@ public class SingleChronicleQueueStore implements WireStore {
     }
 
     private void onCleanup() {
+        indexing.close();
         mappedBytes.release();
     }
 
@@ -364,6 +584,11 @@ public class SingleChronicleQueueStore implements WireStore {
                 .int64forBinding(-1L, lastAcknowledgedIndexReplicated);
         wire.write(MetaDataField.recovery).typedMarshallable(recovery);
         wire.write(MetaDataField.deltaCheckpointInterval).int32(this.deltaCheckpointInterval);
+        // the fields are read in order, so a compression needs the record size before it.
+        if (recordSize > 0 || compression != null)
+            wire.write(MetaDataField.recordSize).int32(recordSize);
+        if (compression != null)
+            wire.write(MetaDataField.compression).text(compression.name());
         wire.padToCacheAlign();
     }
 
@@ -376,13 +601,15 @@ public class SingleChronicleQueueStore implements WireStore {
 
     @Override
     public boolean indexable(long index) {
-        return indexing.indexable(index);
+        return recordSize == 0 && indexing.indexable(index);
     }
 
     @Override
     public void setPositionForSequenceNumber(@NotNull final ExcerptContext ec, long sequenceNumber,
                                              long position)
             throws UnrecoverableTimeoutException, StreamCorruptedException {
+        if (recordSize > 0)
+            return;
 
         sequence.setSequence(sequenceNumber, position);
 
@@ -401,6 +628,10 @@ public class SingleChronicleQueueStore implements WireStore {
 
     @Override
     public ScanResult linearScanTo(final long index, final long knownIndex, final ExcerptContext ec, final long knownAddress) {
+        if (recordSize > 0) {
+            Bytes<?> bytes = ec.wire().bytes();
+            return moveToRecord(bytes, recordForPosition(bytes, knownAddress) + index - knownIndex);
+        }
         return indexing.linearScanTo(index, knownIndex, ec, knownAddress);
     }
 
@@ -418,7 +649,10 @@ public class SingleChronicleQueueStore implements WireStore {
     public void writeEOF(@NotNull Wire wire, long timeoutMS) throws TimeoutException {
         // just in case we are about to release this
         if (wire.bytes().tryReserve()) {
-            wire.writeEndOfWire(timeoutMS, TimeUnit.MILLISECONDS, writePosition());
+            if (recordSize > 0)
+                writeEndOfRecords(wire, timeoutMS);
+            else
+                wire.writeEndOfWire(timeoutMS, TimeUnit.MILLISECONDS, writePosition());
             wire.bytes().release();
         } else {
             Jvm.debug().on(getClass(), "Tried to writeEOF to as it was being closed");
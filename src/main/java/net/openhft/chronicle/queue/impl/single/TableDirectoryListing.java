@@ -78,6 +78,24 @@ final class TableDirectoryListing implements DirectoryListing {
         }
     }
 
+    /**
+     * The lowest and highest cycles are worked out again from the files left, and the mod count
+     * moved on, so every process using the queue lists its cycles again, under the table store's
+     * lock so the listing is never seen half updated.
+     */
+    @Override
+    public void onFileDeleted(final File file, final int cycle) {
+        if (readOnly) {
+            LOGGER.warn("DirectoryListing is read-only, not updating listing");
+            return;
+        }
+        tableStore.doWithExclusiveLock(ts -> {
+            refreshIndex();
+            modCount.addAtomicValue(1);
+            return this;
+        });
+    }
+
     @Override
     public int getMaxCreatedCycle() {
         return getMaxCycleValue();
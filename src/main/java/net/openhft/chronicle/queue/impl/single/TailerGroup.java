@@ -0,0 +1,257 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.io.Closeable;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.jetbrains.annotations.NotNull;
+
+import java.text.ParseException;
+
+/**
+ * Competing consumers of a queue: each excerpt is read by one member of the group, whichever
+ * thread or process it is in, without a thread handing the excerpts out.
+ * <p>
+ * The next index no member has claimed is kept in the queue's meta data {@link TableStore}, and a
+ * member claims the next {@code blockSize} indices, never past the end of a cycle, by moving it on
+ * with a compare and swap. Claiming blocks, e.g. of the index spacing, makes the members contend
+ * less, at the cost of a member holding excerpts not yet written. Each member keeps its claim and
+ * how far it has acknowledged through it in the meta data too, so a member which rejoins after a
+ * restart reads the excerpts it had claimed but not acknowledged first.
+ * <p>
+ * An excerpt is acknowledged once its member reads the next one, or closes. An excerpt is read
+ * once unless a member dies between saving a claim and making it, when the excerpts claimed may
+ * also be read by another member.
+ */
+public final class TailerGroup {
+    static final String KEY_PREFIX = "group.";
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final String name;
+    private final int blockSize;
+    @NotNull
+    private final LongValue next;
+
+    public TailerGroup(@NotNull SingleChronicleQueue queue, @NotNull String name) {
+        this(queue, name, 1);
+    }
+
+    /**
+     * @param blockSize how many indices a member claims at a time
+     */
+    public TailerGroup(@NotNull SingleChronicleQueue queue, @NotNull String name, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("blockSize: " + blockSize);
+        this.queue = queue;
+        this.name = name;
+        this.blockSize = blockSize;
+        this.next = acquireValueFor(KEY_PREFIX + name + ".next");
+    }
+
+    @NotNull
+    private LongValue acquireValueFor(@NotNull String key) {
+        final TableStore metaStore = queue.metaStore();
+        if (metaStore == null)
+            throw new IllegalStateException("A tailer group is kept in the queue, which can't be written to by a read only queue");
+        return metaStore.doWithExclusiveLock(ts -> ts.acquireValueFor(key));
+    }
+
+    /**
+     * @param memberName the same name on each restart, so the member finishes its claim. Only one
+     *                   member of a name should be in use at a time.
+     */
+    @NotNull
+    public Member join(@NotNull String memberName) {
+        return new Member(memberName);
+    }
+
+    @NotNull
+    public String name() {
+        return name;
+    }
+
+    public final class Member implements Closeable {
+        @NotNull
+        private final StoreTailer tailer;
+        // the claim, from the first index not acknowledged to the end, exclusive.
+        @NotNull
+        private final LongValue from;
+        @NotNull
+        private final LongValue to;
+        private long reading;
+        private long claimEnd;
+        private long acknowledged;
+        private boolean closed = false;
+
+        Member(@NotNull String memberName) {
+            final String prefix = KEY_PREFIX + name + ".member." + memberName;
+            this.from = acquireValueFor(prefix + ".from");
+            this.to = acquireValueFor(prefix + ".to");
+            this.tailer = (StoreTailer) queue.createTailer();
+            this.reading = acknowledged = from.getVolatileValue();
+            this.claimEnd = to.getVolatileValue();
+        }
+
+        /**
+         * @return the next excerpt of this member's claim, claiming more once it is read, or a
+         * document which is not present if there is nothing to claim yet.
+         */
+        @NotNull
+        public DocumentContext readingDocument() {
+            if (closed)
+                throw new IllegalStateException("The member has left the group " + name);
+            acknowledge();
+            while (true) {
+                if (reading >= claimEnd) {
+                    if (!claim())
+                        return NoDocumentContext.INSTANCE;
+                    continue;
+                }
+                if (tailer.index() != reading) {
+                    final ScanResult result = tailer.moveToIndexResult(reading);
+                    if (result != ScanResult.FOUND) {
+                        if (!isPastEndOfCycle(reading, result))
+                            return NoDocumentContext.INSTANCE;
+                        skipRestOfClaim();
+                        continue;
+                    }
+                }
+                final DocumentContext dc = tailer.readingDocument();
+                if (dc.isPresent() && dc.index() == reading) {
+                    reading++;
+                    return dc;
+                }
+                // the tailer may have rolled past the end of the cycle of the claim.
+                final boolean present = dc.isPresent();
+                dc.close();
+                if (!present && !isPastEndOfCycle(reading, tailer.moveToIndexResult(reading)))
+                    return NoDocumentContext.INSTANCE;
+                skipRestOfClaim();
+            }
+        }
+
+        /**
+         * Acknowledge the excerpts read, which {@link #readingDocument()} does before reading the
+         * next.
+         */
+        public void acknowledge() {
+            if (acknowledged == reading)
+                return;
+            from.setOrderedValue(reading);
+            acknowledged = reading;
+        }
+
+        private boolean claim() {
+            final RollCycle rollCycle = queue.rollCycle();
+            while (true) {
+                final long index = next.getVolatileValue();
+                final long first = queue.firstIndex();
+                if (first == Long.MAX_VALUE)
+                    return false;
+                if (index < first) {
+                    next.compareAndSwapValue(index, first);
+                    continue;
+                }
+                final ScanResult result = tailer.moveToIndexResult(index);
+                if (result != ScanResult.FOUND) {
+                    if (!isPastEndOfCycle(index, result))
+                        return false;
+                    final long nextCycleStart = nextCycleStart(index);
+                    if (nextCycleStart == Long.MIN_VALUE)
+                        return false;
+                    next.compareAndSwapValue(index, nextCycleStart);
+                    continue;
+                }
+                final int cycle = rollCycle.toCycle(index);
+                long end = index + blockSize;
+                if (rollCycle.toCycle(end - 1) != cycle)
+                    end = rollCycle.toIndex(cycle + 1, 0);
+
+                // saved before it is made, so a restart reads the claim if the member dies here.
+                from.setOrderedValue(index);
+                to.setOrderedValue(end);
+                if (next.compareAndSwapValue(index, end)) {
+                    reading = acknowledged = index;
+                    claimEnd = end;
+                    return true;
+                }
+                to.setOrderedValue(index);
+            }
+        }
+
+        private void skipRestOfClaim() {
+            reading = claimEnd;
+            acknowledge();
+        }
+
+        /**
+         * A later cycle existing doesn't mean this one is finished, as the next cycle can be
+         * created ahead of the roll.
+         *
+         * @param result of moving to the index, which wasn't found
+         * @return true if the index won't be written, as its cycle ends with an end of file marker
+         * before it, or has no file and the clock is past it.
+         */
+        private boolean isPastEndOfCycle(long index, @NotNull ScanResult result) {
+            if (result == ScanResult.END_OF_FILE)
+                return true;
+            final int cycle = queue.rollCycle().toCycle(index);
+            if (cycle >= queue.cycle())
+                return false;
+            try {
+                return queue.listCyclesBetween(cycle, cycle).isEmpty();
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * @return the first index of the cycle after that of the index, which has ended, or
+         * Long.MIN_VALUE if there isn't one yet.
+         */
+        private long nextCycleStart(long index) {
+            final RollCycle rollCycle = queue.rollCycle();
+            try {
+                // not nextCycle(), as the cycle after a claim may not exist.
+                final Long nextCycle = queue.listCyclesBetween(queue.firstCycle(), queue.lastCycle())
+                        .higher((long) rollCycle.toCycle(index));
+                return nextCycle == null ? Long.MIN_VALUE : rollCycle.toIndex(nextCycle.intValue(), 0);
+            } catch (ParseException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * Acknowledge the excerpts read and leave the group. Any of the claim not read is read
+         * when a member of the same name joins.
+         */
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            if (!queue.isClosed())
+                acknowledge();
+            tailer.releaseResources();
+        }
+    }
+}
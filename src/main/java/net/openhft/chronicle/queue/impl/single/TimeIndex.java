@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.core.io.Closeable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.UncheckedIOException;
+
+/**
+ * The wall clock time each indexed excerpt of a cycle was written, for queues built with {@code
+ * timeIndex(true)}. It is kept in a file next to the cycle's file, with the same name and the
+ * suffix {@link #SUFFIX}.
+ * <p>
+ * The file holds the number of entries used, followed by an entry for every excerpt whose
+ * sequence number is a multiple of the cycle's index spacing, entry {@code n} being the time
+ * sequence number {@code n * indexSpacing} was written. An entry which wasn't recorded, e.g. as
+ * it was written by an appender without the time index, is zero.
+ */
+class TimeIndex implements Closeable {
+    static final String SUFFIX = ".tq4";
+    private static final long CHUNK_SIZE = 1 << 20;
+    private static final long USED = 0;
+    private static final long ENTRIES = 8;
+
+    private final int cycle;
+    @NotNull
+    private final MappedBytes bytes;
+
+    private TimeIndex(int cycle, @NotNull MappedBytes bytes) {
+        this.cycle = cycle;
+        this.bytes = bytes;
+    }
+
+    @NotNull
+    static File fileFor(@NotNull File cycleFile) {
+        String name = cycleFile.getName();
+        if (name.endsWith(SingleChronicleQueue.SUFFIX))
+            name = name.substring(0, name.length() - SingleChronicleQueue.SUFFIX.length());
+        return new File(cycleFile.getParentFile(), name + SUFFIX);
+    }
+
+    /**
+     * @param file     of the time index
+     * @param cycle    the time index is for
+     * @param create   the file if it doesn't exist
+     * @param readOnly to map the file read only
+     * @return the time index, or null if the file doesn't exist and isn't to be created.
+     */
+    @Nullable
+    static TimeIndex of(@NotNull File file, int cycle, boolean create, boolean readOnly) {
+        if (!create && !file.exists())
+            return null;
+        try {
+            return new TimeIndex(cycle, MappedBytes.mappedBytes(file, CHUNK_SIZE, CHUNK_SIZE / 4, readOnly));
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException("Failed to open the time index " + file, e);
+        }
+    }
+
+    int cycle() {
+        return cycle;
+    }
+
+    @NotNull
+    MappedBytes bytes() {
+        return bytes;
+    }
+
+    /**
+     * Record the time an indexed excerpt was written.
+     *
+     * @param entry        the sequence number of the excerpt divided by the index spacing
+     * @param epochMillis  the wall clock time the excerpt was written
+     */
+    void record(long entry, long epochMillis) {
+        bytes.writeOrderedLong(ENTRIES + (entry << 3), epochMillis);
+        for (long used = bytes.readVolatileLong(USED); used <= entry; used = bytes.readVolatileLong(USED)) {
+            if (bytes.compareAndSwapLong(USED, used, entry + 1))
+                break;
+        }
+    }
+
+    long used() {
+        return bytes.readVolatileLong(USED);
+    }
+
+    long timeAt(long entry) {
+        return bytes.readVolatileLong(ENTRIES + (entry << 3));
+    }
+
+    /**
+     * Binary search for the last entry written before a time, stepping down over entries which
+     * weren't recorded.
+     *
+     * @return the entry, or -1 if there isn't one.
+     */
+    long lastBefore(long epochMillis) {
+        long lo = 0, hi = used() - 1, found = -1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long probe = mid;
+            long time = timeAt(probe);
+            while (time == 0 && probe > lo)
+                time = timeAt(--probe);
+
+            if (time == 0) {
+                lo = mid + 1;
+            } else if (time < epochMillis) {
+                found = probe;
+                lo = mid + 1;
+            } else {
+                hi = probe - 1;
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void close() {
+        if (bytes.refCount() > 0)
+            bytes.release();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return bytes.refCount() <= 0;
+    }
+}
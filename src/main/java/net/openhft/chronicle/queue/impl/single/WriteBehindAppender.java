@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.io.IORuntimeException;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import net.openhft.chronicle.wire.Wire;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An appender for {@link net.openhft.chronicle.queue.BufferMode#Asynchronous} which encodes each
+ * excerpt into a private buffer and hands it to the queue's {@link WriteBehindBuffer}, so the
+ * calling thread never waits on the header CAS or a page fault in the mapped file.
+ * <p>
+ * As the excerpt is written later by another thread, its index is not known when the document is
+ * closed.
+ */
+class WriteBehindAppender implements ExcerptAppender {
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final WriteBehindBuffer writeBehindBuffer;
+    @NotNull
+    private final WriteBehindContext context = new WriteBehindContext();
+    @Nullable
+    private Wire bufferWire;
+
+    WriteBehindAppender(@NotNull SingleChronicleQueue queue, @NotNull WriteBehindBuffer writeBehindBuffer) {
+        this.queue = queue;
+        this.writeBehindBuffer = writeBehindBuffer;
+        queue.addCloseListener(this, WriteBehindAppender::close);
+    }
+
+    @NotNull
+    @Override
+    public DocumentContext writingDocument(boolean metaData) throws UnrecoverableTimeoutException {
+        if (metaData)
+            throw new UnsupportedOperationException("Meta data can't be written with BufferMode.Asynchronous");
+        if (queue.isClosed.get())
+            throw new IllegalStateException("Queue is closed");
+        if (!context.isClosed)
+            throw new IllegalStateException("Nested blocks of writingDocument() not supported");
+        writeBehindBuffer.throwIfFailed();
+
+        if (bufferWire == null)
+            bufferWire = queue.wireType().apply(Bytes.elasticByteBuffer());
+        else
+            bufferWire.clear();
+        context.isClosed = false;
+        context.rollbackOnClose = false;
+        return context;
+    }
+
+    @Override
+    public void writeBytes(@NotNull BytesStore bytes) throws UnrecoverableTimeoutException {
+        if (queue.isClosed.get())
+            throw new IllegalStateException("Queue is closed");
+        writeBehindBuffer.throwIfFailed();
+        writeBehindBuffer.offer(bytes);
+    }
+
+    /**
+     * @return the index last written by the background thread, for any appender of this queue.
+     */
+    @Override
+    public long lastIndexAppended() {
+        return writeBehindBuffer.lastIndexAppended();
+    }
+
+    @Override
+    public int cycle() {
+        return queue.cycle();
+    }
+
+    /**
+     * The excerpts of all the appenders are written by the background thread's appender, so its
+     * padding can't be changed for one of them.
+     *
+     * @throws UnsupportedOperationException if the padding is not that of the background thread
+     */
+    @Override
+    public void padToCacheAlign(Padding padToCacheAlign) {
+        if (padToCacheAlign != padToCacheAlignMode())
+            throw new UnsupportedOperationException("The padding can't be changed with BufferMode.Asynchronous");
+    }
+
+    @NotNull
+    @Override
+    public Padding padToCacheAlignMode() {
+        return writeBehindBuffer.padToCacheAlignMode();
+    }
+
+    /**
+     * Indexing is performed by the background thread as it writes, so it can't be lazy.
+     *
+     * @throws UnsupportedOperationException if lazyIndexing is true
+     */
+    @NotNull
+    @Override
+    public ExcerptAppender lazyIndexing(boolean lazyIndexing) {
+        if (lazyIndexing)
+            throw new UnsupportedOperationException("Lazy indexing is not supported with BufferMode.Asynchronous");
+        return this;
+    }
+
+    @Override
+    public boolean lazyIndexing() {
+        return false;
+    }
+
+    @Override
+    public int sourceId() {
+        return queue.sourceId;
+    }
+
+    @Override
+    public boolean recordHistory() {
+        return sourceId() != 0;
+    }
+
+    @NotNull
+    @Override
+    public SingleChronicleQueue queue() {
+        return queue;
+    }
+
+    @Override
+    public Runnable getCloserJob() {
+        return this::close;
+    }
+
+    void close() {
+        Wire w = bufferWire;
+        bufferWire = null;
+        if (w != null)
+            w.bytes().release();
+    }
+
+    class WriteBehindContext implements DocumentContext {
+        boolean isClosed = true;
+        boolean rollbackOnClose = false;
+
+        @Override
+        public boolean isMetaData() {
+            return false;
+        }
+
+        @Override
+        public void metaData(boolean metaData) {
+            if (metaData)
+                throw new UnsupportedOperationException("Meta data can't be written with BufferMode.Asynchronous");
+        }
+
+        @Override
+        public boolean isPresent() {
+            return false;
+        }
+
+        @Override
+        public Wire wire() {
+            return bufferWire;
+        }
+
+        @Override
+        public boolean isNotComplete() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int sourceId() {
+            return WriteBehindAppender.this.sourceId();
+        }
+
+        /**
+         * @throws UnsupportedOperationException as the index is only assigned once the background
+         *                                       thread has written the excerpt
+         */
+        @Override
+        public long index() throws IORuntimeException {
+            throw new UnsupportedOperationException("The index of an excerpt is not known until it is written with BufferMode.Asynchronous");
+        }
+
+        public void rollbackOnClose() {
+            this.rollbackOnClose = true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return isClosed;
+        }
+
+        @Override
+        public void close() {
+            if (isClosed)
+                return;
+            isClosed = true;
+            if (rollbackOnClose || Thread.currentThread().isInterrupted())
+                return;
+            writeBehindBuffer.offer(bufferWire.bytes());
+        }
+    }
+}
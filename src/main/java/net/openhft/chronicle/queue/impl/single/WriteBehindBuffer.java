@@ -0,0 +1,202 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesRingBufferStats;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.threads.EventHandler;
+import net.openhft.chronicle.core.threads.EventLoop;
+import net.openhft.chronicle.core.threads.InvalidEventHandlerException;
+import net.openhft.chronicle.queue.impl.ringbuffer.MultiWriterBytesRingBuffer;
+import net.openhft.chronicle.queue.impl.single.SingleChronicleQueueExcerpts.StoreAppender;
+import net.openhft.chronicle.threads.Pauser;
+import net.openhft.chronicle.threads.VanillaEventLoop;
+import net.openhft.chronicle.wire.MarshallableOut.Padding;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * The write behind side of {@link net.openhft.chronicle.queue.BufferMode#Asynchronous}.
+ * <p>
+ * All the {@link WriteBehindAppender}s of a queue offer their excerpts to one off heap ring
+ * buffer, which is drained into the mapped cycle files by a single {@link StoreAppender}. The
+ * drain runs on the queue's {@link EventLoop} if one was configured, otherwise on an event loop
+ * of its own. An excerpt which can't be written is dropped, and the failure is thrown by the next
+ * call to an appender, or by closing the queue.
+ */
+class WriteBehindBuffer implements EventHandler {
+    private static final int MAX_MESSAGES_PER_ACTION = 256;
+    private static final long STATS_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1);
+
+    @NotNull
+    private final SingleChronicleQueue queue;
+    @NotNull
+    private final MultiWriterBytesRingBuffer ringBuffer;
+    @NotNull
+    private final StoreAppender appender;
+    @NotNull
+    private final Consumer<Bytes<?>> writer = this::write;
+    @NotNull
+    private final Consumer<BytesRingBufferStats> onRingBufferStats;
+    @Nullable
+    private final EventLoop ownEventLoop;
+    private final AtomicInteger offering = new AtomicInteger();
+    // the first failure to write an excerpt which hasn't been thrown yet
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private volatile boolean closing;
+    // guarded by this, the ring buffer is released once set
+    private boolean closed;
+    private volatile long lastIndexAppended = Long.MIN_VALUE;
+    private long nextStatsNs;
+
+    WriteBehindBuffer(@NotNull SingleChronicleQueue queue) {
+        this.queue = queue;
+        this.ringBuffer = new MultiWriterBytesRingBuffer(queue.bufferCapacity());
+        this.appender = new StoreAppender(queue, false);
+        this.onRingBufferStats = queue.onRingBufferStats();
+        this.nextStatsNs = System.nanoTime() + STATS_INTERVAL_NS;
+
+        EventLoop eventLoop = queue.eventLoop();
+        if (eventLoop == null) {
+            eventLoop = new VanillaEventLoop(null, queue.file().getName() + "/write-behind",
+                    Pauser.balanced(), 20, true, false);
+            ownEventLoop = eventLoop;
+            eventLoop.addHandler(this);
+            eventLoop.start();
+        } else {
+            ownEventLoop = null;
+            eventLoop.addHandler(this);
+        }
+    }
+
+    /**
+     * Copy an excerpt into the ring buffer, pausing while the ring buffer is full.
+     *
+     * @param bytes the excerpt from its readPosition to its readLimit
+     * @throws IllegalStateException if the queue is being closed
+     */
+    void offer(@NotNull BytesStore bytes) {
+        if (bytes.readRemaining() > ringBuffer.maxMessageLength())
+            throw new IllegalArgumentException("Excerpt of " + bytes.readRemaining() + " bytes is too large " +
+                    "for the write behind buffer, increase the bufferCapacity to more than " + 2 * bytes.readRemaining());
+        // close() waits for the offers in progress before the final drain
+        offering.incrementAndGet();
+        try {
+            Pauser pauser = null;
+            while (true) {
+                if (closing)
+                    throw new IllegalStateException("Queue is closed");
+                if (ringBuffer.offer(bytes))
+                    return;
+                if (pauser == null)
+                    pauser = queue.pauserSupplier.get();
+                pauser.pause();
+            }
+        } finally {
+            offering.decrementAndGet();
+        }
+    }
+
+    /**
+     * @throws IllegalStateException if an excerpt couldn't be written since this was last called
+     */
+    void throwIfFailed() {
+        final Exception e = failure.getAndSet(null);
+        if (e != null)
+            throw new IllegalStateException("Unable to write a buffered excerpt to " + queue.file() + ", it was dropped", e);
+    }
+
+    @NotNull
+    Padding padToCacheAlignMode() {
+        // never changed for the appender which drains
+        return appender.padToCacheAlignMode();
+    }
+
+    long lastIndexAppended() {
+        long index = lastIndexAppended;
+        if (index == Long.MIN_VALUE)
+            throw new IllegalStateException("nothing has been appended, so there is no last index");
+        return index;
+    }
+
+    @NotNull
+    MultiWriterBytesRingBuffer ringBuffer() {
+        return ringBuffer;
+    }
+
+    @Override
+    public synchronized boolean action() throws InvalidEventHandlerException {
+        if (closed)
+            throw new InvalidEventHandlerException();
+
+        boolean busy = false;
+        for (int i = 0; i < MAX_MESSAGES_PER_ACTION && ringBuffer.poll(writer); i++)
+            busy = true;
+
+        long now = System.nanoTime();
+        if (now >= nextStatsNs) {
+            nextStatsNs = now + STATS_INTERVAL_NS;
+            onRingBufferStats.accept(ringBuffer);
+        }
+        return busy;
+    }
+
+    private void write(Bytes<?> bytes) {
+        try {
+            appender.writeBytes(bytes);
+            lastIndexAppended = appender.lastIndexAppended();
+
+        } catch (Exception e) {
+            if (!failure.compareAndSet(null, e))
+                Jvm.warn().on(getClass(), "Unable to write a buffered excerpt to " + queue.file() + ", dropping it", e);
+        }
+    }
+
+    /**
+     * Refuse any more excerpts, wait for the excerpts already buffered to be written, then stop
+     * draining and release the ring buffer. The appender used to drain is closed with the queue,
+     * which then calls {@link #throwIfFailed()}.
+     */
+    void close() {
+        closing = true;
+        // an offer in progress sees closing after at most one pause
+        while (offering.get() > 0)
+            Thread.yield();
+        long end = System.currentTimeMillis() + queue.timeoutMS;
+        while (!ringBuffer.isEmpty()) {
+            if (System.currentTimeMillis() > end) {
+                Jvm.warn().on(getClass(), "Closing " + queue.file() + " with " + ringBuffer.readRemaining() +
+                        " bytes of buffered excerpts which were not written");
+                break;
+            }
+            Jvm.pause(1);
+        }
+        if (ownEventLoop != null)
+            ownEventLoop.close();
+        synchronized (this) {
+            closed = true;
+            ringBuffer.release();
+        }
+    }
+}
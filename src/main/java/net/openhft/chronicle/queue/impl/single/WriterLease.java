@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 higherfrequencytrading.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.impl.TableStore;
+import net.openhft.chronicle.threads.NamedThreadFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The lease of the one appender allowed to write to a queue built with {@code
+ * exclusiveWriter(true)}. The lease is recorded in the queue's metadata {@link TableStore} as the
+ * PID of the process holding it, and within that process it is held by a single appender.
+ * <p>
+ * A lease left by a process which is no longer running is taken over. On Linux the process is
+ * looked for in {@code /proc}. Elsewhere the holder writes a heartbeat every quarter of {@link
+ * #TIMEOUT_MS}, and a lease without a heartbeat for longer than that is taken to be abandoned.
+ */
+class WriterLease {
+    static final String LEASE_KEY = "writer.exclusiveLease";
+    static final String HEARTBEAT_KEY = "writer.exclusiveLease.heartbeat";
+    static final long TIMEOUT_MS = Long.getLong("chronicle.queue.writerLease.timeoutMS", 10_000);
+    private static final long UNLEASED = Long.MIN_VALUE;
+    private static final long PID = Jvm.getProcessId();
+    @Nullable
+    private static ScheduledExecutorService heartbeats;
+    @NotNull
+    private final LongValue lease;
+    @NotNull
+    private final LongValue heartbeat;
+    @NotNull
+    private final String path;
+    private final AtomicReference<Object> holder = new AtomicReference<>();
+    @Nullable
+    private ScheduledFuture<?> heartbeatTask;
+
+    WriterLease(@NotNull TableStore metaStore, @NotNull File path) {
+        this.lease = metaStore.doWithExclusiveLock(ts -> ts.acquireValueFor(LEASE_KEY));
+        this.heartbeat = metaStore.doWithExclusiveLock(ts -> ts.acquireValueFor(HEARTBEAT_KEY));
+        this.path = path.getPath();
+    }
+
+    private static synchronized ScheduledExecutorService heartbeats() {
+        if (heartbeats == null)
+            heartbeats = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("writer-lease-heartbeat", true));
+        return heartbeats;
+    }
+
+    private boolean isProcessAlive(long pid) {
+        if (OS.isLinux())
+            return new File("/proc/" + pid).exists();
+        return System.currentTimeMillis() - heartbeat.getVolatileValue() <= TIMEOUT_MS;
+    }
+
+    /**
+     * Wait for the lease to be available, then take it.
+     *
+     * @param appender  to hold the lease
+     * @param timeoutMS to wait for the lease before giving up
+     * @throws IllegalStateException if the lease is still held by another appender after the
+     *                               timeout
+     */
+    void acquire(@NotNull Object appender, long timeoutMS) throws IllegalStateException {
+        if (holder.get() == appender)
+            return;
+        long end = System.currentTimeMillis() + timeoutMS;
+        while (true) {
+            if (holder.compareAndSet(null, appender)) {
+                long pid = lease.getVolatileValue();
+                if (pid == UNLEASED || !isProcessAlive(pid)) {
+                    // before the lease, so no one finds it without a heartbeat.
+                    heartbeat.setOrderedValue(System.currentTimeMillis());
+                    if (lease.compareAndSwapValue(pid, PID)) {
+                        if (pid != UNLEASED)
+                            Jvm.warn().on(getClass(), "Taking over the exclusive writer lease of " + path +
+                                    " from PID " + pid + " which is no longer running");
+                        startHeartbeat();
+                        return;
+                    }
+                }
+                holder.set(null);
+            }
+            if (System.currentTimeMillis() > end)
+                throw new IllegalStateException("Unable to acquire the exclusive writer lease of " + path +
+                        " after " + timeoutMS + " ms, it is held by " +
+                        (holder.get() == null ? "PID " + lease.getVolatileValue() : "another appender of this queue"));
+            Jvm.pause(1);
+        }
+    }
+
+    private synchronized void startHeartbeat() {
+        long period = Math.max(1, TIMEOUT_MS / 4);
+        heartbeatTask = heartbeats().scheduleAtFixedRate(
+                () -> heartbeat.setOrderedValue(System.currentTimeMillis()), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopHeartbeat() {
+        if (heartbeatTask != null) {
+            heartbeatTask.cancel(false);
+            heartbeatTask = null;
+        }
+    }
+
+    /**
+     * Give up the lease, if the appender holds it.
+     */
+    void release(@NotNull Object appender) {
+        if (!holder.compareAndSet(appender, null))
+            return;
+        stopHeartbeat();
+        if (!lease.compareAndSwapValue(PID, UNLEASED))
+            Jvm.warn().on(getClass(), "The exclusive writer lease of " + path + " was taken by PID " +
+                    lease.getVolatileValue() + " while held by this process");
+    }
+
+    /**
+     * Give up the lease, whichever appender of this queue holds it.
+     */
+    void close() {
+        Object appender = holder.get();
+        if (appender != null)
+            release(appender);
+    }
+
+    /**
+     * Reads the lease with a single volatile read while it is free, so it can be checked on
+     * every append.
+     *
+     * @return true if any appender, in any process which is still running, holds the lease.
+     */
+    boolean isHeld() {
+        long pid = lease.getVolatileValue();
+        return pid != UNLEASED && (pid == PID || isProcessAlive(pid));
+    }
+
+    boolean isHeldBy(@NotNull Object appender) {
+        return holder.get() == appender;
+    }
+
+    long holderPid() {
+        return lease.getVolatileValue();
+    }
+}
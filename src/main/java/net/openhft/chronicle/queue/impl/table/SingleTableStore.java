@@ -39,6 +39,7 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class SingleTableStore implements TableStore {
@@ -236,6 +237,34 @@ public class SingleTableStore implements TableStore {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void forEachKey(Consumer<CharSequence> consumer) {
+        StringBuilder sb = Wires.acquireStringBuilder();
+        mappedBytes.reserve();
+        try {
+            mappedBytes.readPosition(0);
+            mappedBytes.readLimit(mappedBytes.realCapacity());
+            while (mappedWire.readDataHeader()) {
+                int header = mappedBytes.readInt();
+                if (Wires.isNotComplete(header))
+                    break;
+                long readPosition = mappedBytes.readPosition();
+                int length = Wires.lengthOf(header);
+                mappedWire.readEventName(sb);
+                consumer.accept(sb);
+                mappedBytes.readPosition(readPosition + length);
+            }
+        } catch (EOFException e) {
+            throw new IORuntimeException(e);
+
+        } finally {
+            mappedBytes.release();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,6 +54,23 @@ public class RollingResourcesCacheTest {
         assertThat(cache.parseCount(FILE_NAME), is(CYCLE_NUMBER));
     }
 
+    @Test
+    public void shouldNameAndParseThePartsOfAPeriod() throws Exception {
+        final RollingResourcesCache cache =
+                new RollingResourcesCache(ROLL_CYCLE, 8, BUGGY_EPOCH, File::new, File::getName);
+        final int firstPart = CYCLE_NUMBER << 8;
+
+        assertThat(cache.resourceFor(firstPart).text, is(FILE_NAME));
+        assertThat(cache.resourceFor(firstPart + 3).text, is(FILE_NAME + "_003"));
+        assertThat(cache.resourceFor(firstPart + 255).text, is(FILE_NAME + "_255"));
+        assertThat(cache.parseCount(FILE_NAME), is(firstPart));
+        assertThat(cache.parseCount(FILE_NAME + "_003"), is(firstPart + 3));
+
+        final long first = cache.toLong(new File(FILE_NAME));
+        assertThat(cache.toLong(new File(FILE_NAME + "_003")), is(first + 3));
+        assertThat(cache.toLong(new File("19761021")), is(first + 256));
+    }
+
     @Test(expected = RuntimeException.class)
     public void parseIncorrectlyFormattedName() throws Exception {
         final RollingResourcesCache cache =
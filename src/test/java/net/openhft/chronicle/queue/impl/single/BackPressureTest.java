@@ -0,0 +1,179 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.BackPressurePolicy;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.UnrecoverableTimeoutException;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class BackPressureTest {
+
+    @Test
+    public void withoutNamedTailersTheAppenderIsNotHeldBack() {
+        try (SingleChronicleQueue queue = builder(BackPressurePolicy.FAIL).build()) {
+            append(queue.acquireAppender(), 0, 20);
+            // an unnamed tailer isn't registered.
+            assertEquals(0, read(queue.createTailer()));
+        }
+    }
+
+    @Test
+    public void failsOnceTooFarAheadOfTheSlowestTailer() {
+        try (SingleChronicleQueue queue = builder(BackPressurePolicy.FAIL).build()) {
+            final ExcerptTailer fast = queue.createTailer("fast");
+            final ExcerptTailer slow = queue.createTailer("slow");
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 5);
+            for (int i = 0; i < 5; i++)
+                assertEquals(i, read(fast));
+            assertAppendFails(appender);
+
+            assertEquals(0, read(slow));
+            assertEquals(1, read(slow));
+            append(appender, 5, 2);
+            assertAppendFails(appender);
+        }
+    }
+
+    @Test
+    public void dropsOnceTooFarAheadOfTheSlowestTailer() {
+        try (SingleChronicleQueue queue = builder(BackPressurePolicy.DROP).build()) {
+            final ExcerptTailer tailer = queue.createTailer("a");
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 8);
+            for (int i = 0; i < 5; i++)
+                assertEquals(i, read(tailer));
+            assertNothingToRead(tailer);
+
+            append(appender, 8, 1);
+            assertEquals(8, read(tailer));
+        }
+    }
+
+    @Test
+    public void blocksUntilTheTailerCatchesUp() throws InterruptedException {
+        try (SingleChronicleQueue queue = builder(BackPressurePolicy.BLOCK).build()) {
+            final ExcerptTailer tailer = queue.createTailer("a");
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 5);
+
+            final Thread reader = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                read(tailer);
+            });
+            reader.start();
+            final long start = System.nanoTime();
+            append(appender, 5, 1);
+            assertTrue(System.nanoTime() - start >= 50_000_000L);
+            reader.join();
+
+            for (int i = 1; i < 6; i++)
+                assertEquals(i, read(tailer));
+        }
+    }
+
+    @Test
+    public void aRemovedTailerNoLongerHoldsBackTheAppender() {
+        try (SingleChronicleQueue queue = builder(BackPressurePolicy.FAIL).build()) {
+            final ExcerptTailer abandoned = queue.createTailer("abandoned");
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 5);
+            assertAppendFails(appender);
+
+            assertTrue(queue.removeNamedTailer("abandoned"));
+            assertFalse(queue.removeNamedTailer("never used"));
+            append(appender, 5, 20);
+            // the tailer still open no longer saves its index.
+            assertEquals(0, read(abandoned));
+            append(appender, 25, 20);
+
+            // created again, it starts at the start.
+            assertEquals(0, read(queue.createTailer("abandoned")));
+        }
+    }
+
+    @Test(expected = UnrecoverableTimeoutException.class)
+    public void blockingGivesUpAfterTheTimeout() {
+        try (SingleChronicleQueue queue = builder(BackPressurePolicy.BLOCK).timeoutMS(100).build()) {
+            queue.createTailer("a");
+            append(queue.acquireAppender(), 0, 6);
+        }
+    }
+
+    @Test
+    public void failsOnceTooManyBytesAhead() {
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(tempDir()).testBlockSize()
+                .maxTailerLagBytes(1)
+                .backPressureCheckInterval(1)
+                .backPressurePolicy(BackPressurePolicy.FAIL)
+                .build()) {
+            queue.createTailer("a");
+            final ExcerptAppender appender = queue.acquireAppender();
+            int written = 0;
+            try {
+                for (; written < 10; written++)
+                    append(appender, written, 1);
+                fail();
+            } catch (IllegalStateException expected) {
+                assertTrue(written < 10);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void theLagMustBePositive() {
+        SingleChronicleQueueBuilder.binary(tempDir()).maxTailerLagMessages(0);
+    }
+
+    private static File tempDir() {
+        return DirectoryUtils.tempDir(BackPressureTest.class.getSimpleName());
+    }
+
+    private static SingleChronicleQueueBuilder builder(BackPressurePolicy policy) {
+        return SingleChronicleQueueBuilder.binary(tempDir()).testBlockSize()
+                .maxTailerLagMessages(5)
+                .backPressurePolicy(policy);
+    }
+
+    private static void assertAppendFails(ExcerptAppender appender) {
+        try {
+            append(appender, -1, 1);
+            fail();
+        } catch (IllegalStateException expected) {
+            // too far ahead
+        }
+    }
+
+    private static void append(ExcerptAppender appender, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            final int n = i;
+            appender.writeDocument(w -> w.write("n").int32(n));
+        }
+    }
+
+    private static int read(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().read("n").int32();
+        }
+    }
+
+    private static void assertNothingToRead(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertFalse(dc.isPresent());
+        }
+    }
+}
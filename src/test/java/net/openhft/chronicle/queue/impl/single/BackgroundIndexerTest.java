@@ -0,0 +1,123 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.threads.Pauser;
+import net.openhft.chronicle.threads.VanillaEventLoop;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class BackgroundIndexerTest {
+
+    private static long nextEntryToBeIndexed(SingleChronicleQueue queue, int cycle) {
+        SingleChronicleQueueStore store = (SingleChronicleQueueStore) queue.storeForCycle(cycle, queue.epoch(), false);
+        try {
+            return store.indexing.nextEntryToBeIndexed();
+        } finally {
+            queue.release(store);
+        }
+    }
+
+    @Test
+    public void appendersLeaveIndexingToTheIndexer() {
+        final File dir = DirectoryUtils.tempDir(BackgroundIndexerTest.class.getSimpleName());
+        // the indexer doesn't run until this is started.
+        VanillaEventLoop eventLoop = new VanillaEventLoop(null, "indexer", Pauser.balanced(), 20, true, false);
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .testBlockSize()
+                .eventLoop(eventLoop)
+                .backgroundIndexing(true)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10_000; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("n").int32(i);
+                }
+            }
+            long lastIndex = appender.lastIndexAppended();
+            int cycle = appender.cycle();
+            long lastSequence = queue.rollCycle().toSequenceNumber(lastIndex);
+            assertEquals(9_999, lastSequence);
+            assertEquals(0, nextEntryToBeIndexed(queue, cycle));
+
+            // still found, by scanning
+            ExcerptTailer tailer = queue.createTailer();
+            assertTrue(tailer.moveToIndex(lastIndex - 5_000));
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals(4_999, dc.wire().read("n").int32());
+            }
+
+            eventLoop.start();
+            BackgroundIndexer indexer = queue.backgroundIndexer();
+            long end = System.currentTimeMillis() + 10_000;
+            while (indexer.lastIndexRead() != lastIndex) {
+                assertTrue("indexer didn't catch up", System.currentTimeMillis() < end);
+                Jvm.pause(1);
+            }
+            assertTrue(nextEntryToBeIndexed(queue, cycle) > lastSequence);
+
+            for (int i = 9_999; i >= 0; i -= 997) {
+                assertTrue(tailer.moveToIndex(queue.rollCycle().toIndex(cycle, i)));
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertEquals(i, dc.wire().read("n").int32());
+                }
+            }
+        } finally {
+            eventLoop.close();
+        }
+    }
+
+    @Test
+    public void indexesEveryEntryOfTheQueuesIndexSpacing() {
+        final File dir = DirectoryUtils.tempDir(BackgroundIndexerTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .indexSpacing(8)
+                .testBlockSize()
+                .backgroundIndexing(true)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i <= 1_000; i++)
+                appender.writeText("text-" + i);
+
+            BackgroundIndexer indexer = queue.backgroundIndexer();
+            long end = System.currentTimeMillis() + 10_000;
+            while (indexer.lastIndexRead() != appender.lastIndexAppended()) {
+                assertTrue("indexer didn't catch up", System.currentTimeMillis() < end);
+                Jvm.pause(1);
+            }
+            // the last entry is for sequence 1000, which the default spacing of DAILY, 16, skips.
+            assertEquals(1_008, nextEntryToBeIndexed(queue, appender.cycle()));
+        }
+    }
+
+    @Test
+    public void indexerRunsOnItsOwnThreadWithoutAnEventLoop() {
+        final File dir = DirectoryUtils.tempDir(BackgroundIndexerTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .backgroundIndexing(true)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 64; i++)
+                appender.writeText("text-" + i);
+
+            BackgroundIndexer indexer = queue.backgroundIndexer();
+            long end = System.currentTimeMillis() + 10_000;
+            while (indexer.lastIndexRead() != appender.lastIndexAppended()) {
+                assertTrue("indexer didn't catch up", System.currentTimeMillis() < end);
+                Jvm.pause(1);
+            }
+            assertTrue(nextEntryToBeIndexed(queue, appender.cycle()) > 0);
+        }
+    }
+}
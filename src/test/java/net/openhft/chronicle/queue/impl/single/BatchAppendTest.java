@@ -0,0 +1,144 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.BatchDocumentContext;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class BatchAppendTest {
+
+    @Test
+    public void batchIsReadAsSeparateDocuments() {
+        final File dir = DirectoryUtils.tempDir(BatchAppendTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("before");
+            long first = appender.lastIndexAppended() + 1;
+
+            try (BatchDocumentContext batch = appender.writingDocuments(500)) {
+                for (int i = 0; i < 500; i++) {
+                    batch.nextDocument().write("price").float64(i * 0.5);
+                    assertEquals(first + i, batch.index());
+                }
+                assertEquals(500, batch.documents());
+            }
+            assertEquals(first + 499, appender.lastIndexAppended());
+
+            appender.writeText("after");
+            assertEquals(first + 500, appender.lastIndexAppended());
+
+            ExcerptTailer tailer = queue.createTailer();
+            assertEquals("before", tailer.readText());
+            for (int i = 0; i < 500; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(first + i, dc.index());
+                    assertEquals(i * 0.5, dc.wire().read("price").float64(), 0.0);
+                }
+            }
+            assertEquals("after", tailer.readText());
+
+            // every document of the batch has been indexed
+            for (int i = 499; i >= 0; i -= 37) {
+                assertTrue(tailer.moveToIndex(first + i));
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertEquals(i * 0.5, dc.wire().read("price").float64(), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rolledBackBatchIsSkipped() {
+        final File dir = DirectoryUtils.tempDir(BatchAppendTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            try (BatchDocumentContext batch = appender.writingDocuments(3)) {
+                batch.nextDocument().write("skipped").int32(1);
+                batch.nextDocument().write("skipped").int32(2);
+                batch.rollbackOnClose();
+            }
+            // an empty batch is not published either
+            try (BatchDocumentContext batch = appender.writingDocuments(3)) {
+                assertEquals(0, batch.documents());
+            }
+            appender.writeText("one");
+            try (BatchDocumentContext batch = appender.writingDocuments(2)) {
+                batch.nextDocument().bytes().append8bit("two");
+                batch.nextDocument().bytes().append8bit("three");
+            }
+
+            ExcerptTailer tailer = queue.createTailer();
+            assertEquals("one", tailer.readText());
+            assertEquals("two", tailer.readText());
+            assertEquals("three", tailer.readText());
+            assertEquals(null, tailer.readText());
+        }
+    }
+
+    @Test
+    public void batchCantHoldMoreThanItsCapacity() {
+        final File dir = DirectoryUtils.tempDir(BatchAppendTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            try (BatchDocumentContext batch = appender.writingDocuments(1)) {
+                batch.nextDocument().write("one").int32(1);
+                try {
+                    batch.nextDocument();
+                    fail();
+                } catch (IllegalStateException expected) {
+                    // the first document is still published
+                }
+            }
+
+            ExcerptTailer tailer = queue.createTailer();
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals(1, dc.wire().read("one").int32());
+            }
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void lazyIndexedBatch() {
+        final File dir = DirectoryUtils.tempDir(BatchAppendTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender().lazyIndexing(true);
+            try (BatchDocumentContext batch = appender.writingDocuments(10)) {
+                for (int i = 0; i < 10; i++)
+                    batch.nextDocument().write("n").int32(i);
+            }
+
+            ExcerptTailer tailer = queue.createTailer();
+            long index = 0;
+            for (int i = 0; i < 10; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertEquals(i, dc.wire().read("n").int32());
+                    index = dc.index();
+                }
+            }
+            assertEquals(index, appender.lastIndexAppended());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wire;
+import net.openhft.chronicle.wire.WireType;
+import org.junit.Test;
+
+import java.io.File;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static net.openhft.chronicle.queue.impl.single.BinarySearch.NOT_FOUND;
+import static org.junit.Assert.assertEquals;
+
+public final class BinarySearchRuleTest {
+
+    private static final Comparator<Wire> COMPARATOR = (o1, o2) ->
+            Integer.compare(o1.bytes().readInt(o1.bytes().readPosition()),
+                    o2.bytes().readInt(o2.bytes().readPosition()));
+
+    @Test
+    public void exactFloorAndCeilingAcrossCycles() throws ParseException {
+        final SetTimeProvider stp = new SetTimeProvider();
+        long time = 0;
+        stp.currentTimeMillis(time);
+        final File dir = DirectoryUtils.tempDir(BinarySearchRuleTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(stp)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final List<Long> indices = new ArrayList<>();
+            final List<Integer> keys = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                // even keys, each three times
+                final int key = i / 3 * 2;
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().bytes().writeInt(key);
+                }
+                indices.add(appender.lastIndexAppended());
+                keys.add(key);
+                // several cycles per second, with a gap of missing cycles half way
+                time += i == 100 ? 5_000 : 137;
+                stp.currentTimeMillis(time);
+            }
+
+            for (int key = -1; key <= keys.get(keys.size() - 1) + 1; key++) {
+                long exact = NOT_FOUND, floor = NOT_FOUND, ceiling = NOT_FOUND;
+                for (int i = 0; i < keys.size(); i++) {
+                    if (keys.get(i) <= key)
+                        floor = indices.get(i);
+                    if (keys.get(i) >= key && ceiling == NOT_FOUND)
+                        ceiling = indices.get(i);
+                    if (keys.get(i) == key && exact == NOT_FOUND)
+                        exact = indices.get(i);
+                }
+
+                final Wire wire = toWire(key);
+                try {
+                    assertEquals("exact " + key, exact, BinarySearch.search(queue, wire, COMPARATOR, BinarySearch.Rule.EXACT));
+                    assertEquals("floor " + key, floor, BinarySearch.search(queue, wire, COMPARATOR, BinarySearch.Rule.FLOOR));
+                    assertEquals("ceiling " + key, ceiling, BinarySearch.search(queue, wire, COMPARATOR, BinarySearch.Rule.CEILING));
+                } finally {
+                    wire.bytes().release();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyQueueHasNothingToFind() throws ParseException {
+        final File dir = DirectoryUtils.tempDir(BinarySearchRuleTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            final Wire wire = toWire(1);
+            try {
+                for (BinarySearch.Rule rule : BinarySearch.Rule.values())
+                    assertEquals(NOT_FOUND, BinarySearch.search(queue, wire, COMPARATOR, rule));
+            } finally {
+                wire.bytes().release();
+            }
+        }
+    }
+
+    private static Wire toWire(int key) {
+        final Wire wire = WireType.BINARY.apply(Bytes.elasticByteBuffer());
+        wire.bytes().writeInt(key);
+        return wire;
+    }
+}
@@ -0,0 +1,112 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.OS;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class ClaimCommitTest {
+
+    @Test
+    public void encodeInPlace() {
+        final File dir = DirectoryUtils.tempDir(ClaimCommitTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            // enough messages to cross several chunks of the cycle file.
+            for (int i = 0; i < 20_000; i++) {
+                long address = appender.claim(64);
+                OS.memory().writeLong(address, i);
+                OS.memory().writeInt(address + 8, ~i);
+                appender.commit(12 + i % 8);
+            }
+
+            ExcerptTailer tailer = queue.createTailer();
+            Bytes<?> bytes = Bytes.allocateElasticDirect(64);
+            try {
+                for (int i = 0; i < 20_000; i++) {
+                    bytes.clear();
+                    assertTrue(tailer.readBytes(bytes));
+                    assertEquals(12 + i % 8, bytes.readRemaining());
+                    assertEquals(i, bytes.readLong());
+                    assertEquals(~i, bytes.readInt());
+                }
+                assertFalse(tailer.readBytes(bytes));
+            } finally {
+                bytes.release();
+            }
+            assertEquals(tailer.index() - 1, appender.lastIndexAppended());
+        }
+    }
+
+    @Test
+    public void abortedClaimIsNotPublished() {
+        final File dir = DirectoryUtils.tempDir(ClaimCommitTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            long address = appender.claim(16);
+            OS.memory().writeLong(address, 1L);
+            appender.abort();
+
+            address = appender.claim(16);
+            OS.memory().writeLong(address, 2L);
+            appender.commit(8);
+
+            ExcerptTailer tailer = queue.createTailer();
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertTrue(dc.isPresent());
+                assertEquals(2L, dc.wire().bytes().readLong());
+            }
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void claimsAreChecked() {
+        final File dir = DirectoryUtils.tempDir(ClaimCommitTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            try {
+                appender.commit(8);
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+            try {
+                appender.claim(1 << 30);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            appender.claim(8);
+            try {
+                appender.commit(9);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                appender.commit(0);
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            appender.commit(8);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.BatchDocumentContext;
+import net.openhft.chronicle.queue.CommitListener;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public final class CommitListenerTest {
+
+    @Test
+    public void aListenerIsToldOfEachCommitOnTheAppendingThread() {
+        final File dir = DirectoryUtils.tempDir(CommitListenerTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final List<long[]> commits = new ArrayList<>();
+            final List<Thread> threads = new ArrayList<>();
+            queue.addCommitListener((index, position) -> {
+                commits.add(new long[]{index, position});
+                threads.add(Thread.currentThread());
+            });
+
+            final ExcerptAppender appender = queue.acquireAppender();
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("n").int32(1);
+            }
+            appender.writeBytes(Bytes.from("bytes"));
+            try (BatchDocumentContext batch = appender.writingDocuments(2)) {
+                batch.nextDocument().write("n").int32(2);
+                batch.nextDocument().write("n").int32(3);
+            }
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("skipped").int32(0);
+                ((SingleChronicleQueueExcerpts.StoreAppender.StoreAppenderContext) dc).rollbackOnClose();
+            }
+
+            assertEquals(3, commits.size());
+            final long first = queue.firstIndex();
+            assertEquals(first, commits.get(0)[0]);
+            assertEquals(first + 1, commits.get(1)[0]);
+            // a batch is committed once, for its last excerpt.
+            assertEquals(first + 3, commits.get(2)[0]);
+            assertEquals(appender.lastIndexAppended(), commits.get(2)[0]);
+            for (Thread thread : threads)
+                assertSame(Thread.currentThread(), thread);
+
+            // the position is where the excerpt's header is.
+            final ExcerptTailer tailer = queue.createTailer();
+            for (long[] commit : new long[][]{commits.get(0), commits.get(1)}) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertEquals(commit[0], dc.index());
+                    assertEquals(commit[1], dc.wire().bytes().readPosition() - 4);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void anAsyncListenerIsToldInOrderOffTheAppendingThread() throws InterruptedException {
+        final File dir = DirectoryUtils.tempDir(CommitListenerTest.class.getSimpleName());
+        final int messages = 1_000;
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final List<Long> indices = new ArrayList<>();
+            final List<Thread> threads = new ArrayList<>();
+            final CountDownLatch told = new CountDownLatch(messages);
+            queue.addCommitListener((index, position) -> {
+                indices.add(index);
+                threads.add(Thread.currentThread());
+                told.countDown();
+            }, true);
+
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < messages; i++)
+                appender.writeDocument(w -> w.write("n").int32(0));
+            assertTrue(told.await(5, TimeUnit.SECONDS));
+
+            final long first = queue.firstIndex();
+            for (int i = 0; i < messages; i++) {
+                assertEquals(first + i, (long) indices.get(i));
+                assertNotSame(Thread.currentThread(), threads.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void anAsyncListenerWhichFallsBehindIsToldOfTheLatestCommit() throws InterruptedException {
+        final CommitNotifier notifier = new CommitNotifier("test", null);
+        final List<Long> indices = new ArrayList<>();
+        final CountDownLatch called = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        notifier.addListener((index, position) -> {
+            indices.add(index);
+            called.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, true);
+
+        notifier.onCommit(0, 0);
+        assertTrue(called.await(5, TimeUnit.SECONDS));
+        // fills the ring, then the last ten are coalesced.
+        final int last = CommitNotifier.ASYNC_CAPACITY + 10;
+        for (int i = 1; i <= last; i++)
+            notifier.onCommit(i, 0);
+        release.countDown();
+        // calls the listener for what is pending first.
+        notifier.close();
+
+        assertEquals(CommitNotifier.ASYNC_CAPACITY + 2, indices.size());
+        for (int i = 0; i <= CommitNotifier.ASYNC_CAPACITY; i++)
+            assertEquals(i, (long) indices.get(i));
+        assertEquals(last, (long) indices.get(CommitNotifier.ASYNC_CAPACITY + 1));
+    }
+
+    @Test
+    public void aListenerWhichFailsOrIsRemovedDoesNotStopTheAppender() {
+        final File dir = DirectoryUtils.tempDir(CommitListenerTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final int[] calls = {0};
+            final CommitListener counting = (index, position) -> calls[0]++;
+            queue.addCommitListener((index, position) -> {
+                throw new IllegalStateException("expected");
+            });
+            queue.addCommitListener(counting);
+
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("one");
+            assertEquals(1, calls[0]);
+
+            assertTrue(queue.removeCommitListener(counting));
+            assertFalse(queue.removeCommitListener(counting));
+            appender.writeText("two");
+            assertEquals(1, calls[0]);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("one", tailer.readText());
+            assertEquals("two", tailer.readText());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.MessageCompression;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.TailerDirection;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class CycleCompactorTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+    private static final int PER_CYCLE = 5_000;
+
+    @Test
+    public void compactsTheSealedCyclesAndInflatesThemBack() throws IOException {
+        final File dir = DirectoryUtils.tempDir(CycleCompactorTest.class.getSimpleName());
+        final long[] firsts = write(dir, 3);
+
+        final File[] files = cycleFiles(dir);
+        assertEquals(3, files.length);
+        final long sealed = CycleCompactor.sealedLength(files[0]);
+        assertTrue(sealed > 0);
+        assertEquals(-1, CycleCompactor.sealedLength(files[2]));
+        final long length = files[0].length();
+
+        final CycleCompactor compactor = new CycleCompactor(MessageCompression.DEFLATE, 1 << 16);
+        assertEquals(2, compactor.compactAll(dir));
+        assertTrue(CycleCompactor.isCompacted(files[0]));
+        assertTrue(CycleCompactor.isCompacted(files[1]));
+        assertFalse(CycleCompactor.isCompacted(files[2]));
+        assertTrue(files[0].length() * 4 < sealed);
+        assertEquals(0, compactor.compactAll(dir));
+
+        assertTrue(CycleCompactor.inflate(files[0]));
+        assertTrue(CycleCompactor.inflate(files[1]));
+        assertFalse(CycleCompactor.inflate(files[2]));
+        assertEquals(length, files[0].length());
+
+        for (boolean readOnly : new boolean[]{false, true}) {
+            try (SingleChronicleQueue queue = builder(dir, new SetTimeProvider()).readOnly(readOnly).build()) {
+                final ExcerptTailer tailer = queue.createTailer();
+                for (int i = 0; i < 3 * PER_CYCLE; i++)
+                    assertEquals(message(i), tailer.readText());
+                assertNull(tailer.readText());
+
+                final Random random = new Random(1);
+                for (int i = 0; i < 1_000; i++) {
+                    final int cycle = random.nextInt(3);
+                    final int n = random.nextInt(PER_CYCLE);
+                    assertTrue(tailer.moveToIndex(firsts[cycle] + n));
+                    assertEquals(message(cycle * PER_CYCLE + n), tailer.readText());
+                }
+
+                final ExcerptTailer backwards = queue.createTailer().direction(TailerDirection.BACKWARD).toEnd();
+                for (int i = 3 * PER_CYCLE - 1; i >= 0; i--)
+                    assertEquals(message(i), backwards.readText());
+            }
+        }
+    }
+
+    @Test
+    public void aCompactedCycleIsNotRead() {
+        final File dir = DirectoryUtils.tempDir(CycleCompactorTest.class.getSimpleName());
+        write(dir, 2);
+        assertEquals(1, new CycleCompactor(MessageCompression.SNAPPY).compactAll(dir));
+
+        try (SingleChronicleQueue queue = builder(dir, new SetTimeProvider()).build()) {
+            queue.storeForCycle(queue.firstCycle(), queue.epoch(), false);
+            fail();
+        } catch (IllegalStateException expected) {
+            // restore it with CycleCompactor.inflate to read it.
+        }
+    }
+
+    @Test
+    public void leavesACycleWhichIsNotSealed() {
+        final File dir = DirectoryUtils.tempDir(CycleCompactorTest.class.getSimpleName());
+        write(dir, 1);
+
+        final File file = cycleFiles(dir)[0];
+        final long length = file.length();
+        assertFalse(new CycleCompactor(MessageCompression.DEFLATE).compact(file));
+        assertFalse(CycleCompactor.isCompacted(file));
+        assertEquals(length, file.length());
+    }
+
+    private static long[] write(File dir, int cycles) {
+        final SetTimeProvider stp = new SetTimeProvider();
+        final long[] firsts = new long[cycles];
+        try (SingleChronicleQueue queue = builder(dir, stp).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int c = 0; c < cycles; c++) {
+                stp.currentTimeMillis(START + c * ONE_DAY);
+                for (int i = 0; i < PER_CYCLE; i++) {
+                    appender.writeText(message(c * PER_CYCLE + i));
+                    if (i == 0)
+                        firsts[c] = appender.lastIndexAppended();
+                }
+            }
+        }
+        return firsts;
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir, SetTimeProvider stp) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .testBlockSize();
+    }
+
+    private static File[] cycleFiles(File dir) {
+        final File[] files = dir.listFiles((d, n) -> n.endsWith(SingleChronicleQueue.SUFFIX));
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static String message(int n) {
+        return "message number " + n + " of the cycle compactor test";
+    }
+}
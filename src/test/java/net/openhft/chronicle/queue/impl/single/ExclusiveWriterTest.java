@@ -0,0 +1,188 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.queue.BatchDocumentContext;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class ExclusiveWriterTest {
+
+    @Test
+    public void exclusiveWriterIsReadAsNormal() {
+        final File dir = DirectoryUtils.tempDir(ExclusiveWriterTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .testBlockSize()
+                .exclusiveWriter(true)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            // enough messages to cross several chunks of the cycle file.
+            for (int i = 0; i < 10_000; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().write("n").int32(i);
+                }
+            }
+            appender.writeBytes(Bytes.from("bytes"));
+            try (BatchDocumentContext batch = appender.writingDocuments(2)) {
+                batch.nextDocument().write("n").int32(-1);
+                batch.nextDocument().write("n").int32(-2);
+            }
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("skipped").int32(0);
+                ((SingleChronicleQueueExcerpts.StoreAppender.StoreAppenderContext) dc).rollbackOnClose();
+            }
+            appender.writeText("last");
+
+            ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 10_000; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, dc.wire().read("n").int32());
+                }
+            }
+            assertEquals("bytes", tailer.readText());
+            for (int i = -1; i >= -2; i--) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertEquals(i, dc.wire().read("n").int32());
+                }
+            }
+            assertEquals("last", tailer.readText());
+            assertEquals(null, tailer.readText());
+            assertEquals(tailer.index() - 1, appender.lastIndexAppended());
+
+            assertTrue(tailer.moveToIndex(appender.lastIndexAppended() - 7_000));
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals(10_003 - 7_000, dc.wire().read("n").int32());
+            }
+        }
+    }
+
+    @Test
+    public void onlyOneAppenderHoldsTheLease() throws Exception {
+        final File dir = DirectoryUtils.tempDir(ExclusiveWriterTest.class.getSimpleName());
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .timeoutMS(100)
+                .exclusiveWriter(true)
+                .build()) {
+            queue.acquireAppender().writeText("held");
+
+            Future<?> future = service.submit(queue::acquireAppender);
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail();
+            } catch (java.util.concurrent.ExecutionException expected) {
+                assertTrue(expected.getCause() instanceof IllegalStateException);
+            }
+
+            // another queue, which doesn't expect the lease, fails fast.
+            try (SingleChronicleQueue other = SingleChronicleQueueBuilder.binary(dir)
+                    .testBlockSize()
+                    .build()) {
+                try {
+                    other.acquireAppender().writeText("not allowed");
+                    fail();
+                } catch (IllegalStateException expected) {
+                }
+                ExcerptTailer tailer = other.createTailer();
+                assertEquals("held", tailer.readText());
+                assertEquals(null, tailer.readText());
+            }
+        } finally {
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    public void theLeaseIsOnlyAddedOnceAnAppenderWrites() {
+        final File dir = DirectoryUtils.tempDir(ExclusiveWriterTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            queue.acquireAppender();
+            assertNull(queue.writerLease());
+            assertFalse(hasLeaseKey(queue));
+
+            queue.acquireAppender().writeText("one");
+            assertTrue(hasLeaseKey(queue));
+        }
+    }
+
+    @Test
+    public void anAppenderWhichIsAlreadyWritingFailsOnceTheLeaseIsTaken() {
+        final File dir = DirectoryUtils.tempDir(ExclusiveWriterTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("before");
+
+            try (SingleChronicleQueue exclusive = SingleChronicleQueueBuilder.binary(dir)
+                    .testBlockSize()
+                    .exclusiveWriter(true)
+                    .build()) {
+                final ExcerptAppender holder = exclusive.acquireAppender();
+                try {
+                    appender.writeText("during");
+                    fail();
+                } catch (IllegalStateException expected) {
+                }
+                holder.writeText("held");
+            }
+            appender.writeText("after");
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("before", tailer.readText());
+            assertEquals("held", tailer.readText());
+            assertEquals("after", tailer.readText());
+            assertNull(tailer.readText());
+        }
+    }
+
+    @Test
+    public void leaseIsReleasedOnClose() {
+        final File dir = DirectoryUtils.tempDir(ExclusiveWriterTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .exclusiveWriter(true)
+                .build()) {
+            queue.acquireAppender().writeText("one");
+            WriterLease writerLease = queue.writerLease();
+            assertTrue(writerLease != null && writerLease.isHeld());
+        }
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            WriterLease writerLease = queue.writerLease();
+            assertFalse(writerLease != null && writerLease.isHeld());
+            queue.acquireAppender().writeText("two");
+
+            ExcerptTailer tailer = queue.createTailer();
+            assertEquals("one", tailer.readText());
+            assertEquals("two", tailer.readText());
+        }
+    }
+
+    private static boolean hasLeaseKey(SingleChronicleQueue queue) {
+        final boolean[] found = {false};
+        queue.metaStore().forEachKey(k -> found[0] |= WriterLease.LEASE_KEY.contentEquals(k));
+        return found[0];
+    }
+}
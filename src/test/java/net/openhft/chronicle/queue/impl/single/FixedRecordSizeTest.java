@@ -0,0 +1,269 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class FixedRecordSizeTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+    private static final int RECORD_SIZE = 16;
+
+    @Test
+    public void appendsAndReadsRecordsOfTheLengthWritten() {
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final long first = append(appender, 0, 100);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 100; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(first + i, dc.index());
+                    final Bytes<?> bytes = dc.wire().bytes();
+                    // not the zeros after it, which BinaryWire would read as values.
+                    assertEquals(8, bytes.readRemaining());
+                    assertEquals(i, bytes.readLong());
+                }
+            }
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+            assertFalse(queue.dump().contains("index2index"));
+        }
+    }
+
+    @Test
+    public void readsARecordSizeWhichIsNotAMultipleOfFourWithoutThePadding() throws IOException {
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .recordSize(13)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final long first = append(appender, 0, 100);
+            stp.currentTimeMillis(START + ONE_DAY);
+            append(appender, 100, 1);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 50; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(first + i, dc.index());
+                    final Bytes<?> bytes = dc.wire().bytes();
+                    assertEquals(8, bytes.readRemaining());
+                    assertEquals(i, bytes.readLong());
+                }
+            }
+            final List<Long> lengths = new ArrayList<>();
+            assertEquals(50, tailer.readBatch((index, bytes) -> {
+                lengths.add(bytes.readRemaining());
+                assertEquals(index - first, bytes.readLong());
+            }, 50));
+            assertEquals(Collections.nCopies(50, 8L), lengths);
+            assertEquals(100, readLong(tailer));
+
+            final File[] files = dir.listFiles((d, n) -> n.endsWith(SingleChronicleQueue.SUFFIX));
+            assertEquals(2, files.length);
+            Arrays.sort(files);
+            assertTrue(CycleCompactor.sealedLength(files[0]) > 0);
+        }
+    }
+
+    @Test
+    public void movesToAnIndexAndTheEndWithoutIndexArrays() {
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final long first = append(queue.acquireAppender(), 0, 10_000);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final Random random = new Random(1);
+            for (int i = 0; i < 1_000; i++) {
+                final int n = random.nextInt(10_000);
+                assertTrue(tailer.moveToIndex(first + n));
+                assertEquals(n, readLong(tailer));
+            }
+            assertFalse(tailer.moveToIndex(first + 10_000));
+            assertEquals(first + 10_000, queue.createTailer().toEnd().index());
+            assertEquals(9_999, queue.countExcerpts(first, first + 9_999));
+        }
+    }
+
+    @Test
+    public void concurrentAppendersClaimDifferentRecords() throws InterruptedException {
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        final int threads = 4;
+        final int perThread = 2_000;
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final List<Thread> appenders = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int from = t * perThread;
+                appenders.add(new Thread(() -> append(queue.acquireAppender(), from, perThread)));
+            }
+            appenders.forEach(Thread::start);
+            for (Thread appender : appenders)
+                appender.join();
+
+            final BitSet seen = new BitSet();
+            final ExcerptTailer tailer = queue.createTailer();
+            long last = tailer.index() - 1;
+            for (int i = 0; i < threads * perThread; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(last + 1, dc.index());
+                    last = dc.index();
+                    final int n = (int) dc.wire().bytes().readLong();
+                    assertFalse(seen.get(n));
+                    seen.set(n);
+                }
+            }
+            assertEquals(threads * perThread, seen.cardinality());
+        }
+    }
+
+    @Test
+    public void readersAndAppendersTakeTheRecordSizeFromTheCycle() {
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        final long first;
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            first = append(queue.acquireAppender(), 0, 10);
+        }
+
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            assertEquals(0, queue.recordSize());
+            append(queue.acquireAppender(), 10, 10);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertTrue(tailer.moveToIndex(first + 15));
+            assertEquals(15, readLong(tailer));
+            assertEquals(first + 20, tailer.toEnd().index());
+        }
+    }
+
+    @Test
+    public void rollsToTheNextCycle() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 5);
+            stp.currentTimeMillis(START + ONE_DAY);
+            final long second = append(appender, 5, 5);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 10; i++)
+                assertEquals(i, readLong(tailer));
+            assertTrue(tailer.moveToIndex(second + 2));
+            assertEquals(7, readLong(tailer));
+        }
+    }
+
+    @Test
+    public void aRolledBackRecordIsLeftAsZeros() {
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final long first = append(appender, 1, 1);
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().bytes().writeLong(2);
+                ((SingleChronicleQueueExcerpts.StoreAppender.StoreAppenderContext) dc).rollbackOnClose();
+            }
+            append(appender, 3, 1);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals(1, readLong(tailer));
+            assertEquals(0, readLong(tailer));
+            assertEquals(3, readLong(tailer));
+            assertEquals(first + 3, tailer.toEnd().index());
+        }
+    }
+
+    @Test
+    public void rejectsWhatDoesNotFitInARecord() {
+        final File dir = DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 1);
+            try {
+                appender.writeBytes(Bytes.wrapForRead(new byte[RECORD_SIZE + 1]));
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                appender.writingDocument(true);
+                fail();
+            } catch (IllegalStateException expected) {
+            }
+            try {
+                appender.writingDocuments(2);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+
+            appender.writeBytes(Bytes.wrapForRead(new byte[RECORD_SIZE]));
+            assertEquals(2, queue.countExcerpts(queue.firstIndex(), appender.lastIndexAppended() + 1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void theRecordSizeCanNotBeNegative() {
+        SingleChronicleQueueBuilder.binary(DirectoryUtils.tempDir(FixedRecordSizeTest.class.getSimpleName()))
+                .recordSize(-1);
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir) {
+        return SingleChronicleQueueBuilder.binary(dir)
+                .recordSize(RECORD_SIZE)
+                .testBlockSize();
+    }
+
+    private static long append(ExcerptAppender appender, int from, int count) {
+        long first = Long.MIN_VALUE;
+        for (int i = from; i < from + count; i++) {
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().bytes().writeLong(i);
+                if (first == Long.MIN_VALUE)
+                    first = dc.index();
+            }
+        }
+        return first;
+    }
+
+    private static long readLong(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().bytes().readLong();
+        }
+    }
+}
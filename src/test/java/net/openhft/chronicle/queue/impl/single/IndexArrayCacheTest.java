@@ -0,0 +1,126 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.MappedBytes;
+import net.openhft.chronicle.bytes.ref.BinaryLongArrayReference;
+import net.openhft.chronicle.core.values.LongArrayValues;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public final class IndexArrayCacheTest {
+
+    @Test
+    public void leastRecentlyUsedArrayIsEvicted() throws FileNotFoundException {
+        final File dir = DirectoryUtils.tempDir(IndexArrayCacheTest.class.getSimpleName());
+        assertTrue(dir.mkdirs());
+        MappedBytes bytes = MappedBytes.mappedBytes(new File(dir, "arrays"), 64 << 10);
+        IndexArrayCache cache = new IndexArrayCache(BinaryLongArrayReference::new, 2);
+        try {
+            LongArrayValues[] read = new LongArrayValues[3];
+            for (int i = 0; i < read.length; i++) {
+                long offset = i * 1024;
+                bytes.writePosition(offset);
+                BinaryLongArrayReference.write(bytes, 8);
+                read[i] = new BinaryLongArrayReference();
+                ((BinaryLongArrayReference) read[i]).bytesStore(bytes, offset, bytes.writePosition() - offset);
+            }
+
+            LongArrayValues shared0 = cache.put(0, read[0]);
+            assertNotSame(read[0], shared0);
+            // both are views of the same array
+            shared0.setValueAt(3, 42);
+            assertEquals(42, read[0].getValueAt(3));
+
+            cache.put(1024, read[1]);
+            assertSame(shared0, cache.get(0));
+            cache.put(2048, read[2]);
+
+            assertEquals(2, cache.size());
+            assertNull(cache.get(1024));
+            assertNotNull(cache.get(0));
+            assertNotNull(cache.get(2048));
+        } finally {
+            cache.close();
+            bytes.release();
+        }
+        // once closed nothing is shared
+        assertNull(cache.get(0));
+    }
+
+    @Test
+    public void aChunkIsUnmappedOnceItsLastArrayIsEvicted() throws FileNotFoundException {
+        final File dir = DirectoryUtils.tempDir(IndexArrayCacheTest.class.getSimpleName());
+        assertTrue(dir.mkdirs());
+        MappedBytes bytes = MappedBytes.mappedBytes(new File(dir, "arrays"), 64 << 10);
+        IndexArrayCache cache = new IndexArrayCache(BinaryLongArrayReference::new, 2);
+        try {
+            // two arrays in the first chunk, and two in the second
+            long[] offsets = {0, 1024, (64 << 10) + 1024, (64 << 10) + 2048};
+            for (long offset : offsets) {
+                bytes.writePosition(offset);
+                BinaryLongArrayReference.write(bytes, 8);
+                BinaryLongArrayReference read = new BinaryLongArrayReference();
+                read.bytesStore(bytes, offset, bytes.writePosition() - offset);
+                cache.put(offset, read);
+            }
+            assertEquals(2, cache.size());
+            assertNull(cache.get(1024));
+            assertEquals(1, cache.chunks());
+        } finally {
+            cache.close();
+            bytes.release();
+        }
+        assertEquals(0, cache.chunks());
+    }
+
+    @Test
+    public void tailersOnManyThreadsShareTheIndex() throws Exception {
+        final File dir = DirectoryUtils.tempDir(IndexArrayCacheTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.TEST_DAILY)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 60; i++)
+                appender.writeText("msg-" + i);
+            long first = appender.lastIndexAppended() - 59;
+
+            ExecutorService service = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    futures.add(service.submit(() -> {
+                        ExcerptTailer tailer = queue.createTailer();
+                        for (int j = 0; j < 1_000; j++) {
+                            int i = ThreadLocalRandom.current().nextInt(60);
+                            assertTrue(tailer.moveToIndex(first + i));
+                            assertEquals("msg-" + i, tailer.readText());
+                        }
+                    }));
+                }
+                for (Future<?> future : futures)
+                    future.get();
+            } finally {
+                service.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class MergingTailerTest {
+
+    @Test
+    public void readsTheQueuesInTimestampOrder() {
+        try (SingleChronicleQueue a = open();
+             SingleChronicleQueue b = open();
+             SingleChronicleQueue c = open()) {
+            append(a.acquireAppender(), 1, 4, 5, 9);
+            append(b.acquireAppender(), 2, 3, 8);
+            append(c.acquireAppender(), 6, 7);
+
+            final MergingTailer tailer = new MergingTailer(MergingTailer.field("ts"), 0, TimeUnit.SECONDS,
+                    a.createTailer(), b.createTailer(), c.createTailer());
+            for (long ts = 1; ts <= 9; ts++)
+                assertEquals(ts, read(tailer));
+            assertNothingToRead(tailer);
+
+            // each input is read on from where it got to.
+            append(b.acquireAppender(), 10);
+            assertEquals(10, read(tailer));
+            assertEquals(1, tailer.input());
+        }
+    }
+
+    @Test
+    public void equalTimestampsAreReadInTheOrderOfTheInputs() {
+        try (SingleChronicleQueue a = open();
+             SingleChronicleQueue b = open()) {
+            append(a.acquireAppender(), 1, 2);
+            append(b.acquireAppender(), 1, 2);
+
+            final MergingTailer tailer = new MergingTailer(MergingTailer.field("ts"), 0, TimeUnit.SECONDS,
+                    a.createTailer(), b.createTailer());
+            for (int i = 0; i < 4; i++) {
+                assertEquals(1 + i / 2, read(tailer));
+                assertEquals(i % 2, tailer.input());
+            }
+        }
+    }
+
+    @Test
+    public void holdsBackTheOthersForAnInputWithNothingToRead() throws InterruptedException {
+        try (SingleChronicleQueue a = open();
+             SingleChronicleQueue b = open()) {
+            append(a.acquireAppender(), 2);
+
+            final MergingTailer tailer = new MergingTailer(MergingTailer.field("ts"), 50, TimeUnit.MILLISECONDS,
+                    a.createTailer(), b.createTailer());
+            assertNothingToRead(tailer);
+            append(b.acquireAppender(), 1);
+            assertEquals(1, read(tailer));
+            assertNothingToRead(tailer);
+
+            Thread.sleep(100);
+            assertEquals(2, read(tailer));
+        }
+    }
+
+    @Test
+    public void readsAtFullSpeedOnceADrainedInputHasWaitedMaxDelay() {
+        try (SingleChronicleQueue a = open();
+             SingleChronicleQueue b = open()) {
+            append(a.acquireAppender(), 1, 2, 3);
+            final ExcerptAppender appender = b.acquireAppender();
+            for (long ts = 1; ts <= 10_000; ts++)
+                append(appender, ts);
+
+            final MergingTailer tailer = new MergingTailer(MergingTailer.field("ts"), 100, TimeUnit.MILLISECONDS,
+                    a.createTailer(), b.createTailer());
+            final long end = System.currentTimeMillis() + 5_000;
+            long last = 0;
+            int count = 0;
+            while (count < 10_003 && System.currentTimeMillis() < end) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent())
+                        continue;
+                    final long ts = dc.wire().read("ts").int64();
+                    assertTrue(ts >= last);
+                    last = ts;
+                    count++;
+                }
+            }
+            // one excerpt per maxDelay would have taken over 15 minutes.
+            assertEquals(10_003, count);
+            assertNothingToRead(tailer);
+        }
+    }
+
+    private static SingleChronicleQueue open() {
+        return SingleChronicleQueueBuilder.binary(DirectoryUtils.tempDir(MergingTailerTest.class.getSimpleName()))
+                .testBlockSize()
+                .build();
+    }
+
+    private static void append(ExcerptAppender appender, long... timestamps) {
+        for (long ts : timestamps)
+            appender.writeDocument(w -> w.write("ts").int64(ts).write("text").text("at " + ts));
+    }
+
+    private static long read(MergingTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            final long ts = dc.wire().read("ts").int64();
+            assertEquals(ts, tailer.timestamp());
+            assertEquals("at " + ts, dc.wire().read("text").text());
+            return ts;
+        }
+    }
+
+    private static void assertNothingToRead(MergingTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertFalse(dc.isPresent());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.MessageCompression;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.ValueIn;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class MessageCompressionTest {
+    private static final int MESSAGES = 2_000;
+
+    @Test
+    public void snappyCompressesTheExcerpts() {
+        assertCompresses(MessageCompression.SNAPPY);
+    }
+
+    @Test
+    public void deflateCompressesTheExcerpts() {
+        assertCompresses(MessageCompression.DEFLATE);
+    }
+
+    private static void assertCompresses(MessageCompression compression) {
+        final File plainDir = DirectoryUtils.tempDir(MessageCompressionTest.class.getSimpleName());
+        final File compressedDir = DirectoryUtils.tempDir(MessageCompressionTest.class.getSimpleName());
+        try (SingleChronicleQueue plain = SingleChronicleQueueBuilder.binary(plainDir).testBlockSize().build();
+             SingleChronicleQueue compressed = SingleChronicleQueueBuilder.binary(compressedDir)
+                     .testBlockSize()
+                     .compression(compression)
+                     .build()) {
+            write(plain.acquireAppender());
+            write(compressed.acquireAppender());
+
+            final ExcerptTailer tailer = compressed.createTailer();
+            for (int i = 0; i < MESSAGES; i++)
+                assertEquals(order(i), tailer.readText());
+            assertNull(tailer.readText());
+
+            assertTrue(tailer.moveToIndex(compressed.firstIndex() + 1234));
+            assertEquals(order(1234), tailer.readText());
+
+            final long plainBytes = writePosition(plain);
+            final long compressedBytes = writePosition(compressed);
+            assertTrue(plainBytes + " vs " + compressedBytes, compressedBytes * 2 < plainBytes);
+        }
+    }
+
+    @Test
+    public void tailersTakeTheCompressionFromTheCycle() {
+        final File dir = DirectoryUtils.tempDir(MessageCompressionTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .compression(MessageCompression.SNAPPY)
+                .build()) {
+            write(queue.acquireAppender());
+        }
+
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            assertNull(queue.compression());
+            // appends with the compression of the cycle too.
+            queue.acquireAppender().writeText("last");
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < MESSAGES; i++)
+                assertEquals(order(i), tailer.readText());
+            assertEquals("last", tailer.readText());
+        }
+    }
+
+    @Test
+    public void codingSuppliersEncodeAndDecode() {
+        final File dir = DirectoryUtils.tempDir(MessageCompressionTest.class.getSimpleName());
+        final Supplier<BiConsumer<BytesStore, Bytes>> reverse = () -> (from, to) -> {
+            for (long i = from.readLimit() - 1; i >= from.readPosition(); i--)
+                to.writeByte(from.readByte(i));
+        };
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .codingSuppliers(reverse, reverse)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeBytes(Bytes.from("abcdef"));
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().bytes().append("xyz");
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("abcdef", readBytes(tailer));
+            assertEquals("xyz", readBytes(tailer));
+        }
+
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            assertEquals("fedcba", readBytes(queue.createTailer()));
+        }
+    }
+
+    @Test
+    public void metaDataIsNotCompressed() {
+        final File dir = DirectoryUtils.tempDir(MessageCompressionTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .compression(MessageCompression.DEFLATE)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            try (DocumentContext dc = appender.writingDocument(true)) {
+                dc.wire().write("meta").text("data");
+            }
+            appender.writeText("data");
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final StringBuilder event = new StringBuilder();
+            String meta = null;
+            // skips the meta data of the index.
+            while (meta == null) {
+                try (DocumentContext dc = tailer.readingDocument(true)) {
+                    assertTrue(dc.isMetaData());
+                    final ValueIn in = dc.wire().readEventName(event);
+                    if ("meta".contentEquals(event))
+                        meta = in.text();
+                    else
+                        dc.wire().bytes().readPosition(dc.wire().bytes().readLimit());
+                }
+            }
+            assertEquals("data", meta);
+            assertEquals("data", tailer.readText());
+        }
+    }
+
+    @Test
+    public void claimsAndBatchesAreNotCompressed() {
+        final File dir = DirectoryUtils.tempDir(MessageCompressionTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .compression(MessageCompression.SNAPPY)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("first");
+            try {
+                appender.writingDocuments(2);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            try {
+                appender.claim(16);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            appender.writeText("second");
+
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("first", tailer.readText());
+            assertEquals("second", tailer.readText());
+            assertFalse(tailer.readingDocument().isPresent());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fixedSizeRecordsCanNotBeCompressed() {
+        SingleChronicleQueueBuilder.binary(DirectoryUtils.tempDir(MessageCompressionTest.class.getSimpleName()))
+                .recordSize(64)
+                .compression(MessageCompression.SNAPPY)
+                .build();
+    }
+
+    private static String order(int i) {
+        final StringBuilder sb = new StringBuilder("{ orderId: ").append(i).append(", fills: [");
+        for (int j = 0; j < 8; j++)
+            sb.append(" { account: ACC-").append(i % 10).append(", side: BUY, symbol: EURUSD, quantity: 1000000, ")
+                    .append("price: 1.1").append(j).append(", status: FILLED, venue: EBS },");
+        return sb.append(" ] }").toString();
+    }
+
+    private static void write(ExcerptAppender appender) {
+        for (int i = 0; i < MESSAGES; i++)
+            appender.writeText(order(i));
+    }
+
+    private static long writePosition(SingleChronicleQueue queue) {
+        final WireStore store = queue.storeForCycle(queue.lastCycle(), queue.epoch(), false);
+        try {
+            return store.writePosition();
+        } finally {
+            queue.release(store);
+        }
+    }
+
+    private static String readBytes(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().bytes().toString();
+        }
+    }
+}
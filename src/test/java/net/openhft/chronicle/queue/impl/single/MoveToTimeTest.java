@@ -0,0 +1,106 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class MoveToTimeTest {
+    private static final long START = 1_500_000_000_000L;
+    private static final int MESSAGES = 300;
+
+    @Test
+    public void moveToTimeNeverPassesTheFirstExcerptAtTheTime() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        final long[] times = new long[MESSAGES];
+        final File dir = DirectoryUtils.tempDir(MoveToTimeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(stp)
+                .timeIndex(true)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            long time = START;
+            for (int i = 0; i < MESSAGES; i++) {
+                stp.currentTimeMillis(time);
+                times[i] = time;
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().bytes().writeInt(i);
+                }
+                // several excerpts a cycle, with a gap of missing cycles
+                time += i == MESSAGES / 2 ? 5_000 : 37;
+            }
+            assertTrue(queue.timeIndexFile(queue.rollCycle().toCycle(appender.lastIndexAppended())).exists());
+
+            final int indexSpacing = queue.indexSpacing();
+            final ExcerptTailer tailer = queue.createTailer();
+            for (long t = START - 1_000; t < time + 1_000; t += 11) {
+                int expected = 0;
+                while (expected < MESSAGES && times[expected] < t)
+                    expected++;
+
+                tailer.moveToTime(t);
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    // after the last excerpt, the tailer can be left before it or at the end
+                    if (expected == MESSAGES && !dc.isPresent())
+                        continue;
+                    assertTrue("time " + t, dc.isPresent());
+                    final int actual = dc.wire().bytes().readInt();
+                    assertTrue("time " + t + " expected " + expected + " actual " + actual,
+                            actual <= expected && actual >= expected - indexSpacing);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void theTimeIsRecordedWithLazyIndexing() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        final File dir = DirectoryUtils.tempDir(MoveToTimeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.TEST_DAILY)
+                .timeProvider(stp)
+                .timeIndex(true)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender().lazyIndexing(true);
+            for (int i = 0; i < 20; i++) {
+                stp.currentTimeMillis(START + i * 100);
+                appender.writeText("msg-" + i);
+            }
+            final ExcerptTailer tailer = queue.createTailer();
+            // the tailer is left at the last excerpt written before the time
+            assertEquals("msg-14", tailer.moveToTime(START + 1_450).readText());
+            assertEquals("msg-2", tailer.moveToTime(START + 250).readText());
+        }
+    }
+
+    @Test
+    public void withoutATimeIndexTheTailerIsLeftAtTheStartOfTheCycle() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        final File dir = DirectoryUtils.tempDir(MoveToTimeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.TEST_SECONDLY)
+                .timeProvider(stp)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 20; i++) {
+                stp.currentTimeMillis(START + i * 100);
+                appender.writeText("msg-" + i);
+            }
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals("msg-10", tailer.moveToTime(START + 1_500).readText());
+            assertEquals("msg-0", tailer.moveToTime(START - 1_500).readText());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class NamedTailerTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+
+    @Test
+    public void aNamedTailerCarriesOnAfterARestart() {
+        final File dir = DirectoryUtils.tempDir(NamedTailerTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            append(queue.acquireAppender(), 0, 10);
+            final ExcerptTailer tailer = queue.createTailer("a");
+            for (int i = 0; i < 4; i++)
+                assertEquals(i, read(tailer));
+        }
+
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final ExcerptTailer tailer = queue.createTailer("a");
+            assertEquals(4, read(tailer));
+            // names are kept apart, and a new name starts at the start.
+            assertEquals(0, read(queue.createTailer("b")));
+
+            tailer.toEnd();
+            append(queue.acquireAppender(), 10, 1);
+        }
+
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final ExcerptTailer tailer = queue.createTailer("a");
+            assertEquals(10, read(tailer));
+            assertNothingToRead(tailer);
+        }
+    }
+
+    @Test
+    public void theIndexIsSavedEveryIntervalAndOnClose() {
+        final File dir = DirectoryUtils.tempDir(NamedTailerTest.class.getSimpleName());
+        final long first;
+        try (SingleChronicleQueue queue = builder(dir).namedTailerUpdateInterval(5).build()) {
+            append(queue.acquireAppender(), 0, 20);
+            first = queue.firstIndex();
+            final ExcerptTailer tailer = queue.createTailer("a");
+            for (int i = 0; i < 4; i++)
+                read(tailer);
+            assertEquals(Long.MIN_VALUE, savedIndex(queue, "a"));
+            read(tailer);
+            assertEquals(first + 5, savedIndex(queue, "a"));
+
+            assertEquals(10, tailer.readBatch((index, bytes) -> {
+            }, 10));
+            assertEquals(first + 15, savedIndex(queue, "a"));
+            read(tailer);
+            assertEquals(first + 15, savedIndex(queue, "a"));
+        }
+
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            assertEquals(first + 16, savedIndex(queue, "a"));
+            assertEquals(16, read(queue.createTailer("a")));
+        }
+    }
+
+    @Test
+    public void aNamedTailerAtTheEndOfACycleCarriesOnInTheNext() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        final File dir = DirectoryUtils.tempDir(NamedTailerTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).rollCycle(RollCycles.DAILY).timeProvider(stp).build()) {
+            append(queue.acquireAppender(), 0, 3);
+            final ExcerptTailer tailer = queue.createTailer("a");
+            for (int i = 0; i < 3; i++)
+                assertEquals(i, read(tailer));
+            assertNothingToRead(tailer);
+        }
+
+        stp.currentTimeMillis(START + ONE_DAY);
+        try (SingleChronicleQueue queue = builder(dir).rollCycle(RollCycles.DAILY).timeProvider(stp).build()) {
+            append(queue.acquireAppender(), 3, 2);
+            final ExcerptTailer tailer = queue.createTailer("a");
+            assertEquals(3, read(tailer));
+            assertEquals(4, read(tailer));
+            assertNothingToRead(tailer);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void theUpdateIntervalMustBePositive() {
+        builder(DirectoryUtils.tempDir(NamedTailerTest.class.getSimpleName())).namedTailerUpdateInterval(0);
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir) {
+        return SingleChronicleQueueBuilder.binary(dir).testBlockSize();
+    }
+
+    private static long savedIndex(SingleChronicleQueue queue, String name) {
+        return queue.metaStore()
+                .doWithExclusiveLock(ts -> ts.acquireValueFor(SingleChronicleQueue.NAMED_TAILER_KEY_PREFIX + name))
+                .getVolatileValue();
+    }
+
+    private static void append(ExcerptAppender appender, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            final int n = i;
+            appender.writeDocument(w -> w.write("n").int32(n));
+        }
+    }
+
+    private static int read(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().read("n").int32();
+        }
+    }
+
+    private static void assertNothingToRead(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertFalse(dc.isPresent());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class PartitionedChronicleQueueTest {
+    private static final int PARTITIONS = 4;
+
+    @Test
+    public void theExcerptsOfAKeyAreReadInOrderFromItsPartition() {
+        try (PartitionedChronicleQueue queue = open(tempDir(), PARTITIONS)) {
+            final PartitionedChronicleQueue.PartitionedAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 100; i++) {
+                try (DocumentContext dc = appender.writingDocument(i % 10)) {
+                    dc.wire().write("key").int64(i % 10).write("n").int32(i);
+                }
+            }
+
+            final Map<Long, List<Integer>> byKey = new HashMap<>();
+            for (int p = 0; p < PARTITIONS; p++) {
+                final ExcerptTailer tailer = queue.createTailer(p);
+                while (true) {
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        if (!dc.isPresent())
+                            break;
+                        final long key = dc.wire().read("key").int64();
+                        assertEquals(p, queue.partitionFor(key));
+                        byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(dc.wire().read("n").int32());
+                    }
+                }
+            }
+            assertEquals(10, byKey.size());
+            byKey.forEach((key, ns) -> {
+                assertEquals(10, ns.size());
+                for (int i = 0; i < ns.size(); i++)
+                    assertEquals(key + i * 10, (long) ns.get(i));
+            });
+        }
+    }
+
+    @Test
+    public void theKeysAreSpreadOverThePartitions() {
+        final int[] counts = new int[PARTITIONS];
+        for (long key = 0; key < 10_000; key++)
+            counts[PartitionedChronicleQueue.partitionFor(key, PARTITIONS)]++;
+        for (int count : counts)
+            assertTrue(count > 2_000);
+    }
+
+    @Test
+    public void aCharSequenceKeyHasThePartitionOfItsCharacters() {
+        try (PartitionedChronicleQueue queue = open(tempDir(), PARTITIONS)) {
+            assertEquals(queue.partitionFor("EURUSD"), queue.partitionFor(new StringBuilder("EURUSD")));
+        }
+    }
+
+    @Test
+    public void theHighWaterMarkIsTheLastIndexCommitted() {
+        final File dir = tempDir();
+        final int partition;
+        final long index;
+        try (PartitionedChronicleQueue queue = open(dir, PARTITIONS)) {
+            partition = queue.partitionFor(42);
+            for (int p = 0; p < PARTITIONS; p++)
+                assertEquals(Long.MIN_VALUE, queue.highWaterMark(p));
+
+            final PartitionedChronicleQueue.PartitionedAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 3; i++) {
+                try (DocumentContext dc = appender.writingDocument(42)) {
+                    dc.wire().write("n").int32(i);
+                }
+            }
+            index = appender.appender(partition).lastIndexAppended();
+            assertEquals(index, queue.highWaterMark(partition));
+        }
+
+        try (PartitionedChronicleQueue queue = open(dir, PARTITIONS)) {
+            assertEquals(index, queue.highWaterMark(partition));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void aQueueCantBeOpenedWithFewerPartitions() {
+        final File dir = tempDir();
+        open(dir, PARTITIONS).close();
+        open(dir, PARTITIONS - 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void aQueueCantBeOpenedWithMorePartitions() {
+        final File dir = tempDir();
+        open(dir, PARTITIONS).close();
+        open(dir, PARTITIONS * 2);
+    }
+
+    private static File tempDir() {
+        return DirectoryUtils.tempDir(PartitionedChronicleQueueTest.class.getSimpleName());
+    }
+
+    private static PartitionedChronicleQueue open(File dir, int partitions) {
+        return new PartitionedChronicleQueue(dir, partitions, path -> SingleChronicleQueueBuilder.binary(path).testBlockSize());
+    }
+}
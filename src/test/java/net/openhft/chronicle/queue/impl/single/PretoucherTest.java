@@ -3,6 +3,8 @@ package net.openhft.chronicle.queue.impl.single;
 import net.openhft.chronicle.bytes.NewChunkListener;
 import net.openhft.chronicle.core.time.TimeProvider;
 import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
 import net.openhft.chronicle.queue.RollCycles;
 import net.openhft.chronicle.wire.DocumentContext;
 import net.openhft.chronicle.wire.WireType;
@@ -11,6 +13,7 @@ import org.junit.Test;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +50,40 @@ public class PretoucherTest {
         }
     }
 
+    @Test
+    public void shouldCreateTheNextCycleBeforeTheRoll() throws Exception {
+        // early in a cycle
+        clock.set(clock.get() / 1000 * 1000 + 100);
+        try (final SingleChronicleQueue queue = createQueue(path, clock::get)) {
+            final Pretoucher pretoucher = new Pretoucher(queue, chunkListener, capturedCycles::add, true, 2_000);
+            final ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("first");
+            final int cycle = queue.cycle();
+
+            pretoucher.execute();
+            assertThat(queue.lastCycle(), is(cycle));
+
+            // within half a cycle of the roll
+            clock.addAndGet(600);
+            pretoucher.execute();
+            assertThat(queue.lastCycle(), is(cycle + 1));
+            // which the searches, retention and back pressure don't look at yet
+            assertThat(queue.lastCycleNotAhead(), is(cycle));
+
+            // the end of the queue is still in the current cycle
+            final ExcerptTailer tailer = queue.createTailer().toEnd();
+            appender.writeText("second");
+            assertThat(tailer.readText(), is("second"));
+
+            clock.addAndGet(1_000);
+            pretoucher.execute();
+            appender.writeText("third");
+            assertThat(appender.cycle(), is(cycle + 1));
+            assertThat(tailer.readText(), is("third"));
+            assertThat(capturedCycles, is(Arrays.asList(cycle, cycle + 1)));
+        }
+    }
+
     @After
     public void deleteDir() throws Exception {
         DirectoryUtils.deleteDir(path);
@@ -0,0 +1,179 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.WireStore;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class QueueStreamTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+    private static final int PER_CYCLE = 3_000;
+
+    @Test
+    public void streamsTheQueueInOrderSequentiallyAndInParallel() {
+        final File dir = DirectoryUtils.tempDir(QueueStreamTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            write(queue, 3);
+            final List<Integer> expected = IntStream.range(0, 3 * PER_CYCLE).boxed().collect(Collectors.toList());
+
+            assertEquals(expected, queue.stream(0, Long.MAX_VALUE, Bytes::readInt)
+                    .collect(Collectors.toList()));
+            assertEquals(expected, queue.stream(0, Long.MAX_VALUE, Bytes::readInt)
+                    .parallel()
+                    .collect(Collectors.toList()));
+            assertEquals(3 * PER_CYCLE, queue.stream(0, Long.MAX_VALUE).count());
+            assertEquals(expected.stream().mapToLong(i -> i).sum(),
+                    queue.stream(0, Long.MAX_VALUE, Bytes::readInt).parallel().mapToLong(i -> i).sum());
+            assertEquals(42, queue.stream(0, Long.MAX_VALUE).skip(42).findFirst().get().readInt());
+        }
+    }
+
+    @Test
+    public void streamsARangeOfIndices() {
+        final File dir = DirectoryUtils.tempDir(QueueStreamTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final long[] firsts = write(queue, 3);
+
+            final List<Integer> range = queue.stream(firsts[0] + 100, firsts[2] + 50, Bytes::readInt)
+                    .parallel()
+                    .collect(Collectors.toList());
+            assertEquals(IntStream.range(100, 2 * PER_CYCLE + 50).boxed().collect(Collectors.toList()), range);
+
+            assertEquals(PER_CYCLE, queue.stream(firsts[1], firsts[2], Bytes::readInt).count());
+            assertEquals(0, queue.stream(firsts[1], firsts[1], Bytes::readInt).count());
+            assertEquals(10, queue.stream(firsts[2] + PER_CYCLE - 10, Long.MAX_VALUE, Bytes::readInt).count());
+        }
+    }
+
+    @Test
+    public void splitsOnCyclesThenOnIndexBlocks() {
+        final File dir = DirectoryUtils.tempDir(QueueStreamTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final long[] firsts = write(queue, 4);
+            final RollCycle rollCycle = queue.rollCycle();
+            final long block = (long) queue.indexCount() * queue.indexSpacing();
+
+            final List<Spliterator<Integer>> parts = new ArrayList<>();
+            parts.add(queue.stream(firsts[0] + 1, Long.MAX_VALUE, Bytes::readInt).spliterator());
+            assertEquals(4 * PER_CYCLE - 1, parts.get(0).getExactSizeIfKnown());
+            for (int i = 0; i < parts.size(); ) {
+                final Spliterator<Integer> prefix = parts.get(i).trySplit();
+                if (prefix == null) {
+                    i++;
+                    continue;
+                }
+                parts.add(i, prefix);
+            }
+
+            assertTrue(parts.size() > 4);
+            long total = 0;
+            int expected = 1;
+            for (Spliterator<Integer> part : parts) {
+                final long size = part.estimateSize();
+                total += size;
+                final List<Integer> read = new ArrayList<>();
+                part.forEachRemaining(read::add);
+                assertEquals(size, read.size());
+                assertNotNull(read.get(0));
+                // each part after the first starts on a cycle, or an index block within one.
+                if (expected > 1)
+                    assertEquals(0, (expected % PER_CYCLE) % block);
+                for (Integer n : read)
+                    assertEquals(expected++, (int) n);
+            }
+            assertEquals(4 * PER_CYCLE - 1, total);
+            assertEquals(rollCycle.toCycle(firsts[3]), rollCycle.toCycle(firsts[0]) + 3);
+        }
+    }
+
+    @Test
+    public void closingTheStreamReleasesTheTailersLeftOpen() {
+        final File dir = DirectoryUtils.tempDir(QueueStreamTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final long[] firsts = write(queue, 3);
+            final int firstCycle = queue.rollCycle().toCycle(firsts[0]);
+
+            try (Stream<Integer> stream = queue.stream(0, Long.MAX_VALUE, Bytes::readInt)) {
+                assertEquals(0, (int) stream.findFirst().get());
+            }
+            assertEquals(1, refCountOf(queue, firstCycle));
+
+            try (Stream<Integer> stream = queue.stream(0, Long.MAX_VALUE, bytes -> {
+                throw new IllegalStateException("reader failed");
+            })) {
+                stream.parallel().forEach(n -> {
+                });
+                fail();
+            } catch (IllegalStateException expected) {
+                // the stream was closed
+            }
+            assertEquals(1, refCountOf(queue, firstCycle));
+        }
+    }
+
+    private static long refCountOf(SingleChronicleQueue queue, int cycle) {
+        final WireStore store = queue.storeForCycle(cycle, queue.epoch(), false);
+        try {
+            return store.refCount();
+        } finally {
+            queue.release(store);
+        }
+    }
+
+    @Test
+    public void anEmptyQueueHasAnEmptyStream() {
+        final File dir = DirectoryUtils.tempDir(QueueStreamTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            assertEquals(0, queue.stream(0, Long.MAX_VALUE).count());
+        }
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir) {
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        return SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                // index blocks of 128 excerpts.
+                .indexCount(32)
+                .indexSpacing(4)
+                .timeProvider(stp)
+                .testBlockSize();
+    }
+
+    private static long[] write(SingleChronicleQueue queue, int cycles) {
+        final SetTimeProvider stp = (SetTimeProvider) queue.time();
+        final ExcerptAppender appender = queue.acquireAppender();
+        final long[] firsts = new long[cycles];
+        for (int c = 0; c < cycles; c++) {
+            stp.currentTimeMillis(START + c * ONE_DAY);
+            for (int i = 0; i < PER_CYCLE; i++) {
+                try (DocumentContext dc = appender.writingDocument()) {
+                    dc.wire().bytes().writeInt(c * PER_CYCLE + i);
+                }
+                if (i == 0)
+                    firsts[c] = appender.lastIndexAppended();
+            }
+        }
+        return firsts;
+    }
+}
@@ -0,0 +1,135 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.MessageCompression;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.TailerDirection;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class ReadBatchTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+
+    @Test
+    public void readsEveryExcerptInBatches() {
+        final File dir = DirectoryUtils.tempDir(ReadBatchTest.class.getSimpleName());
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final List<Long> indices = new ArrayList<>();
+            // enough to cross several chunks, and the index arrays, in two cycles.
+            for (int i = 0; i < 20_000; i++) {
+                if (i == 15_000)
+                    stp.currentTimeMillis(START + ONE_DAY);
+                if (i % 1_000 == 0) {
+                    try (DocumentContext dc = appender.writingDocument(true)) {
+                        dc.wire().bytes().writeLong(-1);
+                    }
+                }
+                append(appender, i);
+                indices.add(appender.lastIndexAppended());
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final List<Long> read = new ArrayList<>();
+            int n;
+            while ((n = tailer.readBatch((index, bytes) -> {
+                assertEquals(indices.get(read.size()), (Long) index);
+                assertEquals(read.size(), bytes.readInt());
+                assertEquals(~read.size(), bytes.readInt());
+                assertEquals(0, bytes.readRemaining());
+                read.add(index);
+            }, 777)) > 0) {
+                assertTrue(n <= 777);
+            }
+            assertEquals(indices, read);
+            assertEquals(indices.get(indices.size() - 1) + 1, tailer.index());
+
+            // the tailer carries on from the end of the batch.
+            append(appender, 20_000);
+            assertEquals(1, tailer.readBatch((index, bytes) -> assertEquals(20_000, bytes.readInt()), 10));
+            assertEquals(0, tailer.readBatch((index, bytes) -> {
+            }, 10));
+        }
+    }
+
+    @Test
+    public void stopsAtTheMaximumAndIndexesAsItReads() {
+        final File dir = DirectoryUtils.tempDir(ReadBatchTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 1_000; i++)
+                append(appender, i);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            final long first = tailer.index();
+            assertEquals(100, tailer.readBatch((index, bytes) -> {
+            }, 100));
+            assertEquals(first + 100, tailer.index());
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertEquals(first + 100, dc.index());
+                assertEquals(100, dc.wire().bytes().readInt());
+            }
+
+            assertTrue(tailer.moveToIndex(first + 999));
+            assertEquals(999, readInt(tailer));
+            assertTrue(tailer.moveToIndex(first + 500));
+            assertEquals(500, readInt(tailer));
+        }
+    }
+
+    @Test
+    public void readsBackwardsAndCompressedExcerptsOneAtATime() {
+        final File dir = DirectoryUtils.tempDir(ReadBatchTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .compression(MessageCompression.DEFLATE)
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10; i++)
+                append(appender, i);
+
+            final List<Integer> read = new ArrayList<>();
+            assertEquals(10, queue.createTailer().readBatch((index, bytes) -> read.add(bytes.readInt()), 20));
+            assertEquals(10, queue.createTailer().direction(TailerDirection.BACKWARD).toEnd()
+                    .readBatch((index, bytes) -> read.add(bytes.readInt()), 20));
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, (int) read.get(i));
+                assertEquals(9 - i, (int) read.get(10 + i));
+            }
+        }
+    }
+
+    private static void append(ExcerptAppender appender, int n) {
+        try (DocumentContext dc = appender.writingDocument()) {
+            final Bytes<?> bytes = dc.wire().bytes();
+            bytes.writeInt(n);
+            bytes.writeInt(~n);
+        }
+    }
+
+    private static int readInt(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().bytes().readInt();
+        }
+    }
+}
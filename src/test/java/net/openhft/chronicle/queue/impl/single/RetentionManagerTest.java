@@ -0,0 +1,115 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class RetentionManagerTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+    private static final int DAYS = 5;
+
+    @Test
+    public void keepsAtMostMaxCycles() {
+        try (SingleChronicleQueue queue = queueOfDays()) {
+            final int first = queue.firstCycle();
+            assertEquals(3, new RetentionManager(queue).maxCycles(2).retire());
+            for (int i = 0; i < DAYS; i++)
+                assertEquals(i >= 3, queue.cycleFile(first + i).exists());
+            assertEquals(3, read(queue.createTailer()));
+        }
+    }
+
+    @Test
+    public void movesCyclesToTheArchive() {
+        final File archive = DirectoryUtils.tempDir(RetentionManagerTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = queueOfDays()) {
+            final File file = queue.cycleFile(queue.firstCycle());
+            assertEquals(1, new RetentionManager(queue).maxCycles(DAYS - 1).archiveTo(archive).retire());
+            assertFalse(file.exists());
+            assertTrue(new File(archive, file.getName()).exists());
+            assertEquals(1, read(queue.createTailer()));
+        }
+    }
+
+    @Test
+    public void keepsTheCycleBeingAppendedTo() {
+        try (SingleChronicleQueue queue = queueOfDays()) {
+            assertEquals(DAYS - 1, new RetentionManager(queue).maxBytes(1).retire());
+            assertEquals(DAYS - 1, read(queue.createTailer()));
+        }
+    }
+
+    @Test
+    public void retiresCyclesNotWrittenToForMaxAge() {
+        try (SingleChronicleQueue queue = queueOfDays()) {
+            final int first = queue.firstCycle();
+            final long old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2);
+            for (int i = 0; i < 2; i++)
+                assertTrue(queue.cycleFile(first + i).setLastModified(old));
+            assertEquals(2, new RetentionManager(queue).maxAge(1, TimeUnit.HOURS).retire());
+            assertEquals(2, read(queue.createTailer()));
+        }
+    }
+
+    @Test
+    public void keepsTheCyclesANamedTailerHasToRead() {
+        try (SingleChronicleQueue queue = queueOfDays()) {
+            final ExcerptTailer tailer = queue.createTailer("a");
+            final RetentionManager retention = new RetentionManager(queue).maxCycles(1);
+            assertEquals(0, retention.retire());
+
+            assertEquals(0, read(tailer));
+            tailer.releaseResources();
+            assertEquals(0, retention.retire());
+
+            assertEquals(DAYS - 1, retention.keepForNamedTailers(false).retire());
+        }
+    }
+
+    @Test
+    public void keepsACycleInUse() {
+        try (SingleChronicleQueue queue = queueOfDays()) {
+            final ExcerptTailer tailer = queue.createTailer();
+            assertEquals(0, read(tailer));
+            assertEquals(0, new RetentionManager(queue).maxCycles(1).retire());
+        }
+    }
+
+    private static SingleChronicleQueue queueOfDays() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        final SingleChronicleQueue queue = SingleChronicleQueueBuilder
+                .binary(DirectoryUtils.tempDir(RetentionManagerTest.class.getSimpleName()))
+                .testBlockSize()
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .build();
+        final ExcerptAppender appender = queue.acquireAppender();
+        for (int i = 0; i < DAYS; i++) {
+            stp.currentTimeMillis(START + i * ONE_DAY);
+            final int n = i;
+            appender.writeDocument(w -> w.write("n").int32(n));
+        }
+        return queue;
+    }
+
+    private static int read(ExcerptTailer tailer) {
+        try (DocumentContext dc = tailer.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().read("n").int32();
+        }
+    }
+}
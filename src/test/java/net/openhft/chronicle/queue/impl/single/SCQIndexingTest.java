@@ -0,0 +1,77 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.ref.BinaryLongArrayReference;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.StreamCorruptedException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class SCQIndexingTest {
+
+    @Test
+    public void floorIndexStepsOverHoles() {
+        Bytes<?> bytes = Bytes.allocateElasticDirect(256);
+        BinaryLongArrayReference values = new BinaryLongArrayReference();
+        try {
+            BinaryLongArrayReference.write(bytes, 8);
+            values.bytesStore(bytes, 0, bytes.writePosition());
+            long[] positions = {100, 0, 300, 0, 0, 600, 700};
+            for (int i = 0; i < positions.length; i++)
+                values.setValueAt(i, positions[i]);
+            values.setMaxUsed(positions.length);
+
+            assertEquals(-1, SCQIndexing.floorIndex(values, 7, 99));
+            assertEquals(0, SCQIndexing.floorIndex(values, 7, 100));
+            assertEquals(0, SCQIndexing.floorIndex(values, 7, 299));
+            assertEquals(2, SCQIndexing.floorIndex(values, 7, 300));
+            assertEquals(2, SCQIndexing.floorIndex(values, 7, 599));
+            assertEquals(5, SCQIndexing.floorIndex(values, 7, 600));
+            assertEquals(6, SCQIndexing.floorIndex(values, 7, Long.MAX_VALUE));
+            // only the used entries are searched
+            assertEquals(5, SCQIndexing.floorIndex(values, 6, Long.MAX_VALUE));
+            assertEquals(-1, SCQIndexing.floorIndex(values, 0, Long.MAX_VALUE));
+
+            for (int i = 0; i < positions.length; i++)
+                values.setValueAt(i, 0);
+            assertEquals(-1, SCQIndexing.floorIndex(values, 7, Long.MAX_VALUE));
+        } finally {
+            bytes.release();
+        }
+    }
+
+    @Test
+    public void sequenceForPositionOverManyIndexArrays() throws StreamCorruptedException {
+        final File dir = DirectoryUtils.tempDir(SCQIndexingTest.class.getSimpleName());
+        // 8 secondary arrays of 8 entries, every message indexed.
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.TEST_DAILY)
+                .testBlockSize()
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 60; i++)
+                appender.writeText("msg-" + i);
+
+            SingleChronicleQueueExcerpts.StoreTailer tailer =
+                    (SingleChronicleQueueExcerpts.StoreTailer) queue.createTailer();
+            long[] positions = new long[60];
+            for (int i = 0; i < 60; i++) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(i, queue.rollCycle().toSequenceNumber(dc.index()));
+                    positions[i] = dc.wire().bytes().readPosition() - 4;
+                }
+            }
+            for (int i = 59; i >= 0; i--)
+                assertEquals(i, tailer.store.sequenceForPosition(tailer, positions[i], true));
+            assertEquals(59, tailer.store.sequenceForPosition(tailer, Long.MAX_VALUE, false));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycle;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.TailerDirection;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class SizeRollingTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+
+    @Test
+    public void rollsToANewPartOfThePeriodAfterMaxCycleMessages() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .maxCycleMessages(10)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            final long[] indices = new long[35];
+            for (int i = 0; i < indices.length; i++) {
+                appender.writeText("msg-" + i);
+                indices[i] = appender.lastIndexAppended();
+            }
+            assertArrayEquals(new String[]{"20170701.cq4", "20170701_001.cq4", "20170701_002.cq4", "20170701_003.cq4"},
+                    queueFiles(dir));
+
+            final RollCycle rollCycle = queue.rollCycle();
+            for (int i = 0; i < indices.length; i++) {
+                assertEquals(i / 10, rollCycle.toCycle(indices[i]) & 0xFF);
+                assertEquals(i % 10, rollCycle.toSequenceNumber(indices[i]));
+            }
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < indices.length; i++)
+                assertEquals("msg-" + i, tailer.readText());
+            assertEquals(null, tailer.readText());
+
+            assertTrue(tailer.moveToIndex(indices[23]));
+            assertEquals("msg-23", tailer.readText());
+            assertEquals(indices[34], queue.createTailer().toEnd().index() - 1);
+            assertEquals(34, queue.countExcerpts(indices[0], indices[34]));
+        }
+    }
+
+    @Test
+    public void rollsAfterMaxCycleMessagesWithLazyIndexing() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .maxCycleMessages(10)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender().lazyIndexing(true);
+            for (int i = 0; i < 25; i++)
+                appender.writeText("msg-" + i);
+            assertArrayEquals(new String[]{"20170701.cq4", "20170701_001.cq4", "20170701_002.cq4"},
+                    queueFiles(dir));
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 25; i++)
+                assertEquals("msg-" + i, tailer.readText());
+            assertEquals(null, tailer.readText());
+        }
+    }
+
+    @Test
+    public void rollsToANewPartOfThePeriodAfterMaxCycleBytes() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        final String text = new String(new char[1000]).replace('\0', 'x');
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .maxCycleBytes(1 << 20)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 2_000; i++)
+                appender.writeText(i + text);
+
+            // each file has 256 KB of index arrays as well as the excerpts
+            final String[] files = queueFiles(dir);
+            assertEquals(Arrays.toString(files), 3, files.length);
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 2_000; i++)
+                assertEquals(i + text, tailer.readText());
+        }
+    }
+
+    @Test
+    public void theNextPeriodStartsAtItsFirstPart() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .maxCycleMessages(4)
+                .timeIndex(true)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10; i++) {
+                stp.currentTimeMillis(START + i * 1_000);
+                appender.writeText("day1-" + i);
+            }
+            stp.currentTimeMillis(START + ONE_DAY);
+            appender.writeText("day2-0");
+
+            assertArrayEquals(new String[]{"20170701.cq4", "20170701_001.cq4", "20170701_002.cq4", "20170702.cq4"},
+                    queueFiles(dir));
+
+            final ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 10; i++)
+                assertEquals("day1-" + i, tailer.readText());
+            assertEquals("day2-0", tailer.readText());
+
+            // the time index is kept per file, and records the first of each index spacing
+            assertEquals("day1-4", tailer.moveToTime(START + 6_000).readText());
+            assertEquals("day1-8", tailer.moveToTime(START + 8_500).readText());
+            assertEquals("day2-0", tailer.moveToTime(START + ONE_DAY).readText());
+
+            final ExcerptTailer backwards = queue.createTailer().direction(TailerDirection.BACKWARD).toEnd();
+            assertEquals("day2-0", backwards.readText());
+            for (int i = 9; i >= 0; i--)
+                assertEquals("day1-" + i, backwards.readText());
+        }
+    }
+
+    @Test
+    public void reopeningTheQueueAppendsToTheLastPart() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        for (int run = 0; run < 2; run++) {
+            try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                    .rollCycle(RollCycles.DAILY)
+                    .timeProvider(stp)
+                    .maxCycleMessages(4)
+                    .testBlockSize()
+                    .build()) {
+                final ExcerptAppender appender = queue.acquireAppender();
+                for (int i = 0; i < 6; i++)
+                    appender.writeText("run" + run + "-" + i);
+            }
+        }
+        assertArrayEquals(new String[]{"20170701.cq4", "20170701_001.cq4", "20170701_002.cq4"},
+                queueFiles(dir));
+    }
+
+    @Test
+    public void aQueueOpenedWithoutTheLimitsReadsAllItsParts() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .maxCycleMessages(4)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 10; i++)
+                appender.writeText("msg-" + i);
+        }
+        for (boolean readOnly : new boolean[]{false, true}) {
+            try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                    .rollCycle(RollCycles.DAILY)
+                    .timeProvider(stp)
+                    .readOnly(readOnly)
+                    .testBlockSize()
+                    .build()) {
+                final ExcerptTailer tailer = queue.createTailer();
+                for (int i = 0; i < 10; i++)
+                    assertEquals("msg-" + i, tailer.readText());
+                assertEquals(null, tailer.readText());
+                assertEquals(2, queue.rollCycle().toCycle(queue.lastIndex()) & 0xFF);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void limitsCantBeAddedToAQueueWhichDoesntRollOnSize() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .testBlockSize()
+                .build()) {
+            queue.acquireAppender().writeText("msg");
+        }
+        SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .maxCycleMessages(4)
+                .testBlockSize()
+                .build();
+    }
+
+    @Test
+    public void theLastPartIsntProbedForOnEveryAppendOnceTheNextPeriodIsCreated() {
+        final SetTimeProvider stp = new SetTimeProvider(START * 1_000_000);
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(stp)
+                .maxCycleMessages(4)
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 6; i++)
+                appender.writeText("msg-" + i);
+            queue.release(queue.storeForCycle(queue.firstPart(queue.period(queue.cycle()) + 1), queue.epoch(), true));
+            assertEquals(1, queue.cycle() & 0xFF);
+            for (int i = 6; i < 10; i++)
+                appender.writeText("msg-" + i);
+            assertEquals(2, queue.cycle() & 0xFF);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rollCyclesWhoseCyclesCantBeSplitAreRejected() {
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.MINUTELY)
+                .timeProvider(new SetTimeProvider(START * 1_000_000))
+                .maxCycleMessages(1_000)
+                .build();
+    }
+
+    @Test
+    public void withoutLimitsThereIsOneFileAPeriod() {
+        final File dir = DirectoryUtils.tempDir(SizeRollingTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .timeProvider(new SetTimeProvider(START * 1_000_000))
+                .testBlockSize()
+                .build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 100; i++)
+                appender.writeText("msg-" + i);
+            assertArrayEquals(new String[]{"20170701.cq4"}, queueFiles(dir));
+            assertFalse(queue.isCycleFull(queue.cycle(), Long.MAX_VALUE - 1, Long.MAX_VALUE - 1));
+        }
+    }
+
+    private static String[] queueFiles(File dir) {
+        final String[] files = dir.list((d, n) -> n.endsWith(SingleChronicleQueue.SUFFIX));
+        Arrays.sort(files);
+        return files;
+    }
+}
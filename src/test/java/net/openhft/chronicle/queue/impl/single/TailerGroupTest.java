@@ -0,0 +1,166 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.time.SetTimeProvider;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class TailerGroupTest {
+    // Saturday, 1 July 2017 00:00:00
+    private static final long START = 1_498_867_200_000L;
+    private static final long ONE_DAY = 86_400_000L;
+
+    @Test(timeout = 30_000)
+    public void membersReadEachExcerptOnce() throws InterruptedException {
+        for (int blockSize : new int[]{1, 16})
+            membersReadEachExcerptOnce(blockSize);
+    }
+
+    private void membersReadEachExcerptOnce(int blockSize) throws InterruptedException {
+        final File dir = DirectoryUtils.tempDir(TailerGroupTest.class.getSimpleName());
+        final int messages = 10_000;
+        final int members = 4;
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final TailerGroup group = new TailerGroup(queue, "workers", blockSize);
+            final AtomicIntegerArray reads = new AtomicIntegerArray(messages);
+            final AtomicInteger read = new AtomicInteger();
+            final List<Thread> threads = new ArrayList<>();
+            for (int m = 0; m < members; m++) {
+                final String name = "member" + m;
+                threads.add(new Thread(() -> {
+                    try (TailerGroup.Member member = group.join(name)) {
+                        while (read.get() < messages) {
+                            try (DocumentContext dc = member.readingDocument()) {
+                                if (!dc.isPresent())
+                                    continue;
+                                reads.incrementAndGet(dc.wire().read("n").int32());
+                                read.incrementAndGet();
+                            }
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            // written while the members read.
+            append(queue.acquireAppender(), 0, messages);
+            for (Thread thread : threads)
+                thread.join();
+
+            assertEquals(messages, read.get());
+            for (int i = 0; i < messages; i++)
+                assertEquals("excerpt " + i, 1, reads.get(i));
+        }
+    }
+
+    @Test
+    public void aMemberWhichRejoinsReadsWhatItHadNotAcknowledged() {
+        final File dir = DirectoryUtils.tempDir(TailerGroupTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            append(queue.acquireAppender(), 0, 20);
+            final TailerGroup.Member a = new TailerGroup(queue, "workers", 4).join("a");
+            assertEquals(0, read(a));
+            // the second is read but not acknowledged when the queue closes.
+            assertEquals(1, read(a));
+        }
+
+        try (SingleChronicleQueue queue = builder(dir).build()) {
+            final TailerGroup group = new TailerGroup(queue, "workers", 4);
+            try (TailerGroup.Member b = group.join("b")) {
+                assertEquals(4, read(b));
+            }
+            try (TailerGroup.Member a = group.join("a")) {
+                assertEquals(1, read(a));
+                assertEquals(2, read(a));
+                assertEquals(3, read(a));
+                assertEquals(8, read(a));
+            }
+            // b acknowledged 4 when it left, and carries on with the rest of its claim.
+            try (TailerGroup.Member b = group.join("b")) {
+                assertEquals(5, read(b));
+            }
+        }
+    }
+
+    @Test
+    public void claimsStopAtTheEndOfACycle() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        final File dir = DirectoryUtils.tempDir(TailerGroupTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).rollCycle(RollCycles.DAILY).timeProvider(stp).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 3);
+            try (TailerGroup.Member member = new TailerGroup(queue, "workers", 4).join("a")) {
+                for (int i = 0; i < 3; i++)
+                    assertEquals(i, read(member));
+                try (DocumentContext dc = member.readingDocument()) {
+                    assertFalse(dc.isPresent());
+                }
+
+                // a day is skipped.
+                stp.currentTimeMillis(START + 2 * ONE_DAY);
+                append(appender, 3, 6);
+                for (int i = 3; i < 9; i++)
+                    assertEquals(i, read(member));
+                try (DocumentContext dc = member.readingDocument()) {
+                    assertFalse(dc.isPresent());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void aNextCycleCreatedAheadOfTheRollDoesNotEndTheClaim() {
+        final SetTimeProvider stp = new SetTimeProvider();
+        stp.currentTimeMillis(START);
+        final File dir = DirectoryUtils.tempDir(TailerGroupTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = builder(dir).rollCycle(RollCycles.DAILY).timeProvider(stp).build()) {
+            final ExcerptAppender appender = queue.acquireAppender();
+            append(appender, 0, 2);
+            try (TailerGroup.Member member = new TailerGroup(queue, "workers", 4).join("a")) {
+                for (int i = 0; i < 2; i++)
+                    assertEquals(i, read(member));
+
+                stp.currentTimeMillis(START + ONE_DAY - 1_000);
+                new Pretoucher(queue, null, c -> {
+                }, true, 2_000).execute();
+                try (DocumentContext dc = member.readingDocument()) {
+                    assertFalse(dc.isPresent());
+                }
+
+                append(appender, 2, 4);
+                for (int i = 2; i < 6; i++)
+                    assertEquals(i, read(member));
+            }
+        }
+    }
+
+    private static SingleChronicleQueueBuilder builder(File dir) {
+        return SingleChronicleQueueBuilder.binary(dir).testBlockSize();
+    }
+
+    private static void append(ExcerptAppender appender, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            final int n = i;
+            appender.writeDocument(w -> w.write("n").int32(n));
+        }
+    }
+
+    private static int read(TailerGroup.Member member) {
+        try (DocumentContext dc = member.readingDocument()) {
+            assertTrue(dc.isPresent());
+            return dc.wire().read("n").int32();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.core.values.LongValue;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.WaitStrategies;
+import net.openhft.chronicle.queue.WaitStrategy;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class WaitStrategyTest {
+
+    @Test
+    public void everyStrategyReadsTheNextExcerptOrTimesOut() {
+        final File dir = DirectoryUtils.tempDir(WaitStrategyTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final ExcerptTailer tailer = queue.createTailer();
+            int n = 0;
+            for (WaitStrategies strategy : WaitStrategies.values()) {
+                final long start = System.nanoTime();
+                try (DocumentContext dc = tailer.awaitNext(strategy, 20, TimeUnit.MILLISECONDS)) {
+                    assertFalse(dc.isPresent());
+                }
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+
+                final String message = "message " + n;
+                queue.acquireAppender().writeDocument(w -> w.write("msg").text(message));
+                try (DocumentContext dc = tailer.awaitNext(strategy, 1, TimeUnit.SECONDS)) {
+                    assertTrue(dc.isPresent());
+                    assertEquals(message, dc.wire().read("msg").text());
+                }
+                n++;
+            }
+        }
+    }
+
+    @Test(timeout = 5_000)
+    public void anAppenderUnparksATailerWhichIsNotified() throws Exception {
+        final File dir = DirectoryUtils.tempDir(WaitStrategyTest.class.getSimpleName());
+        // parks until the deadline unless it is unparked.
+        final WaitStrategy parkToTheDeadline = new WaitStrategy() {
+            @Override
+            public void idle(int iteration, long deadlineNanos) {
+                LockSupport.parkNanos(deadlineNanos - System.nanoTime());
+            }
+
+            @Override
+            public boolean isNotified() {
+                return true;
+            }
+        };
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final ExcerptTailer tailer = queue.createTailer();
+            final CompletableFuture<String> read = CompletableFuture.supplyAsync(() -> {
+                try (DocumentContext dc = tailer.awaitNext(parkToTheDeadline, 1, TimeUnit.MINUTES)) {
+                    return dc.isPresent() ? dc.wire().read("msg").text() : null;
+                }
+            });
+            Thread.sleep(100);
+            queue.acquireAppender().writeDocument(w -> w.write("msg").text("wake up"));
+            assertEquals("wake up", read.get(4, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test(timeout = 5_000)
+    public void anAppenderOfAnotherQueueInstanceBumpsThePublishedCount() throws Exception {
+        final File dir = DirectoryUtils.tempDir(WaitStrategyTest.class.getSimpleName());
+        // each instance has a notifier of its own, like a queue in another process.
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build();
+             SingleChronicleQueue other = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final long published = queue.commitNotifier().published();
+            other.acquireAppender().writeDocument(w -> w.write("msg").text("nobody waiting"));
+            assertEquals(published, queue.commitNotifier().published());
+
+            final ExcerptTailer tailer = queue.createTailer().toEnd();
+            final CompletableFuture<String> read = CompletableFuture.supplyAsync(() -> {
+                try (DocumentContext dc = tailer.awaitNext(WaitStrategies.PARK_UNTIL_NOTIFIED, 1, TimeUnit.MINUTES)) {
+                    return dc.isPresent() ? dc.wire().read("msg").text() : null;
+                }
+            });
+            Thread.sleep(100);
+            other.acquireAppender().writeDocument(w -> w.write("msg").text("wake up"));
+            assertEquals("wake up", read.get(4, TimeUnit.SECONDS));
+            assertTrue(queue.commitNotifier().published() != published);
+        }
+    }
+
+    @Test
+    public void commitsAreOnlyCountedUntilTheTimeAWaitingTailerLastLookedPasses() {
+        final File dir = DirectoryUtils.tempDir(WaitStrategyTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build();
+             SingleChronicleQueue other = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            final LongValue waitingUntil = queue.metaStore().doWithExclusiveLock(ts ->
+                    ts.acquireValueFor(CommitNotifier.WAITING_UNTIL_KEY));
+            final long published = queue.commitNotifier().published();
+
+            // as left by a tailer in a process which ended while it was waiting
+            waitingUntil.setValue(System.currentTimeMillis() + 60_000);
+            other.acquireAppender().writeText("counted");
+            assertEquals(published + 1, queue.commitNotifier().published());
+
+            waitingUntil.setValue(System.currentTimeMillis() - 1);
+            other.acquireAppender().writeText("not counted");
+            assertEquals(published + 1, queue.commitNotifier().published());
+        }
+    }
+
+    @Test
+    public void anInterruptedWaitReturnsNothing() {
+        final File dir = DirectoryUtils.tempDir(WaitStrategyTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir).testBlockSize().build()) {
+            Thread.currentThread().interrupt();
+            try (DocumentContext dc = queue.createTailer().awaitNext(WaitStrategies.PARK_UNTIL_NOTIFIED, 1, TimeUnit.MINUTES)) {
+                assertFalse(dc.isPresent());
+            } finally {
+                assertTrue(Thread.interrupted());
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package net.openhft.chronicle.queue.impl.single;
+
+import net.openhft.chronicle.bytes.Bytes;
+import net.openhft.chronicle.bytes.BytesRingBufferStats;
+import net.openhft.chronicle.core.Jvm;
+import net.openhft.chronicle.queue.BufferMode;
+import net.openhft.chronicle.queue.DirectoryUtils;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.queue.impl.ringbuffer.MultiWriterBytesRingBuffer;
+import net.openhft.chronicle.wire.DocumentContext;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public final class WriteBufferModeTest {
+    private static final int THREADS = 4;
+    private static final int MESSAGES = 20_000;
+
+    @Test
+    public void asynchronousWritesAreDrainedInProducerOrder() throws Exception {
+        final File dir = DirectoryUtils.tempDir(WriteBufferModeTest.class.getSimpleName());
+        final List<BytesRingBufferStats> stats = new CopyOnWriteArrayList<>();
+        final Consumer<BytesRingBufferStats> onRingBufferStats = stats::add;
+        final ExecutorService service = Executors.newFixedThreadPool(THREADS);
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .rollCycle(RollCycles.DAILY)
+                .testBlockSize()
+                .writeBufferMode(BufferMode.Asynchronous)
+                .bufferCapacity(4 << 10)
+                .onRingBufferStats(onRingBufferStats)
+                .build()) {
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                futures.add(service.submit(() -> {
+                    ExcerptAppender appender = queue.acquireAppender();
+                    for (int i = 0; i < MESSAGES; i++)
+                        try (DocumentContext dc = appender.writingDocument()) {
+                            dc.wire().write("thread").int32(thread)
+                                    .write("count").int32(i);
+                        }
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get(30, TimeUnit.SECONDS);
+
+            // the excerpts are read as they are drained.
+            final long end = System.currentTimeMillis() + 10_000;
+            int[] expected = new int[THREADS];
+            ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < THREADS * MESSAGES; ) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent()) {
+                        assertTrue("drained " + i + " excerpts", System.currentTimeMillis() < end);
+                        continue;
+                    }
+                    int thread = dc.wire().read("thread").int32();
+                    assertEquals(expected[thread]++, dc.wire().read("count").int32());
+                    i++;
+                }
+            }
+            try (DocumentContext dc = tailer.readingDocument()) {
+                assertFalse(dc.isPresent());
+            }
+            final ExcerptAppender appender = queue.acquireAppender();
+            while (appender.lastIndexAppended() != tailer.index() - 1)
+                assertTrue(System.currentTimeMillis() < end);
+
+            // the stats are published each second
+            final long statsEnd = System.currentTimeMillis() + 5_000;
+            while (stats.isEmpty()) {
+                assertTrue(System.currentTimeMillis() < statsEnd);
+                Thread.sleep(10);
+            }
+            assertEquals(4 << 10, stats.get(0).capacity());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void closeWritesWhatIsStillBuffered() {
+        final File dir = DirectoryUtils.tempDir(WriteBufferModeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .writeBufferMode(BufferMode.Asynchronous)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            for (int i = 0; i < 1000; i++)
+                appender.writeText("hello " + i);
+        }
+
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .build()) {
+            ExcerptTailer tailer = queue.createTailer();
+            for (int i = 0; i < 1000; i++)
+                assertEquals("hello " + i, tailer.readText());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void offerAfterCloseIsRefused() {
+        final File dir = DirectoryUtils.tempDir(WriteBufferModeTest.class.getSimpleName());
+        final WriteBehindBuffer writeBehindBuffer;
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .writeBufferMode(BufferMode.Asynchronous)
+                .build()) {
+            queue.acquireAppender().writeText("hello");
+            writeBehindBuffer = queue.writeBehindBuffer();
+        }
+        writeBehindBuffer.offer(Bytes.wrapForRead("too late".getBytes()));
+    }
+
+    @Test
+    public void aDroppedExcerptIsThrownByTheNextWriteAndSettingsAreRejected() {
+        final File dir = DirectoryUtils.tempDir(WriteBufferModeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .recordSize(16)
+                .writeBufferMode(BufferMode.Asynchronous)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            try {
+                appender.lazyIndexing(true);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            try {
+                appender.padToCacheAlign(ExcerptAppender.Padding.ALWAYS);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+            appender.padToCacheAlign(appender.padToCacheAlignMode());
+
+            // too long for a record, so it is dropped by the background thread
+            appender.writeBytes(Bytes.wrapForRead(new byte[32]));
+            final long end = System.currentTimeMillis() + 5_000;
+            while (true) {
+                assertTrue(System.currentTimeMillis() < end);
+                try {
+                    appender.writeBytes(Bytes.wrapForRead(new byte[8]));
+                } catch (IllegalStateException expected) {
+                    assertTrue(expected.getCause() instanceof IllegalArgumentException);
+                    break;
+                }
+                Jvm.pause(1);
+            }
+            // thrown once
+            appender.writeBytes(Bytes.wrapForRead(new byte[8]));
+        }
+    }
+
+    @Test
+    public void copyWritesAndRollsBack() {
+        final File dir = DirectoryUtils.tempDir(WriteBufferModeTest.class.getSimpleName());
+        try (SingleChronicleQueue queue = SingleChronicleQueueBuilder.binary(dir)
+                .testBlockSize()
+                .writeBufferMode(BufferMode.Copy)
+                .build()) {
+            ExcerptAppender appender = queue.acquireAppender();
+            appender.writeText("one");
+            try (DocumentContext dc = appender.writingDocument()) {
+                dc.wire().write("skipped").text("yes");
+                ((SingleChronicleQueueExcerpts.StoreAppender.StoreAppenderContext) dc).rollbackOnClose();
+            }
+            appender.writeText("two");
+
+            ExcerptTailer tailer = queue.createTailer();
+            assertEquals("one", tailer.readText());
+            assertEquals("two", tailer.readText());
+            assertEquals(null, tailer.readText());
+        }
+    }
+
+    @Test
+    public void ringBufferWrapsWithPadding() {
+        MultiWriterBytesRingBuffer ringBuffer = new MultiWriterBytesRingBuffer(256);
+        Bytes<?> message = Bytes.allocateElasticDirect(64);
+        Bytes<?> using = Bytes.allocateElasticDirect(64);
+        Bytes<?> empty = Bytes.allocateElasticDirect(8);
+        try {
+            for (int i = 0; i < 100; i++) {
+                message.clear().append("message-").append(i).append("-").append("xxxxxxxxxxxxxxxxxxxxxxxx", 0, i % 24);
+                assertTrue(ringBuffer.offer(message));
+                assertTrue(ringBuffer.offer(empty));
+                using.clear();
+                assertTrue(ringBuffer.read(using));
+                assertEquals(message.toString(), using.toString());
+                using.clear();
+                assertTrue(ringBuffer.read(using));
+                assertEquals(0, using.readRemaining());
+                assertTrue(ringBuffer.isEmpty());
+            }
+            while (ringBuffer.offer(message)) ;
+            assertTrue(ringBuffer.getAndClearStallCount() > 0);
+        } finally {
+            message.release();
+            using.release();
+            empty.release();
+            ringBuffer.release();
+        }
+    }
+}